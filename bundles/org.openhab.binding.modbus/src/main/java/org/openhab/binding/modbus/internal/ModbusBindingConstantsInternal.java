@@ -67,6 +67,9 @@ public class ModbusBindingConstantsInternal {
     public static final String READ_TYPE_DISCRETE_INPUT = "discrete";
     public static final String READ_TYPE_INPUT_REGISTER = "input";
 
+    public static final String UPDATE_DEADBAND_TYPE_ABSOLUTE = "absolute";
+    public static final String UPDATE_DEADBAND_TYPE_PERCENT = "percent";
+
     public static final Map<String, ModbusReadFunctionCode> READ_FUNCTION_CODES = new HashMap<>();
     static {
         READ_FUNCTION_CODES.put(READ_TYPE_COIL, ModbusReadFunctionCode.READ_COILS);
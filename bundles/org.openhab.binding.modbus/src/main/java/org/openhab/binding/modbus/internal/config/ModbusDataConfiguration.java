@@ -41,6 +41,9 @@ public class ModbusDataConfiguration {
     private boolean writeMultipleEvenWithSingleRegisterOrCoil;
     private int writeMaxTries = 3; // backwards compatibility and tests
     private long updateUnchangedValuesEveryMillis = 1000L;
+    private double updateDeadband;
+    @Nullable
+    private String updateDeadbandType = "absolute";
 
     public @Nullable String getReadStart() {
         return readStart;
@@ -121,4 +124,20 @@ public class ModbusDataConfiguration {
     public void setUpdateUnchangedValuesEveryMillis(long updateUnchangedValuesEveryMillis) {
         this.updateUnchangedValuesEveryMillis = updateUnchangedValuesEveryMillis;
     }
+
+    public double getUpdateDeadband() {
+        return updateDeadband;
+    }
+
+    public void setUpdateDeadband(double updateDeadband) {
+        this.updateDeadband = updateDeadband;
+    }
+
+    public @Nullable String getUpdateDeadbandType() {
+        return updateDeadbandType;
+    }
+
+    public void setUpdateDeadbandType(String updateDeadbandType) {
+        this.updateDeadbandType = updateDeadbandType;
+    }
 }
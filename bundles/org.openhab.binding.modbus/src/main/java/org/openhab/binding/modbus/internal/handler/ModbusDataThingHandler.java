@@ -135,6 +135,8 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
     private volatile int pollStart;
     private volatile int slaveId;
     private volatile long updateUnchangedValuesEveryMillis;
+    private volatile double updateDeadband;
+    private volatile boolean updateDeadbandPercent;
     private volatile @Nullable ModbusSlaveEndpoint slaveEndpoint;
     private volatile @Nullable ModbusManager manager;
     private volatile @Nullable PollTask pollTask;
@@ -146,6 +148,13 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
     private volatile Map<String, ChannelUID> channelCache = new HashMap<>();
     private volatile Map<ChannelUID, Long> channelLastUpdated = new HashMap<>(NUMER_OF_CHANNELS_HINT);
     private volatile Map<ChannelUID, State> channelLastState = new HashMap<>(NUMER_OF_CHANNELS_HINT);
+    // raw value and decoded state of the previous poll, used to avoid decoding unchanged data
+    private volatile long lastRawValue;
+    private volatile @Nullable State lastNumericState;
+    // raw value, decoded state and time of the last poll that updated the channels
+    private volatile long lastPublishedRawValue;
+    private volatile @Nullable State lastPublishedNumericState;
+    private volatile long lastPublishedMillis;
 
     private volatile LocalDateTime lastStatusInfoUpdate = LocalDateTime.MIN;
     private volatile ThingStatusInfo statusInfo = new ThingStatusInfo(ThingStatus.UNKNOWN, ThingStatusDetail.NONE,
@@ -337,6 +346,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             logger.trace("initialize() of thing {} '{}' starting", thing.getUID(), thing.getLabel());
             config = getConfigAs(ModbusDataConfiguration.class);
             updateUnchangedValuesEveryMillis = config.getUpdateUnchangedValuesEveryMillis();
+            updateDeadband = config.getUpdateDeadband();
             Bridge bridge = getBridge();
             if (bridge == null) {
                 logger.debug("Thing {} '{}' has no bridge", getThing().getUID(), getThing().getLabel());
@@ -376,6 +386,7 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
                 childOfEndpoint = false;
             }
             validateAndParseReadParameters();
+            validateAndParseUpdateParameters();
             validateAndParseWriteParameters();
             validateMustReadOrWrite();
 
@@ -414,6 +425,20 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         statusInfo = new ThingStatusInfo(ThingStatus.UNKNOWN, ThingStatusDetail.NONE, null);
         channelLastUpdated = new HashMap<>(NUMER_OF_CHANNELS_HINT);
         channelLastState = new HashMap<>(NUMER_OF_CHANNELS_HINT);
+        lastRawValue = 0;
+        lastNumericState = null;
+        lastPublishedRawValue = 0;
+        lastPublishedNumericState = null;
+        lastPublishedMillis = 0;
+        updateDeadband = 0;
+        updateDeadbandPercent = false;
+    }
+
+    @Override
+    public synchronized void channelLinked(ChannelUID channelUID) {
+        // make sure the next poll updates the newly linked channel
+        lastPublishedNumericState = null;
+        super.channelLinked(channelUID);
     }
 
     @Override
@@ -507,6 +532,26 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         validateReadIndex(pollTask);
     }
 
+    private void validateAndParseUpdateParameters() throws ModbusConfigurationException {
+        ModbusDataConfiguration config = this.config;
+        Objects.requireNonNull(config);
+        if (updateDeadband < 0) {
+            String errmsg = String.format("Thing %s updateDeadband=%s should not be negative!", getThing().getUID(),
+                    updateDeadband);
+            throw new ModbusConfigurationException(errmsg);
+        }
+        String deadbandType = config.getUpdateDeadbandType();
+        if (StringUtils.isBlank(deadbandType) || UPDATE_DEADBAND_TYPE_ABSOLUTE.equals(deadbandType)) {
+            updateDeadbandPercent = false;
+        } else if (UPDATE_DEADBAND_TYPE_PERCENT.equals(deadbandType)) {
+            updateDeadbandPercent = true;
+        } else {
+            String errmsg = String.format("Thing %s updateDeadbandType=%s is invalid! Use '%s' or '%s'.",
+                    getThing().getUID(), deadbandType, UPDATE_DEADBAND_TYPE_ABSOLUTE, UPDATE_DEADBAND_TYPE_PERCENT);
+            throw new ModbusConfigurationException(errmsg);
+        }
+    }
+
     private void validateAndParseWriteParameters() throws ModbusConfigurationException {
         boolean writeTypeMissing = StringUtils.isBlank(config.getWriteType());
         boolean writeStartMissing = StringUtils.isBlank(config.getWriteStart());
@@ -675,16 +720,107 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             int itemsPerRegister = 16 / readValueType.getBits();
             extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
         }
-        numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType)
-                .map(state -> (State) state).orElse(UnDefType.UNDEF);
+        long rawValue = extractRawValue(registers, extractIndex, readValueType);
+        long now = System.currentTimeMillis();
+        if (isUnchanged(rawValue, now)) {
+            // Same data as last time, no need to decode or transform it
+            updateSuppressed();
+            logger.trace("Thing {} data unchanged (raw value {}), channels not updated. Registers {} for request {}",
+                    thing.getUID(), rawValue, registers, request);
+            return;
+        }
+        State lastNumericState = this.lastNumericState;
+        if (lastNumericState != null && rawValue == lastRawValue) {
+            // data has not changed, reuse the previously decoded state
+            numericState = lastNumericState;
+        } else {
+            numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType)
+                    .map(state -> (State) state).orElse(UnDefType.UNDEF);
+            this.lastRawValue = rawValue;
+            this.lastNumericState = numericState;
+        }
+        if (isWithinDeadband(numericState, now)) {
+            updateSuppressed();
+            logger.trace("Thing {} value {} within deadband of last value {}, channels not updated.", thing.getUID(),
+                    numericState, lastPublishedNumericState);
+            return;
+        }
         boolean boolValue = !numericState.equals(DecimalType.ZERO);
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
+        markPublished(rawValue, numericState, now);
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={}, readSubIndex(or 0)={}, extractIndex={} -> numeric value {} and boolValue={}. Registers {} for request {}",
                 thing.getUID(), values, readValueType, readIndex, readSubIndex.orElse(0), extractIndex, numericState,
                 boolValue, registers, request);
     }
 
+    /**
+     * Whether the unchanged value of the previous update should be sent again
+     *
+     * With updateUnchangedValuesEveryMillis of 0, every poll updates the channels. With negative values, unchanged
+     * values are never sent again.
+     */
+    private boolean isHeartbeatDue(long now) {
+        long updateUnchangedValuesEveryMillis = this.updateUnchangedValuesEveryMillis;
+        if (updateUnchangedValuesEveryMillis == 0) {
+            return true;
+        }
+        return updateUnchangedValuesEveryMillis > 0 && now - lastPublishedMillis >= updateUnchangedValuesEveryMillis;
+    }
+
+    /**
+     * Whether the polled raw data equals the data of the previous update, and updating the channels can be skipped
+     */
+    private boolean isUnchanged(long rawValue, long now) {
+        return lastPublishedNumericState != null && rawValue == lastPublishedRawValue && !isHeartbeatDue(now);
+    }
+
+    /**
+     * Whether the decoded value differs less than the configured deadband from the value of the previous update
+     */
+    private boolean isWithinDeadband(State numericState, long now) {
+        State lastPublished = lastPublishedNumericState;
+        if (updateDeadband <= 0 || !(lastPublished instanceof DecimalType) || !(numericState instanceof DecimalType)
+                || isHeartbeatDue(now)) {
+            return false;
+        }
+        double last = ((DecimalType) lastPublished).doubleValue();
+        double delta = Math.abs(((DecimalType) numericState).doubleValue() - last);
+        double band = updateDeadbandPercent ? Math.abs(last) * updateDeadband / 100 : updateDeadband;
+        return delta < band;
+    }
+
+    private void markPublished(long rawValue, State numericState, long now) {
+        lastPublishedRawValue = rawValue;
+        lastPublishedNumericState = numericState;
+        lastPublishedMillis = now;
+    }
+
+    /**
+     * Handle successful poll that does not update the data channels
+     */
+    private void updateSuppressed() {
+        updateStatusIfChanged(ThingStatus.ONLINE);
+        ChannelUID lastReadSuccessUID = getChannelUID(ModbusBindingConstantsInternal.CHANNEL_LAST_READ_SUCCESS);
+        if (isLinked(lastReadSuccessUID)) {
+            tryUpdateState(lastReadSuccessUID, new DateTimeType());
+        }
+    }
+
+    /**
+     * Extract the value without decoding it to a state, for detecting unchanged data cheaply
+     */
+    private static long extractRawValue(ModbusRegisterArray registers, int extractIndex, ValueType readValueType) {
+        switch (readValueType) {
+            case FLOAT32:
+            case FLOAT32_SWAP:
+                return Float.floatToRawIntBits(
+                        ModbusBitUtilities.extractFloatFromRegisters(registers, extractIndex, readValueType));
+            default:
+                return ModbusBitUtilities.extractLongFromRegisters(registers, extractIndex, readValueType);
+        }
+    }
+
     @Override
     public synchronized void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
         if (hasConfigurationError()) {
@@ -693,8 +829,14 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
             return;
         }
         boolean boolValue = bits.getBit(readIndex.get() - pollStart);
+        long now = System.currentTimeMillis();
+        if (isUnchanged(boolValue ? 1 : 0, now)) {
+            updateSuppressed();
+            return;
+        }
         DecimalType numericState = boolValue ? new DecimalType(BigDecimal.ONE) : DecimalType.ZERO;
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
+        markPublished(boolValue ? 1 : 0, numericState, now);
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={} -> numeric value {} and boolValue={}. Bits {} for request {}",
                 thing.getUID(), values, readValueType, readIndex, numericState, boolValue, bits, request);
@@ -873,8 +1015,9 @@ public class ModbusDataThingHandler extends BaseThingHandler implements ModbusRe
         State lastState = channelLastState.get(uid);
         long lastUpdatedMillis = channelLastUpdated.getOrDefault(uid, 0L);
         long millisSinceLastUpdate = now - lastUpdatedMillis;
-        if (lastUpdatedMillis <= 0L || lastState == null || updateUnchangedValuesEveryMillis <= 0L
-                || millisSinceLastUpdate > updateUnchangedValuesEveryMillis || !lastState.equals(state)) {
+        if (lastUpdatedMillis <= 0L || lastState == null || updateUnchangedValuesEveryMillis == 0L
+                || (updateUnchangedValuesEveryMillis > 0L && millisSinceLastUpdate > updateUnchangedValuesEveryMillis)
+                || !lastState.equals(state)) {
             tryUpdateState(uid, state);
             channelLastUpdated.put(uid, now);
         }
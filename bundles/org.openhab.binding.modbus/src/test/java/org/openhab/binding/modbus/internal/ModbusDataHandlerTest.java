@@ -1352,4 +1352,94 @@ public class ModbusDataHandlerTest extends JavaTest {
         testInitGeneric(null, dataConfig, status -> assertThat(status.getStatus(), is(equalTo(ThingStatus.ONLINE))));
 
     }
+
+    private ModbusDataThingHandler testUpdateSuppressionGeneric(Configuration dataConfig, int... registerValues) {
+        ModbusSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("thisishost", 502);
+
+        // Minimally mocked request
+        ModbusReadRequestBlueprint request = Mockito.mock(ModbusReadRequestBlueprint.class);
+        doReturn(3).when(request).getDataLength();
+        doReturn(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS).when(request).getFunctionCode();
+
+        PollTask task = Mockito.mock(PollTask.class);
+        doReturn(endpoint).when(task).getEndpoint();
+        doReturn(request).when(task).getRequest();
+
+        Bridge poller = createPollerMock("poller1", task);
+
+        dataConfig.put("readStart", "0");
+        dataConfig.put("readTransform", "default");
+        dataConfig.put("readValueType", "int16");
+        ModbusDataThingHandler dataHandler = createDataHandler("read1", poller,
+                builder -> builder.withConfiguration(dataConfig));
+        assertThat(dataHandler.getThing().getStatus(), is(equalTo(ThingStatus.ONLINE)));
+
+        for (int value : registerValues) {
+            dataHandler.onRegisters(request,
+                    new BasicModbusRegisterArray(new ModbusRegister[] { new BasicModbusRegister(value) }));
+        }
+        return dataHandler;
+    }
+
+    private List<State> getStateUpdates(ModbusDataThingHandler handler, String channel) {
+        List<State> updates = stateUpdates.get(new ChannelUID(handler.getThing().getUID(), channel));
+        return updates == null ? new ArrayList<>() : updates;
+    }
+
+    @Test
+    public void testUnchangedDataUpdatedOnlyOnce() {
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("updateUnchangedValuesEveryMillis", -1);
+        ModbusDataThingHandler dataHandler = testUpdateSuppressionGeneric(dataConfig, 5, 5, 5, 6, 6);
+
+        assertThat(getStateUpdates(dataHandler, CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(5), new DecimalType(6)))));
+        // successful reads are still reported with the polls not updating the data channels
+        assertThat(getStateUpdates(dataHandler, CHANNEL_LAST_READ_SUCCESS).size() >= 3, is(true));
+    }
+
+    @Test
+    public void testUnchangedDataUpdatedWithEveryPoll() {
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("updateUnchangedValuesEveryMillis", 0);
+        ModbusDataThingHandler dataHandler = testUpdateSuppressionGeneric(dataConfig, 5, 5, 5);
+
+        assertThat(getStateUpdates(dataHandler, CHANNEL_NUMBER).size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void testAbsoluteDeadband() {
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("updateUnchangedValuesEveryMillis", -1);
+        dataConfig.put("updateDeadband", 2);
+        ModbusDataThingHandler dataHandler = testUpdateSuppressionGeneric(dataConfig, 10, 11, 9, 12, 13, 14);
+
+        assertThat(getStateUpdates(dataHandler, CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(10), new DecimalType(12), new DecimalType(14)))));
+    }
+
+    @Test
+    public void testPercentDeadband() {
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("updateUnchangedValuesEveryMillis", -1);
+        dataConfig.put("updateDeadband", 10);
+        dataConfig.put("updateDeadbandType", "percent");
+        ModbusDataThingHandler dataHandler = testUpdateSuppressionGeneric(dataConfig, 100, 109, 91, 110, 120);
+
+        assertThat(getStateUpdates(dataHandler, CHANNEL_NUMBER),
+                is(equalTo(Arrays.asList(new DecimalType(100), new DecimalType(110)))));
+    }
+
+    @Test
+    public void testInvalidDeadbandType() {
+        Configuration dataConfig = new Configuration();
+        dataConfig.put("readStart", "0");
+        dataConfig.put("readValueType", "int16");
+        dataConfig.put("updateDeadband", 1);
+        dataConfig.put("updateDeadbandType", "relative");
+        testInitGeneric(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, dataConfig, status -> {
+            assertThat(status.getStatus(), is(equalTo(ThingStatus.OFFLINE)));
+            assertThat(status.getStatusDetail(), is(equalTo(ThingStatusDetail.CONFIGURATION_ERROR)));
+        });
+    }
 }
@@ -13,7 +13,8 @@
 package org.openhab.binding.mqtt.generic;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -32,6 +33,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.UnDefType;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.binding.mqtt.handler.AbstractBrokerHandler;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,10 +65,16 @@ import org.slf4j.LoggerFactory;
 @NonNullByDefault
 public abstract class AbstractMQTTThingHandler extends BaseThingHandler implements ChannelStateUpdateListener {
     private final Logger logger = LoggerFactory.getLogger(AbstractMQTTThingHandler.class);
+    // Timeout for the bridge handler to provide its broker connection
+    private static final int CONNECTION_TIMEOUT = 500;
     // Timeout for the entire tree parsing and subscription
     private final int subscribeTimeout;
+    // The currently running, asynchronous startup
+    private @Nullable CompletableFuture<@Nullable Void> startup;
 
     protected @Nullable MqttBrokerConnection connection;
+    // The subscription dispatcher of the bridge, if any
+    protected @Nullable MqttSubscriptionDispatcher subscriptionDispatcher;
 
     public AbstractMQTTThingHandler(Thing thing, int subscribeTimeout) {
         super(thing);
@@ -127,10 +135,12 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler implemen
 
     @Override
     public void bridgeStatusChanged(ThingStatusInfo bridgeStatusInfo) {
+        cancelStartup();
         if (bridgeStatusInfo.getStatus() == ThingStatus.OFFLINE) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
             stop();
             connection = null;
+            subscriptionDispatcher = null;
             return;
         }
         if (bridgeStatusInfo.getStatus() != ThingStatus.ONLINE) {
@@ -145,27 +155,84 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler implemen
             return;
         }
 
-        final MqttBrokerConnection connection;
+        // Wait for the connection and the subscriptions without blocking the calling framework thread.
+        // The thing stays UNKNOWN until the derived class or one of the error paths below sets a status.
+        updateStatus(ThingStatus.UNKNOWN);
+        final CompletableFuture<@Nullable Void> startup = new CompletableFuture<>();
+        this.startup = startup;
+        withTimeout(h.getConnectionAsync(), CONNECTION_TIMEOUT).whenComplete((connection, e) -> {
+            if (startup.isDone()) { // Cancelled in the meantime
+                return;
+            }
+            if (e != null || connection == null) {
+                startup.complete(null);
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_UNINITIALIZED,
+                        "Bridge handler has no valid broker connection!");
+                return;
+            }
+            this.connection = connection;
+            this.subscriptionDispatcher = h.getSubscriptionDispatcher();
+            startSubscriptions(connection, startup);
+        });
+    }
+
+    /**
+     * Start up (subscribe to MQTT topics). Limit with a timeout and catch exceptions.
+     * We do not set the thing to ONLINE here in the AbstractBase, that is the responsibility of a derived
+     * class.
+     */
+    private void startSubscriptions(MqttBrokerConnection connection, CompletableFuture<@Nullable Void> startup) {
+        CompletableFuture<@Nullable Void> started;
         try {
-            connection = h.getConnectionAsync().get(500, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException ignored) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_UNINITIALIZED,
-                    "Bridge handler has no valid broker connection!");
-            return;
+            started = start(connection);
+        } catch (RuntimeException e) {
+            started = new CompletableFuture<>();
+            started.completeExceptionally(e);
         }
-        this.connection = connection;
+        withTimeout(started, subscribeTimeout).whenComplete((v, e) -> {
+            if (!startup.complete(null) || e == null) {
+                return;
+            }
+            final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                        "Did not receive all required topics");
+            } else {
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, cause.getLocalizedMessage());
+            }
+        });
+    }
 
-        // Start up (subscribe to MQTT topics). Limit with a timeout and catch exceptions.
-        // We do not set the thing to ONLINE here in the AbstractBase, that is the responsibility of a derived
-        // class.
-        try {
-            start(connection).thenApply(e -> true).exceptionally(e -> {
-                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getLocalizedMessage());
-                return null;
-            }).get(subscribeTimeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException ignored) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
-                    "Did not receive all required topics");
+    /**
+     * Returns a future that completes like the given one, or exceptionally with a {@link TimeoutException} if the
+     * given future did not complete within the timeout.
+     */
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, int timeoutMillis) {
+        if (future.isDone()) {
+            return future;
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final ScheduledFuture<?> timeout = scheduler.schedule(
+                () -> result.completeExceptionally(new TimeoutException()), timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((v, e) -> {
+            timeout.cancel(false);
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(v);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Abandons a running startup. Its results will not change the thing status anymore.
+     */
+    private void cancelStartup() {
+        final CompletableFuture<@Nullable Void> startup = this.startup;
+        if (startup != null) {
+            startup.cancel(false);
+            this.startup = null;
         }
     }
 
@@ -205,6 +272,7 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler implemen
 
     @Override
     public void dispose() {
+        cancelStartup();
         MqttBrokerConnection connection = this.connection;
         if (connection != null) {
             connection.unsubscribeAll();
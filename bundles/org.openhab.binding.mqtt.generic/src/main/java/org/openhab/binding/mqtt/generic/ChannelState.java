@@ -31,6 +31,7 @@ import org.eclipse.smarthome.core.types.TypeParser;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
 import org.openhab.binding.mqtt.generic.values.Value;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +56,7 @@ public class ChannelState implements MqttMessageSubscriber {
     // Runtime variables
     @Nullable
     private MqttBrokerConnection connection;
+    private @Nullable MqttSubscriptionDispatcher dispatcher;
     protected final List<ChannelStateTransformation> transformationsIn = new ArrayList<>();
     protected final List<ChannelStateTransformation> transformationsOut = new ArrayList<>();
     private @Nullable ChannelStateUpdateListener channelStateUpdateListener;
@@ -235,7 +237,8 @@ public class ChannelState implements MqttMessageSubscriber {
     public CompletableFuture<@Nullable Void> stop() {
         final MqttBrokerConnection connection = this.connection;
         if (connection != null && StringUtils.isNotBlank(config.stateTopic)) {
-            return connection.unsubscribe(config.stateTopic, this).thenRun(this::internalStop);
+            return MqttSubscriptionDispatcher.unsubscribe(connection, dispatcher, config.stateTopic, this)
+                    .thenRun(this::internalStop);
         } else {
             internalStop();
             return CompletableFuture.completedFuture(null);
@@ -244,6 +247,7 @@ public class ChannelState implements MqttMessageSubscriber {
 
     private void internalStop() {
         this.connection = null;
+        this.dispatcher = null;
         this.channelStateUpdateListener = null;
         hasSubscribed = false;
         cachedValue.resetState();
@@ -280,18 +284,36 @@ public class ChannelState implements MqttMessageSubscriber {
      */
     public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection, ScheduledExecutorService scheduler,
             int timeout) {
+        return start(connection, null, scheduler, timeout);
+    }
+
+    /**
+     * Subscribes to the state topic via the subscription dispatcher of the broker and informs about updates on the
+     * given listener.
+     *
+     * @param connection A broker connection
+     * @param dispatcher The subscription dispatcher of the broker connection. If null, the state topic is subscribed
+     *            on the connection directly.
+     * @param scheduler A scheduler to realize the timeout
+     * @param timeout A timeout in milliseconds. Can be 0 to disable the timeout and let the future return earlier.
+     * @return A future that completes with true if the subscribing worked, with false if the stateTopic is not set
+     *         and exceptionally otherwise.
+     */
+    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection,
+            @Nullable MqttSubscriptionDispatcher dispatcher, ScheduledExecutorService scheduler, int timeout) {
         if (hasSubscribed) {
             return CompletableFuture.completedFuture(null);
         }
 
         this.connection = connection;
+        this.dispatcher = dispatcher;
 
         if (StringUtils.isBlank(config.stateTopic)) {
             return CompletableFuture.completedFuture(null);
         }
 
         this.future = new CompletableFuture<>();
-        connection.subscribe(config.stateTopic, this).thenRun(() -> {
+        MqttSubscriptionDispatcher.subscribe(connection, dispatcher, config.stateTopic, this).thenRun(() -> {
             hasSubscribed = true;
             logger.debug("Subscribed channel {} to topic: {}", this.channelUID, config.stateTopic);
             if (timeout > 0 && !future.isDone()) {
@@ -12,8 +12,6 @@
  */
 package org.openhab.binding.mqtt.generic;
 
-import java.lang.ref.WeakReference;
-
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.transform.TransformationException;
@@ -24,13 +22,18 @@ import org.slf4j.LoggerFactory;
 /**
  * A transformation for a {@link ChannelState}. It is applied for each received value on an MQTT topic.
  *
+ * The transformation service is resolved once and kept for the channel. It is dropped and looked up again once the
+ * {@link TransformationServiceProvider} reports that a service went away. Every message of a channel uses the same
+ * pattern, so services caching their compiled patterns by the pattern string can reuse them.
+ *
  * @author David Graeff - Initial contribution
  */
 @NonNullByDefault
 public class ChannelStateTransformation {
     private final Logger logger = LoggerFactory.getLogger(ChannelStateTransformation.class);
     private final TransformationServiceProvider provider;
-    private WeakReference<@Nullable TransformationService> transformationService = new WeakReference<>(null);
+    private @Nullable TransformationService transformationService;
+    private int serviceGeneration;
     final String pattern;
     final String serviceName;
 
@@ -77,14 +80,16 @@ public class ChannelStateTransformation {
      * @return The transformed value
      */
     protected String processValue(String value) {
-        TransformationService transformationService = this.transformationService.get();
-        if (transformationService == null) {
+        TransformationService transformationService = this.transformationService;
+        int generation = provider.getServiceGeneration();
+        if (transformationService == null || generation != serviceGeneration) {
             transformationService = provider.getTransformationService(serviceName);
             if (transformationService == null) {
                 logger.warn("Transformation service {} for pattern {} not found!", serviceName, pattern);
                 return value;
             }
-            this.transformationService = new WeakReference<>(transformationService);
+            this.transformationService = transformationService;
+            this.serviceGeneration = generation;
         }
         String temp = null;
         try {
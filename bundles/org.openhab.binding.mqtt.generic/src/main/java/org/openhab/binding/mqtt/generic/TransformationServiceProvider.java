@@ -31,4 +31,14 @@ public interface TransformationServiceProvider {
      */
     @Nullable
     TransformationService getTransformationService(String type);
+
+    /**
+     * A counter that changes whenever a {@link TransformationService} went away. Users holding on to a provided
+     * service must look it up again once this counter changed.
+     *
+     * @return the current generation of the provided services.
+     */
+    default int getServiceGeneration() {
+        return 0;
+    }
 }
@@ -13,6 +13,7 @@
 package org.openhab.binding.mqtt.generic.internal;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,11 +29,14 @@ import org.eclipse.smarthome.core.transform.TransformationService;
 import org.openhab.binding.mqtt.generic.MqttChannelStateDescriptionProvider;
 import org.openhab.binding.mqtt.generic.TransformationServiceProvider;
 import org.openhab.binding.mqtt.generic.internal.handler.GenericMQTTThingHandler;
+import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 
 /**
  * The {@link MqttThingHandlerFactory} is responsible for creating things and thing
@@ -46,6 +50,8 @@ public class MqttThingHandlerFactory extends BaseThingHandlerFactory implements
     private @NonNullByDefault({}) MqttChannelStateDescriptionProvider stateDescriptionProvider;
     private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Stream
             .of(MqttBindingConstants.GENERIC_MQTT_THING).collect(Collectors.toSet());
+    // Changes whenever a transformation service goes away, see getServiceGeneration()
+    private final AtomicInteger serviceGeneration = new AtomicInteger();
 
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
@@ -73,6 +79,15 @@ public class MqttThingHandlerFactory extends BaseThingHandlerFactory implements
         this.stateDescriptionProvider = null;
     }
 
+    @Reference(service = TransformationService.class, cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC)
+    protected void addTransformationService(ServiceReference<TransformationService> transformationService) {
+    }
+
+    protected void removeTransformationService(ServiceReference<TransformationService> transformationService) {
+        serviceGeneration.incrementAndGet();
+    }
+
     @Override
     protected @Nullable ThingHandler createHandler(Thing thing) {
         ThingTypeUID thingTypeUID = thing.getThingTypeUID();
@@ -88,4 +103,9 @@ public class MqttThingHandlerFactory extends BaseThingHandlerFactory implements
         return TransformationHelper.getTransformationService(bundleContext, type);
     }
 
+    @Override
+    public int getServiceGeneration() {
+        return serviceGeneration.get();
+    }
+
 }
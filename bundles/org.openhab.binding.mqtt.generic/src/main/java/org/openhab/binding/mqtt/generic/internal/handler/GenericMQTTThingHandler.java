@@ -87,7 +87,7 @@ public class GenericMQTTThingHandler extends AbstractMQTTThingHandler implements
     @Override
     protected CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection) {
         List<CompletableFuture<@Nullable Void>> futures = channelStateByChannelUID.values().stream()
-                .map(c -> c.start(connection, scheduler, 0)).collect(Collectors.toList());
+                .map(c -> c.start(connection, subscriptionDispatcher, scheduler, 0)).collect(Collectors.toList());
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenRun(() -> {
             updateStatus(ThingStatus.ONLINE, ThingStatusDetail.NONE);
         });
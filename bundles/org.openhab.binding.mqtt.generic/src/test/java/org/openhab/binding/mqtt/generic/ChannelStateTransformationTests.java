@@ -132,4 +132,29 @@ public class ChannelStateTransformationTests {
         verify(callback).stateUpdated(eq(textChannelUID), argThat(arg -> "23.2".equals(arg.toString())));
         assertThat(channelConfig.getCache().getChannelState().toString(), is("23.2"));
     }
+
+    @SuppressWarnings("null")
+    @Test
+    public void transformationServiceLookedUpOnce() throws Exception {
+        when(jsonPathService.transform(jsonPathPattern, jsonPathJSON)).thenReturn("23.2");
+
+        thingHandler.initialize();
+        ChannelState channelConfig = thingHandler.getChannelState(textChannelUID);
+        channelConfig.setChannelStateUpdateListener(thingHandler);
+
+        byte payload[] = jsonPathJSON.getBytes();
+        for (int i = 0; i < 3; i++) {
+            channelConfig.processMessage(channelConfig.getStateTopic(), payload);
+        }
+
+        verify(jsonPathService, times(3)).transform(jsonPathPattern, jsonPathJSON);
+        verify(transformationServiceProvider, times(1)).getTransformationService(anyString());
+
+        // A transformation service went away: The service is looked up again, once
+        when(transformationServiceProvider.getServiceGeneration()).thenReturn(1);
+        for (int i = 0; i < 2; i++) {
+            channelConfig.processMessage(channelConfig.getStateTopic(), payload);
+        }
+        verify(transformationServiceProvider, times(2)).getTransformationService(anyString());
+    }
 }
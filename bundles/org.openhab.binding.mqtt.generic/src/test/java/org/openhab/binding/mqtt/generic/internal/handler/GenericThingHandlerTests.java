@@ -125,13 +125,28 @@ public class GenericThingHandlerTests {
                 && arg.getStatusDetail().equals(ThingStatusDetail.NONE)));
     }
 
+    @Test
+    public void initializeDoesNotWaitForConnection() {
+        CompletableFuture<MqttBrokerConnection> pendingConnection = new CompletableFuture<>();
+        when(bridgeHandler.getConnectionAsync()).thenReturn(pendingConnection);
+
+        thingHandler.initialize();
+        verify(thingHandler, never()).start(any());
+        verify(callback).statusUpdated(eq(thing), argThat(arg -> arg.getStatus().equals(ThingStatus.UNKNOWN)));
+
+        pendingConnection.complete(connection);
+        verify(thingHandler).start(any());
+        assertThat(thingHandler.getConnection(), is(connection));
+        verify(callback).statusUpdated(eq(thing), argThat(arg -> arg.getStatus().equals(ThingStatus.ONLINE)));
+    }
+
     @Test
     public void handleCommandRefresh() {
         TextValue value = spy(new TextValue());
         value.update(new StringType("DEMOVALUE"));
 
         ChannelState channelConfig = mock(ChannelState.class);
-        doReturn(CompletableFuture.completedFuture(true)).when(channelConfig).start(any(), any(), anyInt());
+        doReturn(CompletableFuture.completedFuture(true)).when(channelConfig).start(any(), any(), any(), anyInt());
         doReturn(CompletableFuture.completedFuture(true)).when(channelConfig).stop();
         doReturn(value).when(channelConfig).getCache();
         doReturn(channelConfig).when(thingHandler).createChannelState(any(), any(), any());
@@ -30,6 +30,7 @@ import org.eclipse.smarthome.core.thing.type.ChannelGroupTypeUID;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
 import org.openhab.binding.mqtt.generic.values.Value;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 import org.openhab.binding.mqtt.homeassistant.generic.internal.MqttBindingConstants;
 import org.openhab.binding.mqtt.homeassistant.internal.CFactory.ComponentConfiguration;
 
@@ -90,13 +91,14 @@ public abstract class AbstractComponent<C extends BaseChannelConfiguration> {
      * Subscribes to all state channels of the component and adds all channels to the provided channel type provider.
      *
      * @param connection The connection
+     * @param dispatcher The subscription dispatcher of the connection or null
      * @param channelStateUpdateListener A listener
      * @return A future that completes as soon as all subscriptions have been performed. Completes exceptionally on
      *         errors.
      */
-    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection, ScheduledExecutorService scheduler,
-            int timeout) {
-        return channels.values().stream().map(v -> v.start(connection, scheduler, timeout))
+    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection,
+            @Nullable MqttSubscriptionDispatcher dispatcher, ScheduledExecutorService scheduler, int timeout) {
+        return channels.values().stream().map(v -> v.start(connection, dispatcher, scheduler, timeout))
                 .reduce(CompletableFuture.completedFuture(null), (f, v) -> f.thenCompose(b -> v));
     }
 
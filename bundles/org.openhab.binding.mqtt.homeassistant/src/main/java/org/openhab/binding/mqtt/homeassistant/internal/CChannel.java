@@ -36,6 +36,7 @@ import org.openhab.binding.mqtt.generic.ChannelStateUpdateListener;
 import org.openhab.binding.mqtt.generic.MqttChannelTypeProvider;
 import org.openhab.binding.mqtt.generic.TransformationServiceProvider;
 import org.openhab.binding.mqtt.generic.values.Value;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 import org.openhab.binding.mqtt.homeassistant.generic.internal.MqttBindingConstants;
 import org.openhab.binding.mqtt.homeassistant.internal.CFactory.ComponentConfiguration;
 
@@ -90,9 +91,9 @@ public class CChannel {
         return channelState.stop();
     }
 
-    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection, ScheduledExecutorService scheduler,
-            int timeout) {
-        return channelState.start(connection, scheduler, timeout);
+    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection,
+            @Nullable MqttSubscriptionDispatcher dispatcher, ScheduledExecutorService scheduler, int timeout) {
+        return channelState.start(connection, dispatcher, scheduler, timeout);
     }
 
     public void addChannelTypes(MqttChannelTypeProvider channelTypeProvider) {
@@ -25,6 +25,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.binding.mqtt.generic.ChannelStateUpdateListener;
 import org.openhab.binding.mqtt.generic.values.ColorValue;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 
 /**
  * A MQTT light, following the https://www.home-assistant.io/components/light.mqtt/ specification.
@@ -122,10 +123,10 @@ public class ComponentLight extends AbstractComponent<ComponentLight.ChannelConf
     }
 
     @Override
-    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection, ScheduledExecutorService scheduler,
-            int timeout) {
+    public CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection,
+            @Nullable MqttSubscriptionDispatcher dispatcher, ScheduledExecutorService scheduler, int timeout) {
         return Stream.of(switchChannel, brightnessChannel, colorChannel) //
-                .map(v -> v.start(connection, scheduler, timeout)) //
+                .map(v -> v.start(connection, dispatcher, scheduler, timeout)) //
                 .reduce(CompletableFuture.completedFuture(null), (f, v) -> f.thenCompose(b -> v));
     }
 
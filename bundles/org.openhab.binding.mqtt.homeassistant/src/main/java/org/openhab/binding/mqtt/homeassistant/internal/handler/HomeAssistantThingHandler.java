@@ -182,16 +182,18 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
 
         // Start all known components and channels within the components and put the Thing offline
         // if any subscribing failed ( == broker connection lost)
-        CompletableFuture<@Nullable Void> future = haComponents.values().stream()
-                .map(e -> e.start(connection, scheduler, attributeReceiveTimeout))
-                .reduce(CompletableFuture.completedFuture(null), (a, v) -> a.thenCompose(b -> v)) // reduce to one
+        CompletableFuture<@Nullable Void> future = CompletableFuture
+                .allOf(haComponents.values().stream()
+                        .map(e -> e.start(connection, subscriptionDispatcher, scheduler, attributeReceiveTimeout))
+                        .toArray(CompletableFuture[]::new))
                 .exceptionally(e -> {
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, e.getMessage());
                     return null;
                 });
 
-        return future
-                .thenCompose(b -> discoverComponents.startDiscovery(connection, 0, discoveryHomeAssistantID, this));
+        // The discovery does not depend on the known components, run both at the same time
+        return CompletableFuture.allOf(future,
+                discoverComponents.startDiscovery(connection, 0, discoveryHomeAssistantID, this));
     }
 
     @Override
@@ -264,7 +266,7 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                 // Add component to the component map
                 haComponents.put(discovered.uid().getId(), discovered);
                 // Start component / Subscribe to channel topics
-                discovered.start(connection, scheduler, 0).exceptionally(e -> {
+                discovered.start(connection, subscriptionDispatcher, scheduler, 0).exceptionally(e -> {
                     logger.warn("Failed to start component {}", discovered.uid(), e);
                     return null;
                 });
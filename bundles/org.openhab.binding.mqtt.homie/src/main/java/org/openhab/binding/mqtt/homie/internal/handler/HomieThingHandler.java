@@ -119,7 +119,7 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
         connection.setRetain(true);
         connection.setQos(1);
         return device.subscribe(connection, scheduler, attributeReceiveTimeout).thenCompose((Void v) -> {
-            return device.startChannels(connection, scheduler, attributeReceiveTimeout, this);
+            return device.startChannels(connection, subscriptionDispatcher, scheduler, attributeReceiveTimeout, this);
         }).thenRun(() -> {
             logger.debug("Homie device {} fully attached", device.attributes.name);
         });
@@ -211,9 +211,10 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
         updateProperty(MqttBindingConstants.HOMIE_PROPERTY_VERSION, device.attributes.homie);
         final MqttBrokerConnection connection = this.connection;
         if (connection != null) {
-            device.startChannels(connection, scheduler, attributeReceiveTimeout, this).thenRun(() -> {
-                logger.debug("Homie device {} fully attached", device.attributes.name);
-            });
+            device.startChannels(connection, subscriptionDispatcher, scheduler, attributeReceiveTimeout, this)
+                    .thenRun(() -> {
+                        logger.debug("Homie device {} fully attached", device.attributes.name);
+                    });
         }
     }
     /**
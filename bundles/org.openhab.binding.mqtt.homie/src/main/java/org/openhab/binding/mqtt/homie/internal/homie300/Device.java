@@ -27,6 +27,7 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.binding.mqtt.generic.mapping.AbstractMqttAttributeClass;
 import org.openhab.binding.mqtt.generic.tools.ChildMap;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 import org.openhab.binding.mqtt.homie.internal.handler.HomieThingHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +63,9 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
     private String topic = "";
     public String deviceID = "";
     private boolean initialized = false;
+    // Nodes that got subscribed while the device attributes were still arriving
+    private CompletableFuture<@Nullable Void> earlyNodes = CompletableFuture.completedFuture(null);
+    private int subscribeTimeout;
 
     /**
      * Creates a Homie Device structure. It consists of device attributes, device statistics and nodes.
@@ -97,6 +101,9 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
      * and subscribe to all node attributes. Parse node properties. This will not subscribe
      * to properties though. If subscribing to all necessary topics worked {@link #isInitialized()} will return true.
      *
+     * Nodes are subscribed as soon as the "$nodes" attribute is received, without waiting for the remaining
+     * device attributes.
+     *
      * Call {@link #startChannels(MqttBrokerConnection)} subsequently.
      *
      * @param connection A broker connection
@@ -111,9 +118,15 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
             throw new IllegalStateException("You must call initialize()!");
         }
 
+        synchronized (this) {
+            subscribeTimeout = timeout;
+            earlyNodes = CompletableFuture.completedFuture(null);
+        }
         return attributes.subscribeAndReceive(connection, scheduler, topic, this, timeout)
                 // On success, create all nodes and tell the handler about the ready state
                 .thenCompose(b -> attributesReceived(connection, scheduler, timeout))
+                // Include the nodes that have been subscribed before all attributes were there
+                .thenCompose(b -> getEarlyNodes())
                 // No matter if values have been received or not -> the subscriptions have been performed
                 .whenComplete((r, e) -> {
                     initialized = true;
@@ -131,13 +144,15 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
      * received value. Therefore the thing channels should have been created before.
      *
      * @param connection A broker connection
+     * @param dispatcher The subscription dispatcher of the connection or null
      * @param scheduler A scheduler to realize the timeout
      * @param timeout A timeout in milliseconds. Can be 0 to disable the timeout and let the future return earlier.
      * @param handler The Homie handler, that receives property (channel) updates.
      * @return A future that is complete as soon as all properties have subscribed to their state topics.
      */
     public CompletableFuture<@Nullable Void> startChannels(MqttBrokerConnection connection,
-            ScheduledExecutorService scheduler, int timeout, HomieThingHandler handler) {
+            @Nullable MqttSubscriptionDispatcher dispatcher, ScheduledExecutorService scheduler, int timeout,
+            HomieThingHandler handler) {
         if (!isInitialized() || deviceID.isEmpty()) {
             CompletableFuture<@Nullable Void> c = new CompletableFuture<>();
             c.completeExceptionally(new Exception("Homie Device Tree not inialized yet."));
@@ -145,7 +160,8 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
         }
 
         return CompletableFuture.allOf(nodes.stream().flatMap(node -> node.properties.stream())
-                .map(p -> p.startChannel(connection, scheduler, timeout)).toArray(CompletableFuture[]::new));
+                .map(p -> p.startChannel(connection, dispatcher, scheduler, timeout))
+                .toArray(CompletableFuture[]::new));
     }
 
     /**
@@ -261,8 +277,12 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
         callback.nodeRemoved(node);
     }
 
-    CompletableFuture<@Nullable Void> applyNodes(MqttBrokerConnection connection, ScheduledExecutorService scheduler,
-            int timeout) {
+    private synchronized CompletableFuture<@Nullable Void> getEarlyNodes() {
+        return earlyNodes;
+    }
+
+    synchronized CompletableFuture<@Nullable Void> applyNodes(MqttBrokerConnection connection,
+            ScheduledExecutorService scheduler, int timeout) {
         return nodes.apply(attributes.nodes, node -> node.subscribe(connection, scheduler, timeout), this::createNode,
                 this::notifyNodeRemoved).exceptionally(e -> {
                     logger.warn("Could not subscribe", e);
@@ -273,6 +293,13 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
     @Override
     public void attributeChanged(String name, Object value, MqttBrokerConnection connection,
             ScheduledExecutorService scheduler, boolean allMandatoryFieldsReceived) {
+        if (!initialized && "nodes".equals(name)) {
+            // Pipeline the startup: subscribe to the nodes while the other device attributes are still arriving
+            synchronized (this) {
+                earlyNodes = CompletableFuture.allOf(earlyNodes, applyNodes(connection, scheduler, subscribeTimeout));
+            }
+            return;
+        }
         if (!initialized || !allMandatoryFieldsReceived) {
             return;
         }
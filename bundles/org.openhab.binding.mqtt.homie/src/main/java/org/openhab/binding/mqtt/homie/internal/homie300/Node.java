@@ -57,6 +57,9 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
     public final ChannelGroupTypeUID channelGroupTypeUID;
     private final String topic;
     private boolean initialized = false;
+    // Properties that got subscribed while the node attributes were still arriving
+    private CompletableFuture<@Nullable Void> earlyProperties = CompletableFuture.completedFuture(null);
+    private int subscribeTimeout;
 
     /**
      * Creates a Homie Node.
@@ -80,12 +83,21 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
      * Parse node properties. This will not subscribe to properties though. Call
      * {@link Device#startChannels(MqttBrokerConnection)} as soon as the returned future has
      * completed.
+     *
+     * Properties are subscribed as soon as the "$properties" attribute is received, without waiting for the
+     * remaining node attributes.
      */
     public CompletableFuture<@Nullable Void> subscribe(MqttBrokerConnection connection,
             ScheduledExecutorService scheduler, int timeout) {
+        synchronized (this) {
+            subscribeTimeout = timeout;
+            earlyProperties = CompletableFuture.completedFuture(null);
+        }
         return attributes.subscribeAndReceive(connection, scheduler, topic, this, timeout)
                 // On success, create all properties and tell the handler about this node
                 .thenCompose(b -> attributesReceived(connection, scheduler, timeout))
+                // Include the properties that have been subscribed before all attributes were there
+                .thenCompose(b -> getEarlyProperties())
                 // No matter if values have been received or not -> the subscriptions have been performed
                 .whenComplete((r, e) -> {
                     initialized = true;
@@ -171,7 +183,11 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
         callback.propertyRemoved(property);
     }
 
-    protected CompletableFuture<@Nullable Void> applyProperties(MqttBrokerConnection connection,
+    private synchronized CompletableFuture<@Nullable Void> getEarlyProperties() {
+        return earlyProperties;
+    }
+
+    protected synchronized CompletableFuture<@Nullable Void> applyProperties(MqttBrokerConnection connection,
             ScheduledExecutorService scheduler, int timeout) {
         return properties.apply(attributes.properties, prop -> prop.subscribe(connection, scheduler, timeout),
                 this::createProperty, this::notifyPropertyRemoved).exceptionally(e -> {
@@ -183,7 +199,14 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
     @Override
     public void attributeChanged(String name, Object value, MqttBrokerConnection connection,
             ScheduledExecutorService scheduler, boolean allMandatoryFieldsReceived) {
-
+        if (!initialized && "properties".equals(name)) {
+            // Pipeline the startup: subscribe to the properties while the other node attributes are still arriving
+            synchronized (this) {
+                earlyProperties = CompletableFuture.allOf(earlyProperties,
+                        applyProperties(connection, scheduler, subscribeTimeout));
+            }
+            return;
+        }
         if (!initialized || !allMandatoryFieldsReceived) {
             return;
         }
@@ -41,6 +41,7 @@ import org.openhab.binding.mqtt.generic.values.NumberValue;
 import org.openhab.binding.mqtt.generic.values.OnOffValue;
 import org.openhab.binding.mqtt.generic.values.TextValue;
 import org.openhab.binding.mqtt.generic.values.Value;
+import org.openhab.binding.mqtt.handler.MqttSubscriptionDispatcher;
 import org.openhab.binding.mqtt.homie.generic.internal.MqttBindingConstants;
 import org.openhab.binding.mqtt.homie.internal.homie300.PropertyAttributes.DataTypeEnum;
 import org.slf4j.Logger;
@@ -249,13 +250,14 @@ public class Property implements AttributeChanged {
      * Subscribes to the state topic on the given connection and informs about updates on the given listener.
      *
      * @param connection A broker connection
+     * @param dispatcher The subscription dispatcher of the connection or null
      * @param scheduler A scheduler to realize the timeout
      * @param timeout A timeout in milliseconds. Can be 0 to disable the timeout and let the future return earlier.
      * @param channelStateUpdateListener An update listener
      * @return A future that completes with true if the subscribing worked and false and/or exceptionally otherwise.
      */
     public CompletableFuture<@Nullable Void> startChannel(MqttBrokerConnection connection,
-            ScheduledExecutorService scheduler, int timeout) {
+            @Nullable MqttSubscriptionDispatcher dispatcher, ScheduledExecutorService scheduler, int timeout) {
         final ChannelState channelState = this.channelState;
         if (channelState == null) {
             CompletableFuture<@Nullable Void> f = new CompletableFuture<>();
@@ -264,7 +266,7 @@ public class Property implements AttributeChanged {
         }
         // Make sure we set the callback again which might have been nulled during an stop
         channelState.setChannelStateUpdateListener(this.callback);
-        return channelState.start(connection, scheduler, timeout);
+        return channelState.start(connection, dispatcher, scheduler, timeout);
     }
 
     /**
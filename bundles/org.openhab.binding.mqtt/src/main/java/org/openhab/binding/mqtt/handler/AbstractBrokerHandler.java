@@ -51,6 +51,7 @@ public abstract class AbstractBrokerHandler extends BaseBridgeHandler implements
     @NonNullByDefault({})
     protected MqttBrokerConnection connection;
     protected CompletableFuture<MqttBrokerConnection> connectionFuture = new CompletableFuture<>();
+    protected @Nullable MqttSubscriptionDispatcher subscriptionDispatcher;
 
     public AbstractBrokerHandler(Bridge thing) {
         super(thing);
@@ -76,6 +77,38 @@ public abstract class AbstractBrokerHandler extends BaseBridgeHandler implements
         return connection;
     }
 
+    /**
+     * Returns the {@link MqttSubscriptionDispatcher} of the connection or null if the handler is not initialized.
+     * Things of this broker subscribe through the dispatcher.
+     */
+    public @Nullable MqttSubscriptionDispatcher getSubscriptionDispatcher() {
+        return subscriptionDispatcher;
+    }
+
+    /**
+     * Returns the amount of received messages per second, measured over the last full second.
+     */
+    public double getMessagesPerSecond() {
+        final MqttSubscriptionDispatcher dispatcher = subscriptionDispatcher;
+        return dispatcher != null ? dispatcher.getMessagesPerSecond() : 0;
+    }
+
+    /**
+     * Returns the average time in milliseconds from receiving a message until a subscriber processed it.
+     */
+    public double getAverageDispatchLatencyMillis() {
+        final MqttSubscriptionDispatcher dispatcher = subscriptionDispatcher;
+        return dispatcher != null ? dispatcher.getAverageDispatchLatencyMillis() : 0;
+    }
+
+    /**
+     * Returns the amount of received messages that wait to be processed by their subscribers.
+     */
+    public int getDispatchQueueDepth() {
+        final MqttSubscriptionDispatcher dispatcher = subscriptionDispatcher;
+        return dispatcher != null ? dispatcher.getQueueDepth() : 0;
+    }
+
     /**
      * Does nothing in the base implementation.
      */
@@ -89,6 +122,8 @@ public abstract class AbstractBrokerHandler extends BaseBridgeHandler implements
      */
     @Override
     public void initialize() {
+        subscriptionDispatcher = new MqttSubscriptionDispatcher(connection);
+
         for (Channel channel : thing.getChannels()) {
             final PublishTriggerChannelConfig channelConfig = channel.getConfiguration()
                     .as(PublishTriggerChannelConfig.class);
@@ -138,6 +173,11 @@ public abstract class AbstractBrokerHandler extends BaseBridgeHandler implements
     public void dispose() {
         channelStateByChannelUID.values().forEach(c -> c.stop());
         channelStateByChannelUID.clear();
+        final MqttSubscriptionDispatcher dispatcher = subscriptionDispatcher;
+        if (dispatcher != null) {
+            dispatcher.stop();
+            subscriptionDispatcher = null;
+        }
         connection.removeConnectionObserver(this);
         this.connection = null;
         connectionFuture = new CompletableFuture<>();
@@ -0,0 +1,346 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multiplexes all subscriptions of the things of one broker connection. A dispatcher is owned by the broker handler,
+ * see {@link AbstractBrokerHandler#getSubscriptionDispatcher()}.
+ *
+ * <p>
+ * Each distinct topic filter is registered on the {@link MqttBrokerConnection} only once, no matter how many
+ * subscribers share it, and unsubscribed when its last subscriber is gone. The connection matches an incoming message
+ * against its registered filters and calls the registration of each matching filter. The dispatcher hands the message
+ * to the subscribers of exactly that filter and does not match it a second time. Sharing the registrations keeps the
+ * matching loop of the connection at one entry per distinct filter instead of one entry per subscriber.
+ * </p>
+ *
+ * <p>
+ * The broker only sends retained messages in response to a SUBSCRIBE, and the connection does not tell whether a
+ * message was retained. A subscriber that joins a filter which is already registered therefore causes a fresh
+ * SUBSCRIBE for that filter, with a temporary registration on the connection that is removed again once the broker
+ * acknowledged it. The retained messages the broker resends reach all subscribers of the filter, as they would if
+ * every subscriber subscribed on the connection directly.
+ * </p>
+ *
+ * <p>
+ * Subscribers are called on a bounded pool of single threaded partitions. A subscriber is always assigned to
+ * the same partition, so it receives messages one after another and in the order of arrival, which preserves the
+ * message order of each topic. If a partition queue is full, the receiving MQTT thread blocks until there is space
+ * again. It never blocks while holding a lock of the dispatcher.
+ * </p>
+ *
+ * Use {@link #subscribe(MqttBrokerConnection, MqttSubscriptionDispatcher, String, MqttMessageSubscriber)} to
+ * subscribe via a dispatcher if there is one, and directly on the connection otherwise.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MqttSubscriptionDispatcher {
+    public static final int DEFAULT_PARTITIONS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The registration of one topic filter on the connection
+     */
+    private class FilterSubscription implements MqttMessageSubscriber {
+        final List<MqttMessageSubscriber> subscribers = new CopyOnWriteArrayList<>();
+        CompletableFuture<Boolean> subscribed = CompletableFuture.completedFuture(false);
+
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+            received(topic, payload, subscribers);
+        }
+    }
+
+    /**
+     * A temporary registration on the connection, only used to send a fresh SUBSCRIBE to the broker. Messages reach
+     * the subscribers through the {@link FilterSubscription} of the same filter.
+     */
+    private static class Resubscription implements MqttMessageSubscriber {
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+            // Delivered through the registration of the filter
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(MqttSubscriptionDispatcher.class);
+    private final MqttBrokerConnection connection;
+    private final Map<String, FilterSubscription> filters = new HashMap<>();
+    private final ThreadPoolExecutor[] partitions;
+
+    // Metrics
+    private final AtomicLong receivedMessages = new AtomicLong();
+    private final AtomicLong dispatchedMessages = new AtomicLong();
+    private final AtomicLong totalDispatchNanos = new AtomicLong();
+    private final AtomicLong maxDispatchNanos = new AtomicLong();
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowMessages;
+    private double messagesPerSecond;
+
+    /**
+     * Creates a dispatcher with {@link #DEFAULT_PARTITIONS} partitions of {@link #DEFAULT_QUEUE_CAPACITY} queued
+     * messages each.
+     *
+     * @param connection The broker connection
+     */
+    public MqttSubscriptionDispatcher(MqttBrokerConnection connection) {
+        this(connection, DEFAULT_PARTITIONS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param connection The broker connection
+     * @param partitionCount The amount of threads that call subscribers
+     * @param queueCapacity The amount of messages each partition can queue before the receiving thread is blocked
+     */
+    public MqttSubscriptionDispatcher(MqttBrokerConnection connection, int partitionCount, int queueCapacity) {
+        this.connection = connection;
+        this.partitions = new ThreadPoolExecutor[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; ++i) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new NamedThreadFactory("mqttDispatch"),
+                    MqttSubscriptionDispatcher::waitForQueueSpace);
+            executor.allowCoreThreadTimeOut(true);
+            partitions[i] = executor;
+        }
+    }
+
+    /**
+     * Subscribes via the given dispatcher. If there is no dispatcher, the subscriber is subscribed on the connection
+     * directly.
+     *
+     * @param connection A broker connection
+     * @param dispatcher The dispatcher of the connection or null
+     * @param topic A topic filter, may contain wildcards
+     * @param subscriber The subscriber
+     * @return Completes with true if the subscription on the broker succeeded.
+     */
+    public static CompletableFuture<Boolean> subscribe(MqttBrokerConnection connection,
+            @Nullable MqttSubscriptionDispatcher dispatcher, String topic, MqttMessageSubscriber subscriber) {
+        return dispatcher != null ? dispatcher.subscribe(topic, subscriber) : connection.subscribe(topic, subscriber);
+    }
+
+    /**
+     * Counterpart of {@link #subscribe(MqttBrokerConnection, MqttSubscriptionDispatcher, String,
+     * MqttMessageSubscriber)}.
+     *
+     * @param connection A broker connection
+     * @param dispatcher The dispatcher of the connection or null
+     * @param topic A topic filter, may contain wildcards
+     * @param subscriber The subscriber
+     * @return Completes with true if unsubscribing succeeded.
+     */
+    public static CompletableFuture<Boolean> unsubscribe(MqttBrokerConnection connection,
+            @Nullable MqttSubscriptionDispatcher dispatcher, String topic, MqttMessageSubscriber subscriber) {
+        return dispatcher != null ? dispatcher.unsubscribe(topic, subscriber)
+                : connection.unsubscribe(topic, subscriber);
+    }
+
+    /**
+     * Removes all subscriptions of this dispatcher from the connection and stops the partition threads.
+     * Already queued messages are still delivered.
+     */
+    public void stop() {
+        List<Map.Entry<String, FilterSubscription>> registrations;
+        synchronized (filters) {
+            registrations = new ArrayList<>(filters.entrySet());
+            filters.clear();
+        }
+        registrations.forEach(e -> connection.unsubscribe(e.getKey(), e.getValue()));
+        for (ThreadPoolExecutor executor : partitions) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Subscribes to the given topic filter. The filter is registered on the connection for the first subscriber
+     * only. Later subscribers cause a fresh SUBSCRIBE, so that the broker resends the retained messages of the filter.
+     *
+     * @param topic A topic filter, may contain wildcards
+     * @param subscriber The subscriber
+     * @return Completes with true if the subscription on the broker succeeded.
+     */
+    public CompletableFuture<Boolean> subscribe(String topic, MqttMessageSubscriber subscriber) {
+        synchronized (filters) {
+            FilterSubscription registration = filters.get(topic);
+            if (registration == null) {
+                registration = new FilterSubscription();
+                registration.subscribers.add(subscriber);
+                filters.put(topic, registration);
+                registration.subscribed = connection.subscribe(topic, registration);
+                return registration.subscribed;
+            }
+            registration.subscribers.add(subscriber);
+        }
+        final Resubscription resubscription = new Resubscription();
+        final CompletableFuture<Boolean> subscribed = connection.subscribe(topic, resubscription);
+        subscribed.whenComplete((result, e) -> connection.unsubscribe(topic, resubscription));
+        return subscribed;
+    }
+
+    /**
+     * Unsubscribes from the given topic filter. The filter is unsubscribed on the connection when its last
+     * subscriber is gone.
+     *
+     * @param topic A topic filter, may contain wildcards
+     * @param subscriber The subscriber
+     * @return Completes with true if unsubscribing succeeded.
+     */
+    public CompletableFuture<Boolean> unsubscribe(String topic, MqttMessageSubscriber subscriber) {
+        synchronized (filters) {
+            final FilterSubscription registration = filters.get(topic);
+            if (registration == null || !registration.subscribers.remove(subscriber)) {
+                // Subscribed on the connection directly
+                return connection.unsubscribe(topic, subscriber);
+            }
+            if (!registration.subscribers.isEmpty()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            filters.remove(topic);
+            return connection.unsubscribe(topic, registration);
+        }
+    }
+
+    private void received(String topic, byte[] payload, List<MqttMessageSubscriber> subscribers) {
+        final long receivedTime = System.nanoTime();
+        synchronized (this) {
+            if (receivedTime - rateWindowStart >= RATE_WINDOW_NANOS) {
+                messagesPerSecond = rateWindowMessages * (double) RATE_WINDOW_NANOS / (receivedTime - rateWindowStart);
+                rateWindowStart = receivedTime;
+                rateWindowMessages = 0;
+            }
+            rateWindowMessages++;
+        }
+        receivedMessages.incrementAndGet();
+
+        for (MqttMessageSubscriber subscriber : subscribers) {
+            dispatch(subscriber, topic, payload, receivedTime);
+        }
+    }
+
+    private void dispatch(MqttMessageSubscriber subscriber, String topic, byte[] payload, long receivedTime) {
+        ThreadPoolExecutor partition = partitions[(System.identityHashCode(subscriber) & Integer.MAX_VALUE)
+                % partitions.length];
+        try {
+            partition.execute(() -> deliver(subscriber, topic, payload, receivedTime));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dispatcher stopped, dropped message on topic {}", topic);
+        }
+    }
+
+    private void deliver(MqttMessageSubscriber subscriber, String topic, byte[] payload, long receivedTime) {
+        try {
+            subscriber.processMessage(topic, payload);
+        } catch (RuntimeException e) {
+            logger.warn("Subscriber failed to process message on topic {}", topic, e);
+        } finally {
+            final long nanos = System.nanoTime() - receivedTime;
+            dispatchedMessages.incrementAndGet();
+            totalDispatchNanos.addAndGet(nanos);
+            maxDispatchNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private static void waitForQueueSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Dispatcher stopped");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+    /**
+     * Returns the amount of received messages, counted once per matching topic filter.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages.get();
+    }
+
+    /**
+     * Returns the amount of received messages per second, measured over the last full second.
+     */
+    public synchronized double getMessagesPerSecond() {
+        return System.nanoTime() - rateWindowStart >= 2 * RATE_WINDOW_NANOS ? 0 : messagesPerSecond;
+    }
+
+    /**
+     * Returns the average time from receiving a message until a subscriber processed it, in milliseconds.
+     */
+    public double getAverageDispatchLatencyMillis() {
+        final long count = dispatchedMessages.get();
+        return count == 0 ? 0 : totalDispatchNanos.get() / (count * 1000000.0);
+    }
+
+    /**
+     * Returns the maximum time from receiving a message until a subscriber processed it, in milliseconds.
+     */
+    public double getMaxDispatchLatencyMillis() {
+        return maxDispatchNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the amount of messages waiting in all partition queues.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor executor : partitions) {
+            depth += executor.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the amount of active subscriptions.
+     */
+    public int getSubscriptionCount() {
+        synchronized (filters) {
+            return filters.values().stream().mapToInt(registration -> registration.subscribers.size()).sum();
+        }
+    }
+
+    /**
+     * Returns the amount of distinct topic filters subscribed on the connection.
+     */
+    public int getFilterCount() {
+        synchronized (filters) {
+            return filters.size();
+        }
+    }
+}
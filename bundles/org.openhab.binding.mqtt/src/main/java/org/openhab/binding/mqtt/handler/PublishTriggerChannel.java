@@ -41,7 +41,8 @@ public class PublishTriggerChannel implements MqttMessageSubscriber {
     }
 
     CompletableFuture<Boolean> start() {
-        return stop().thenCompose(b -> connection.subscribe(config.stateTopic, this));
+        return stop().thenCompose(b -> MqttSubscriptionDispatcher.subscribe(connection,
+                handler.getSubscriptionDispatcher(), config.stateTopic, this));
     }
 
     @Override
@@ -60,6 +61,7 @@ public class PublishTriggerChannel implements MqttMessageSubscriber {
     }
 
     public CompletableFuture<Boolean> stop() {
-        return connection.unsubscribe(config.stateTopic, this);
+        return MqttSubscriptionDispatcher.unsubscribe(connection, handler.getSubscriptionDispatcher(),
+                config.stateTopic, this);
     }
 }
@@ -107,6 +107,11 @@ public class SystemBrokerHandler extends AbstractBrokerHandler implements MqttSe
         final MqttBrokerConnection connection = this.connection;
         if (removedConnection == connection) {
             connection.removeConnectionObserver(this);
+            final MqttSubscriptionDispatcher dispatcher = subscriptionDispatcher;
+            if (dispatcher != null) {
+                dispatcher.stop();
+                subscriptionDispatcher = null;
+            }
             this.connection = null;
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "@text/offline.sharedremoved");
             return;
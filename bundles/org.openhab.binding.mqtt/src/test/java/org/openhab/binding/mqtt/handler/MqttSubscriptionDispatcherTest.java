@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.handler;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.smarthome.io.transport.mqtt.MqttBrokerConnection;
+import org.eclipse.smarthome.io.transport.mqtt.MqttMessageSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests cases for {@link MqttSubscriptionDispatcher}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MqttSubscriptionDispatcherTest {
+    @Mock
+    private MqttBrokerConnection connection;
+
+    @Mock
+    private MqttMessageSubscriber first;
+
+    @Mock
+    private MqttMessageSubscriber second;
+
+    private MqttSubscriptionDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        doReturn(CompletableFuture.completedFuture(true)).when(connection).subscribe(any(), any());
+        doReturn(CompletableFuture.completedFuture(true)).when(connection).unsubscribe(any(), any());
+        dispatcher = new MqttSubscriptionDispatcher(connection, 2, 10);
+    }
+
+    @After
+    public void tearDown() {
+        dispatcher.stop();
+    }
+
+    /**
+     * Returns the subscriber the dispatcher registered on the connection for the given filter.
+     */
+    private MqttMessageSubscriber registrationOf(String filter) {
+        ArgumentCaptor<MqttMessageSubscriber> captor = ArgumentCaptor.forClass(MqttMessageSubscriber.class);
+        verify(connection, atLeastOnce()).subscribe(eq(filter), captor.capture());
+        return captor.getAllValues().get(0);
+    }
+
+    @Test
+    public void filtersAreRegisteredOncePerConnection() {
+        dispatcher.subscribe("a/b", first);
+        dispatcher.subscribe("a/b", second);
+        dispatcher.subscribe("a/+", second);
+
+        verify(connection, times(1)).subscribe(eq("a/+"), any());
+        verify(connection, never()).subscribe(any(), eq(first));
+        verify(connection, never()).subscribe(any(), eq(second));
+        assertThat(dispatcher.getFilterCount(), is(2));
+        assertThat(dispatcher.getSubscriptionCount(), is(3));
+
+        // The filter stays subscribed on the connection as long as there is a subscriber
+        MqttMessageSubscriber registration = registrationOf("a/b");
+        dispatcher.unsubscribe("a/b", first);
+        verify(connection, never()).unsubscribe(eq("a/b"), eq(registration));
+        dispatcher.unsubscribe("a/b", second);
+        verify(connection).unsubscribe(eq("a/b"), eq(registration));
+        assertThat(dispatcher.getFilterCount(), is(1));
+        assertThat(dispatcher.getSubscriptionCount(), is(1));
+    }
+
+    @Test
+    public void messagesAreDeliveredPerMatchingFilter() {
+        dispatcher.subscribe("a/b", first);
+        dispatcher.subscribe("a/+", first);
+        dispatcher.subscribe("a/#", second);
+
+        // The connection calls the registration of each matching filter
+        byte[] payload = "value".getBytes();
+        registrationOf("a/b").processMessage("a/b", payload);
+        registrationOf("a/+").processMessage("a/b", payload);
+        registrationOf("a/#").processMessage("a/b", payload);
+
+        // "first" is subscribed to two matching filters, like it would be on the connection
+        verify(first, timeout(500).times(2)).processMessage(eq("a/b"), eq(payload));
+        verify(second, timeout(500).times(1)).processMessage(eq("a/b"), eq(payload));
+        assertThat(dispatcher.getReceivedMessages(), is(3L));
+
+        // The same payload array received again is a new message
+        registrationOf("a/#").processMessage("a/b", payload);
+        verify(second, timeout(500).times(2)).processMessage(eq("a/b"), eq(payload));
+    }
+
+    @Test
+    public void lateSubscribersCauseAFreshSubscribe() {
+        dispatcher.subscribe("a/+", first);
+        MqttMessageSubscriber registration = registrationOf("a/+");
+        registration.processMessage("a/b", "old".getBytes());
+        verify(first, timeout(500)).processMessage(eq("a/b"), any());
+
+        // The broker resends retained messages only for a new SUBSCRIBE
+        CompletableFuture<Boolean> suback = new CompletableFuture<>();
+        doReturn(suback).when(connection).subscribe(eq("a/+"), argThat(s -> s != registration));
+        CompletableFuture<Boolean> subscribed = dispatcher.subscribe("a/+", second);
+        ArgumentCaptor<MqttMessageSubscriber> captor = ArgumentCaptor.forClass(MqttMessageSubscriber.class);
+        verify(connection, times(2)).subscribe(eq("a/+"), captor.capture());
+        MqttMessageSubscriber resubscription = captor.getAllValues().get(1);
+        assertThat(resubscription, is(not(registration)));
+
+        // Old messages are not replayed, a resent retained message reaches the subscribers via the registration
+        verify(second, after(200).never()).processMessage(any(), any());
+        registration.processMessage("a/b", "retained".getBytes());
+        resubscription.processMessage("a/b", "retained".getBytes());
+        verify(second, timeout(500).times(1)).processMessage(eq("a/b"), any());
+        verify(first, timeout(500).times(2)).processMessage(eq("a/b"), any());
+
+        // The temporary registration is removed once the broker acknowledged the SUBSCRIBE
+        verify(connection, never()).unsubscribe(any(), any());
+        suback.complete(true);
+        assertThat(subscribed.isDone(), is(true));
+        verify(connection).unsubscribe(eq("a/+"), eq(resubscription));
+        assertThat(dispatcher.getFilterCount(), is(1));
+        assertThat(dispatcher.getSubscriptionCount(), is(2));
+    }
+
+    @Test
+    public void withoutDispatcherSubscriptionsGoToTheConnection() {
+        MqttSubscriptionDispatcher.subscribe(connection, null, "c", first);
+        verify(connection).subscribe(eq("c"), eq(first));
+        MqttSubscriptionDispatcher.unsubscribe(connection, null, "c", first);
+        verify(connection).unsubscribe(eq("c"), eq(first));
+
+        MqttSubscriptionDispatcher.subscribe(connection, dispatcher, "d", first);
+        verify(connection, never()).subscribe(eq("d"), eq(first));
+        assertThat(dispatcher.getSubscriptionCount(), is(1));
+    }
+
+    @Test
+    public void stopRemovesSubscriptions() {
+        dispatcher.subscribe("a/b", first);
+        dispatcher.subscribe("a/b", second);
+        MqttMessageSubscriber registration = registrationOf("a/b");
+        dispatcher.stop();
+
+        verify(connection, times(1)).unsubscribe(eq("a/b"), eq(registration));
+        assertThat(dispatcher.getFilterCount(), is(0));
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.smarthome.io.console.Console;
+import org.eclipse.smarthome.io.console.extensions.AbstractConsoleCommandExtension;
+import org.eclipse.smarthome.io.console.extensions.ConsoleCommandExtension;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * Console command printing the metrics of the presence detection
+ *
+ * @author agent - Initial contribution
+ */
+@Component(service = ConsoleCommandExtension.class)
+@NonNullByDefault
+public class NetworkConsoleCommandExtension extends AbstractConsoleCommandExtension {
+
+    private static final String SUBCMD_METRICS = "metrics";
+
+    private @NonNullByDefault({}) PresenceDetectionExecutor executor;
+
+    public NetworkConsoleCommandExtension() {
+        super("network", "Inspect the network binding.");
+    }
+
+    @Reference
+    protected void setPresenceDetectionExecutor(PresenceDetectionExecutor executor) {
+        this.executor = executor;
+    }
+
+    protected void unsetPresenceDetectionExecutor(PresenceDetectionExecutor executor) {
+        this.executor = null;
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        if (args.length == 1 && SUBCMD_METRICS.equals(args[0])) {
+            printMetrics(console);
+        } else {
+            printUsage(console);
+        }
+    }
+
+    private void printMetrics(Console console) {
+        console.println(String.format("threads: %d, running probes: %d, queued probes: %d", executor.getThreadCount(),
+                executor.getRunningProbes(), executor.getQueuedProbes()));
+        console.println(String.format("probes: %d, coalesced: %d, rejected: %d", executor.getProbeCount(),
+                executor.getCoalescedProbeCount(), executor.getRejectedProbeCount()));
+        console.println(String.format("probe duration: avg %.1f ms, max %.1f ms",
+                executor.getAverageProbeLatencyMillis(), executor.getMaxProbeLatencyMillis()));
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return Arrays.asList(buildCommandUsage(SUBCMD_METRICS,
+                "print thread count, probe counters and latencies of the presence detection"));
+    }
+}
@@ -28,6 +28,7 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
 
 /**
  * The handler factory retrieves the binding configuration and is responsible for creating
@@ -39,6 +40,7 @@ import org.osgi.service.component.annotations.Modified;
 @Component(service = ThingHandlerFactory.class, configurationPid = "binding.network")
 public class NetworkHandlerFactory extends BaseThingHandlerFactory {
     final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
+    private @NonNullByDefault({}) PresenceDetectionExecutor executor;
 
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
@@ -58,6 +60,15 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
         super.deactivate(componentContext);
     }
 
+    @Reference
+    protected void setPresenceDetectionExecutor(PresenceDetectionExecutor executor) {
+        this.executor = executor;
+    }
+
+    protected void unsetPresenceDetectionExecutor(PresenceDetectionExecutor executor) {
+        this.executor = null;
+    }
+
     @Modified
     protected void modified(Map<String, Object> config) {
         // We update instead of replace the configuration object, so that if the user updates the
@@ -72,9 +83,9 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
 
         if (thingTypeUID.equals(NetworkBindingConstants.PING_DEVICE)
                 || thingTypeUID.equals(NetworkBindingConstants.BACKWARDS_COMPATIBLE_DEVICE)) {
-            return new NetworkHandler(thing, false, configuration);
+            return new NetworkHandler(thing, false, configuration, executor);
         } else if (thingTypeUID.equals(NetworkBindingConstants.SERVICE_DEVICE)) {
-            return new NetworkHandler(thing, true, configuration);
+            return new NetworkHandler(thing, true, configuration, executor);
         }
         return null;
     }
@@ -12,15 +12,19 @@
  */
 package org.openhab.binding.network.internal;
 
-import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -75,14 +79,18 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
     private @Nullable ScheduledFuture<?> refreshJob;
-    protected @Nullable ExecutorService executorService;
+    PresenceDetectionExecutor executor;
+    @Nullable
+    CompletableFuture<@Nullable Void> detection;
     private String dhcpState = "off";
-    Integer currentCheck = 0;
     int detectionChecks;
+    private long detectionStartInMS;
+    private volatile boolean detectionIncomplete;
 
-    public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS)
-            throws IllegalArgumentException {
+    public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS,
+            PresenceDetectionExecutor executor) throws IllegalArgumentException {
         this.updateListener = updateListener;
+        this.executor = executor;
         cache = new ExpiringCacheAsync<PresenceDetectionValue>(cacheDeviceStateTimeInMS, () -> {
             performPresenceDetection(false);
         });
@@ -271,14 +279,11 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
-    }
-
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. TCP connection attempts are non-blocking, pings
+     * are performed on the bounded thread pool of the {@link PresenceDetectionExecutor}, which is
+     * shared with all other presence detections of the binding.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -292,151 +297,170 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
-            logger.debug(
-                    "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
-                    hostname, tcpPorts);
-            return false;
-        }
+        final CompletableFuture<@Nullable Void> detection;
+        synchronized (this) {
+            if (this.detection != null) {
+                logger.debug(
+                        "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
+                        hostname, tcpPorts);
+                return false;
+            }
 
-        if (!cache.isExpired()) {
-            return false;
-        }
+            if (!cache.isExpired()) {
+                return false;
+            }
 
-        Set<String> interfaceNames = null;
+            Set<String> interfaceNames = null;
 
-        currentCheck = 0;
-        detectionChecks = tcpPorts.size();
-        if (pingMethod != null) {
-            detectionChecks += 1;
-        }
-        if (arpPingMethod != ArpPingUtilEnum.UNKNOWN_TOOL) {
-            interfaceNames = networkUtils.getInterfaceNames();
-            detectionChecks += interfaceNames.size();
+            detectionChecks = tcpPorts.size();
+            if (pingMethod != null) {
+                detectionChecks += 1;
+            }
+            if (arpPingMethod != ArpPingUtilEnum.UNKNOWN_TOOL) {
+                interfaceNames = networkUtils.getInterfaceNames();
+                detectionChecks += interfaceNames.size();
+            }
+
+            if (detectionChecks == 0) {
+                return false;
+            }
+
+            detection = new CompletableFuture<>();
+            this.detection = detection;
+            detectionStartInMS = System.currentTimeMillis();
+            detectionIncomplete = false;
+
+            // The host name resolution may block, all checks need the resolved address. Every check times out
+            // on its own, counted from the moment it starts running.
+            final Set<String> arpInterfaceNames = interfaceNames;
+            executor.supplyAsync(() -> destination.getValue())
+                    .thenCompose(destinationAddress -> CompletableFuture.allOf(startChecks(arpInterfaceNames)))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            checkFailed("the host name resolution", e);
+                        }
+                        submitFinalResult(detection);
+                    });
         }
 
-        if (detectionChecks == 0) {
-            return false;
+        if (waitForDetectionToFinish) {
+            waitForPresenceDetection();
         }
 
-        final ExecutorService executorService = getThreadsFor(detectionChecks);
-        this.executorService = executorService;
+        return true;
+    }
+
+    private CompletableFuture<?>[] startChecks(@Nullable Set<String> interfaceNames) {
+        List<CompletableFuture<@Nullable Void>> checks = new ArrayList<>();
 
         for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
+            checks.add(performServicePing(tcpPort));
         }
 
-        // ARP ping for IPv4 addresses. Use single executor for Windows tool and 
-        // each own executor for each network interface for other tools
+        // ARP ping for IPv4 addresses. Use a single check for the Windows tool and
+        // one check for each network interface for other tools
         if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
-            executorService.execute(() -> {
-               Thread.currentThread().setName("presenceDetectionARP_" + hostname + " ");
-               // arp-ping.exe tool capable of handling multiple interfaces by itself
-               performARPping("");
-               checkIfFinished();
-            });
-        } else if (interfaceNames != null) {                        
+            // arp-ping.exe tool capable of handling multiple interfaces by itself
+            checks.add(performARPping(""));
+        } else if (interfaceNames != null) {
             for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                   Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                   performARPping(interfaceName);
-                   checkIfFinished();
-               });               
+                checks.add(performARPping(interfaceName));
             }
         }
 
         // ICMP ping
         if (pingMethod != null) {
-            executorService.execute(() -> {
-                if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
-                    performSystemPing();
-                } else {
-                    performJavaPing();
-                }
-                checkIfFinished();
-            });
-        }
-
-        if (waitForDetectionToFinish) {
-            waitForPresenceDetection();
+            if (pingMethod != IpPingMethodEnum.JAVA_PING) {
+                checks.add(performSystemPing());
+            } else {
+                checks.add(performJavaPing());
+            }
         }
 
-        return true;
+        return checks.toArray(new CompletableFuture<?>[checks.size()]);
     }
 
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the given presence detection process is finished. Checks that are still
+     * running will only provide partial results.
+     *
+     * @param detection The detection process to finish
      */
-    private synchronized void submitFinalResult() {
-        // Do nothing if we are not in a detection process
-        ExecutorService service = executorService;
-        if (service == null) {
-            return;
-        }
-        // Finish the detection process
-        service.shutdownNow();
-        executorService = null;
-        detectionChecks = 0;
-
-        PresenceDetectionValue v;
-
-        // The cache will be expired by now if cache_time < timeoutInMS. But the device might be actually reachable.
-        // Therefore use lastSeenInMS here and not cache.isExpired() to determine if we got a ping response.
-        if (lastSeenInMS + timeoutInMS + 100 < System.currentTimeMillis()) {
-            // We haven't seen the device in the detection process
-            v = new PresenceDetectionValue(hostname, -1);
-        } else {
-            // Make the cache valid again and submit the value.
-            v = cache.getExpiredValue();
-        }
-        cache.setValue(v);
-
-        if (!v.isReachable()) {
-            // if target can't be reached, check if name resolution need to be updated
-            destination.invalidateValue();
-        }
-        updateListener.finalDetectionResult(v);
-    }
+    private void submitFinalResult(CompletableFuture<@Nullable Void> detection) {
+        synchronized (this) {
+            // Do nothing if we are not in this detection process anymore
+            if (this.detection != detection) {
+                return;
+            }
+            // Finish the detection process
+            this.detection = null;
+            detectionChecks = 0;
+
+            PresenceDetectionValue v;
+            @Nullable
+            PresenceDetectionValue previous = cache.getExpiredValue();
+
+            // The cache will be expired by now if cache_time < timeoutInMS. But the device might be actually
+            // reachable. Therefore use lastSeenInMS here and not cache.isExpired() to determine if we got a ping
+            // response.
+            if (lastSeenInMS >= detectionStartInMS || lastSeenInMS + timeoutInMS + 100 >= System.currentTimeMillis()) {
+                // Make the cache valid again and submit the value.
+                v = cache.getExpiredValue();
+            } else if (detectionIncomplete && previous != null) {
+                // Not all checks could run, because the binding is overloaded. Keep the last known state
+                // instead of reporting an unreachable device.
+                logger.debug("Not all presence checks for {} could be started, keeping the last state", hostname);
+                v = previous;
+            } else {
+                // We haven't seen the device in the detection process
+                v = new PresenceDetectionValue(hostname, -1);
+            }
+            cache.setValue(v);
 
-    /**
-     * This method is called after each individual check and increases a check counter.
-     * If the counter equals the total checks,the final result is submitted. This will
-     * happen way before the "timeoutInMS", if all checks were successful.
-     * Thread safe.
-     */
-    private synchronized void checkIfFinished() {
-        currentCheck += 1;
-        if (currentCheck < detectionChecks) {
-            return;
+            if (!v.isReachable()) {
+                // if target can't be reached, check if name resolution need to be updated
+                destination.invalidateValue();
+            }
+            updateListener.finalDetectionResult(v);
         }
-        submitFinalResult();
+        detection.complete(null);
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
+     * Waits for the presence detection to finish. Returns immediately
      * if no presence detection is performed right now.
      */
     public void waitForPresenceDetection() {
-        ExecutorService service = executorService;
-        if (service == null) {
+        CompletableFuture<@Nullable Void> detection = this.detection;
+        if (detection == null) {
             return;
         }
         try {
-            // We may get interrupted here by cancelRefreshJob().
-            service.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
-            submitFinalResult();
+            // Every check times out on its own, the detection always finishes
+            detection.get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            service.shutdownNow();
-            executorService = null;
+        } catch (ExecutionException e) {
+            submitFinalResult(detection);
+        }
+    }
+
+    /**
+     * Logs a failed check. A check that got rejected, because too many checks of the binding are queued,
+     * marks the current detection as incomplete.
+     *
+     * @param check The check, for the log message
+     * @param e The exception of the check
+     */
+    private void checkFailed(String check, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            detectionIncomplete = true;
+            logger.debug("Could not start {} for {}, too many presence checks are queued", check, hostname);
+        } else {
+            logger.trace("Failed to execute {} for ip {}", check, hostname, cause);
         }
     }
 
@@ -465,22 +489,31 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return v;
     }
 
-    protected void performServicePing(int tcpPort) {
+    /**
+     * Performs a non-blocking TCP connection attempt to the given port.
+     *
+     * @param tcpPort The TCP port
+     * @return A future that completes when the check is done
+     */
+    protected CompletableFuture<@Nullable Void> performServicePing(int tcpPort) {
         logger.trace("Perform TCP presence detection for {} on port: {}", hostname, tcpPort);
-        try {
-            double pingTime = System.nanoTime();
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress != null
-                    && networkUtils.servicePing(destinationAddress.getHostAddress(), tcpPort, timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
-                PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
-                v.addReachableTcpService(tcpPort);
-                updateListener.partialDetectionResult(v);
-            }
-        } catch (IOException e) {
-            // This should not happen and might be a user configuration issue, we log a warning message therefore.
-            logger.warn("Could not create a socket connection", e);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
         }
+        return executor.connect(new InetSocketAddress(destinationAddress, tcpPort), timeoutInMS)
+                .handle((latency, e) -> {
+                    if (e != null) {
+                        // This should not happen and might be a user configuration issue, we log a warning message
+                        // therefore.
+                        logger.warn("Could not create a socket connection", e);
+                    } else if (latency != NOT_REACHABLE) {
+                        PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
+                        v.addReachableTcpService(tcpPort);
+                        updateListener.partialDetectionResult(v);
+                    }
+                    return null;
+                });
     }
 
     /**
@@ -490,14 +523,16 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      *
      * @param interfaceName The interface name. You can request a list of interface names
      *            from {@see NetworkUtils.getInterfaceNames()} for example.
+     * @return A future that completes when the check is done
      */
-    protected void performARPping(String interfaceName) {
-        try {
-            logger.trace("Perform ARP ping presence detection for {} on interface: {}", hostname, interfaceName);
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress == null) {
-                return;
-            }
+    protected CompletableFuture<@Nullable Void> performARPping(String interfaceName) {
+        logger.trace("Perform ARP ping presence detection for {} on interface: {}", hostname, interfaceName);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final String key = "arp " + destinationAddress.getHostAddress() + " " + interfaceName + " " + timeoutInMS;
+        return executor.probe(key, timeoutInMS, () -> {
             if (iosDevice) {
                 networkUtils.wakeUpIOS(destinationAddress);
                 Thread.sleep(50);
@@ -505,15 +540,18 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             double pingTime = System.nanoTime();
             if (networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName,
                     destinationAddress.getHostAddress(), timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                return (double) Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+            }
+            return NOT_REACHABLE;
+        }).handle((latency, e) -> {
+            if (e != null) {
+                checkFailed("an arp ping", e);
+            } else if (latency != NOT_REACHABLE) {
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ARP_PING, latency);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            logger.trace("Failed to execute an arp ping for ip {}", hostname, e);
-        } catch (InterruptedException ignored) {
-            // This can be ignored, the thread will end anyway
-        }
+            return null;
+        });
     }
 
     /**
@@ -521,43 +559,59 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * and will not work on windows systems reliably and will fall back from ICMP pings to
      * the TCP echo service on port 7 which barely no device or server supports nowadays.
      * (http://docs.oracle.com/javase/7/docs/api/java/net/InetAddress.html#isReachable%28int%29)
+     *
+     * @return A future that completes when the check is done
      */
-    protected void performJavaPing() {
-        try {
-            logger.trace("Perform java ping presence detection for {}", hostname);
+    protected CompletableFuture<@Nullable Void> performJavaPing() {
+        logger.trace("Perform java ping presence detection for {}", hostname);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executor.probe("java " + destinationAddress.getHostAddress() + " " + timeoutInMS, timeoutInMS, () -> {
             double pingTime = System.nanoTime();
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress == null) {
-                return;
-            }
             if (destinationAddress.isReachable(timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                return (double) Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+            }
+            return NOT_REACHABLE;
+        }).handle((latency, e) -> {
+            if (e != null) {
+                checkFailed("a java ping", e);
+            } else if (latency != NOT_REACHABLE) {
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            logger.trace("Failed to execute a java ping for ip {}", hostname, e);
-        }
+            return null;
+        });
     }
 
-    protected void performSystemPing() {
-        try {
-            logger.trace("Perform native ping presence detection for {}", hostname);
+    /**
+     * Performs a ping with the system ping utility.
+     *
+     * @return A future that completes when the check is done
+     */
+    protected CompletableFuture<@Nullable Void> performSystemPing() {
+        logger.trace("Perform native ping presence detection for {}", hostname);
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final IpPingMethodEnum pingMethod = this.pingMethod;
+        return executor.probe("ping " + destinationAddress.getHostAddress() + " " + timeoutInMS, timeoutInMS, () -> {
             double pingTime = System.nanoTime();
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress == null) {
-                return;
-            }
             if (networkUtils.nativePing(pingMethod, destinationAddress.getHostAddress(), timeoutInMS)) {
-                final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+                return (double) Math.round((System.nanoTime() - pingTime) / 1000000.0f);
+            }
+            return NOT_REACHABLE;
+        }).handle((latency, e) -> {
+            if (e != null) {
+                checkFailed("a native ping", e);
+            } else if (latency != NOT_REACHABLE) {
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
                 updateListener.partialDetectionResult(v);
             }
-        } catch (IOException e) {
-            logger.trace("Failed to execute a native ping for ip {}", hostname, e);
-        } catch (InterruptedException e) {
-            // This can be ignored, the thread will end anyway
-        }
+            return null;
+        });
     }
 
     @Override
@@ -576,7 +630,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (future != null && !future.isDone()) {
             future.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(false), 0,
                 refreshIntervalInMS, TimeUnit.MILLISECONDS);
     }
 
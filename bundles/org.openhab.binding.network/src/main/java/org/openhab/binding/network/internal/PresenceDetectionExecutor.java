@@ -0,0 +1,529 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PresenceDetectionExecutor} runs the probes of all {@link PresenceDetection} objects of the binding.
+ *
+ * <ul>
+ * <li>TCP service pings are non-blocking connects, all handled by a single selector thread.</li>
+ * <li>System pings, arpings and Java pings block on a process or socket and run on a bounded pool. The amount of
+ * probes waiting for a free thread is bounded as well, further probes are rejected.</li>
+ * <li>Timeouts are realized with the shared "network" scheduler. A probe timeout starts when the probe starts
+ * running, not when it got queued.</li>
+ * <li>Identical probes (same kind, destination and timeout) that overlap in time are coalesced and share one
+ * result.</li>
+ * </ul>
+ *
+ * A probe result is the latency in milliseconds or {@link PresenceDetection#NOT_REACHABLE}.
+ *
+ * The executor is a component shared by the handlers, the discovery and the console command of the binding. Its
+ * threads are stopped and pending TCP connects are closed, when the component gets deactivated.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = PresenceDetectionExecutor.class)
+public class PresenceDetectionExecutor {
+    public static final int DEFAULT_MAX_PROCESS_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    static final int MAX_QUEUED_PROBES_PER_THREAD = 16;
+    /** A blocking probe is given up this long after its own timeout, e.g. if a ping process hangs */
+    static final int PROBE_TIMEOUT_GRACE_MS = 1000;
+    private static final long SELECTOR_IDLE_SHUTDOWN_MS = 60000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceDetectionExecutor.class);
+    private final ThreadPoolExecutor processPool;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("network");
+    private final Map<String, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+
+    // Non-blocking TCP connects
+    private final Queue<PendingConnect> pendingConnects = new ConcurrentLinkedQueue<>();
+    private @Nullable Selector selector;
+    private @Nullable Thread selectorThread;
+    private boolean shutdown;
+
+    // Metrics
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong coalescedProbes = new AtomicLong();
+    private final AtomicLong rejectedProbes = new AtomicLong();
+    private final AtomicLong totalProbeNanos = new AtomicLong();
+    private final AtomicLong maxProbeNanos = new AtomicLong();
+
+    /**
+     * The outcome of a TCP connection attempt.
+     */
+    public enum ConnectResult {
+        /** The connection got established */
+        CONNECTED,
+        /** The host refused the connection. It is present, but the port is closed */
+        REFUSED,
+        /** The host did not answer in time or is not reachable */
+        NO_RESPONSE
+    }
+
+    private static class PendingConnect {
+        final SocketChannel channel;
+        final CompletableFuture<ConnectResult> result;
+        final long deadlineNanos;
+
+        PendingConnect(SocketChannel channel, CompletableFuture<ConnectResult> result, long deadlineNanos) {
+            this.channel = channel;
+            this.result = result;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        void complete(ConnectResult connectResult) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            result.complete(connectResult);
+        }
+    }
+
+    /**
+     * Creates an executor with {@link #DEFAULT_MAX_PROCESS_THREADS} threads for blocking probes.
+     */
+    public PresenceDetectionExecutor() {
+        this(DEFAULT_MAX_PROCESS_THREADS);
+    }
+
+    /**
+     * A task on the bounded pool together with the future it completes.
+     */
+    private static class QueuedTask implements Runnable {
+        final CompletableFuture<?> result;
+        final Runnable task;
+
+        QueuedTask(CompletableFuture<?> result, Runnable task) {
+            this.result = result;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param maxProcessThreads The maximum amount of concurrently running blocking probes. Up to
+     *            {@value #MAX_QUEUED_PROBES_PER_THREAD} times as many probes may wait for a free thread.
+     */
+    PresenceDetectionExecutor(int maxProcessThreads) {
+        processPool = new ThreadPoolExecutor(maxProcessThreads, maxProcessThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxProcessThreads * MAX_QUEUED_PROBES_PER_THREAD),
+                new NamedThreadFactory("networkProbe"));
+        processPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Stops the probe threads and the selector thread and closes all pending TCP connects. Probes that did not
+     * finish yet are reported as not reachable, other queued tasks and all later probes are rejected.
+     */
+    @Deactivate
+    public void shutdown() {
+        final Thread thread;
+        synchronized (this) {
+            shutdown = true;
+            thread = selectorThread;
+            final Selector selector = this.selector;
+            if (selector != null) {
+                selector.wakeup();
+            }
+        }
+        for (CompletableFuture<Double> probe : inFlight.values()) {
+            probe.complete(PresenceDetection.NOT_REACHABLE);
+        }
+        for (Runnable task : processPool.shutdownNow()) {
+            ((QueuedTask) task).result
+                    .completeExceptionally(new RejectedExecutionException("The presence detection is shut down"));
+        }
+        try {
+            processPool.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (thread != null) {
+                thread.join(SHUTDOWN_TIMEOUT_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        completePendingConnects();
+    }
+
+    /**
+     * Runs a blocking probe on the bounded pool. A probe with the same key that is still running or queued is reused.
+     *
+     * The probe result is {@link PresenceDetection#NOT_REACHABLE}, if the probe does not return within its timeout
+     * plus {@value #PROBE_TIMEOUT_GRACE_MS} ms. The time a probe waits for a free thread does not count.
+     *
+     * @param key Identifies the probe, e.g. kind, destination and timeout
+     * @param timeoutInMS The timeout of the probe in milliseconds
+     * @param blockingProbe Returns the latency in milliseconds or {@link PresenceDetection#NOT_REACHABLE}
+     * @return A future with the result of the probe. Completes exceptionally if the probe throws an exception or
+     *         with a {@link RejectedExecutionException}, if too many probes are queued.
+     */
+    public CompletableFuture<Double> probe(String key, int timeoutInMS, Callable<Double> blockingProbe) {
+        return coalesce(key, () -> {
+            CompletableFuture<Double> result = new CompletableFuture<>();
+            execute(result, () -> {
+                if (result.isDone()) {
+                    return;
+                }
+                final ScheduledFuture<?> timeout = scheduler.schedule(
+                        () -> result.complete(PresenceDetection.NOT_REACHABLE), timeoutInMS + PROBE_TIMEOUT_GRACE_MS,
+                        TimeUnit.MILLISECONDS);
+                try {
+                    result.complete(blockingProbe.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    timeout.cancel(false);
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Performs a non-blocking TCP connect. A connect to the same address with the same timeout that is still running
+     * is reused.
+     *
+     * @param address The destination address and port
+     * @param timeoutInMS The connect timeout in milliseconds
+     * @return A future with the connect latency in milliseconds or {@link PresenceDetection#NOT_REACHABLE}.
+     *         Completes exceptionally on unexpected IO errors.
+     */
+    public CompletableFuture<Double> connect(InetSocketAddress address, int timeoutInMS) {
+        return coalesce("tcp " + address + " " + timeoutInMS, () -> {
+            final long start = System.nanoTime();
+            return startConnect(address, timeoutInMS).thenApply(result -> result == ConnectResult.CONNECTED
+                    ? (double) Math.round((System.nanoTime() - start) / 1000000.0) : PresenceDetection.NOT_REACHABLE);
+        });
+    }
+
+    /**
+     * Performs a non-blocking TCP connect without coalescing and reports how the destination reacted. Used by
+     * the discovery to sweep whole subnets.
+     *
+     * @param address The destination address and port
+     * @param timeoutInMS The connect timeout in milliseconds
+     * @return A future with the outcome of the connection attempt. Completes exceptionally on unexpected IO errors.
+     */
+    public CompletableFuture<ConnectResult> tryConnect(InetSocketAddress address, int timeoutInMS) {
+        return startConnect(address, timeoutInMS);
+    }
+
+    /**
+     * Runs a blocking task, like a host name resolution, on the bounded pool.
+     *
+     * @return A future with the result of the task. Completes exceptionally if the task throws an exception or
+     *         with a {@link RejectedExecutionException}, if too many probes are queued.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        execute(result, () -> {
+            try {
+                result.complete(supplier.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues the given task on the bounded pool or fails the given future, if the queue is full.
+     */
+    private void execute(CompletableFuture<?> result, Runnable task) {
+        try {
+            processPool.execute(new QueuedTask(result, task));
+        } catch (RejectedExecutionException e) {
+            rejectedProbes.incrementAndGet();
+            result.completeExceptionally(e);
+        }
+    }
+
+    private CompletableFuture<Double> coalesce(String key, Supplier<CompletableFuture<Double>> probe) {
+        final CompletableFuture<Double> future = new CompletableFuture<>();
+        final CompletableFuture<Double> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalescedProbes.incrementAndGet();
+            return running;
+        }
+        probes.incrementAndGet();
+        final long start = System.nanoTime();
+        probe.get().whenComplete((latency, e) -> {
+            final long nanos = System.nanoTime() - start;
+            totalProbeNanos.addAndGet(nanos);
+            maxProbeNanos.accumulateAndGet(nanos, Math::max);
+            inFlight.remove(key, future);
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(latency);
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<ConnectResult> startConnect(InetSocketAddress address, int timeoutInMS) {
+        final CompletableFuture<ConnectResult> result = new CompletableFuture<>();
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            final PendingConnect pending = new PendingConnect(channel, result,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMS));
+            if (channel.connect(address)) {
+                pending.complete(ConnectResult.CONNECTED);
+                return result;
+            }
+            pendingConnects.add(pending);
+            wakeupSelector();
+        } catch (ConnectException e) {
+            closeQuietly(channel);
+            result.complete(ConnectResult.REFUSED);
+        } catch (NoRouteToHostException e) {
+            closeQuietly(channel);
+            result.complete(ConnectResult.NO_RESPONSE);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private synchronized void wakeupSelector() throws IOException {
+        if (shutdown) {
+            completePendingConnects();
+            return;
+        }
+        Selector selector = this.selector;
+        if (selector == null) {
+            selector = Selector.open();
+            this.selector = selector;
+            final Selector threadSelector = selector;
+            Thread thread = new NamedThreadFactory("networkSelector").newThread(() -> selectLoop(threadSelector));
+            selectorThread = thread;
+            thread.start();
+        } else {
+            selector.wakeup();
+        }
+    }
+
+    private void selectLoop(Selector selector) {
+        long idleSince = System.nanoTime();
+        try {
+            while (!isShutdown()) {
+                PendingConnect pending;
+                while ((pending = pendingConnects.poll()) != null) {
+                    try {
+                        pending.channel.register(selector, SelectionKey.OP_CONNECT, pending);
+                    } catch (IOException e) {
+                        pending.complete(ConnectResult.NO_RESPONSE);
+                    }
+                }
+
+                selector.select(nextTimeoutMillis(selector));
+
+                final Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    final SelectionKey key = selected.next();
+                    selected.remove();
+                    final PendingConnect connect = (PendingConnect) key.attachment();
+                    key.cancel();
+                    try {
+                        connect.complete(
+                                connect.channel.finishConnect() ? ConnectResult.CONNECTED : ConnectResult.NO_RESPONSE);
+                    } catch (ConnectException e) {
+                        // The host answered with a reset
+                        connect.complete(ConnectResult.REFUSED);
+                    } catch (IOException e) {
+                        // Unreachable: the host did not answer at all
+                        connect.complete(ConnectResult.NO_RESPONSE);
+                    }
+                }
+
+                final long now = System.nanoTime();
+                for (SelectionKey key : selector.keys()) {
+                    final PendingConnect connect = (PendingConnect) key.attachment();
+                    if (key.isValid() && now - connect.deadlineNanos >= 0) {
+                        key.cancel();
+                        connect.complete(ConnectResult.NO_RESPONSE);
+                    }
+                }
+
+                if (!selector.keys().isEmpty() || !pendingConnects.isEmpty()) {
+                    idleSince = now;
+                } else if (TimeUnit.NANOSECONDS.toMillis(now - idleSince) >= SELECTOR_IDLE_SHUTDOWN_MS
+                        && stopIdleSelector(selector)) {
+                    return;
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            logger.warn("The network presence selector failed", e);
+        }
+        synchronized (this) {
+            this.selector = null;
+            this.selectorThread = null;
+        }
+        if (selector.isOpen()) {
+            for (SelectionKey key : selector.keys()) {
+                ((PendingConnect) key.attachment()).complete(ConnectResult.NO_RESPONSE);
+            }
+            closeQuietly(selector);
+        }
+        completePendingConnects();
+    }
+
+    private synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Closes the channels of all connects that are not registered with a selector yet.
+     */
+    private void completePendingConnects() {
+        PendingConnect pending;
+        while ((pending = pendingConnects.poll()) != null) {
+            pending.complete(ConnectResult.NO_RESPONSE);
+        }
+    }
+
+    /**
+     * Stops the selector thread, if no connect got queued in the meantime.
+     */
+    private synchronized boolean stopIdleSelector(Selector selector) {
+        if (!pendingConnects.isEmpty()) {
+            return false;
+        }
+        this.selector = null;
+        this.selectorThread = null;
+        closeQuietly(selector);
+        return true;
+    }
+
+    private long nextTimeoutMillis(Selector selector) {
+        long next = TimeUnit.MILLISECONDS.toNanos(SELECTOR_IDLE_SHUTDOWN_MS);
+        final long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            final PendingConnect connect = (PendingConnect) key.attachment();
+            next = Math.min(next, connect.deadlineNanos - now);
+        }
+        // select(0) would block forever
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next) + 1);
+    }
+
+    private static void closeQuietly(@Nullable AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of threads currently used by the executor: blocking probe threads and the selector thread.
+     */
+    public int getThreadCount() {
+        return processPool.getPoolSize() + (selectorThread != null ? 1 : 0);
+    }
+
+    /**
+     * Returns the amount of blocking probes that wait for a free thread.
+     */
+    public int getQueuedProbes() {
+        return processPool.getQueue().size();
+    }
+
+    /**
+     * Returns the amount of probes currently running, including pending TCP connects.
+     */
+    public int getRunningProbes() {
+        return inFlight.size();
+    }
+
+    /**
+     * Returns the amount of started probes.
+     */
+    public long getProbeCount() {
+        return probes.get();
+    }
+
+    /**
+     * Returns the amount of probe requests that were served by an already running, identical probe.
+     */
+    public long getCoalescedProbeCount() {
+        return coalescedProbes.get();
+    }
+
+    /**
+     * Returns the amount of blocking probes that were rejected, because too many probes waited for a free thread.
+     */
+    public long getRejectedProbeCount() {
+        return rejectedProbes.get();
+    }
+
+    /**
+     * Returns the average duration of a probe in milliseconds, including the time waiting for a free thread.
+     * Includes probes that timed out.
+     */
+    public double getAverageProbeLatencyMillis() {
+        final long count = probes.get() - inFlight.size();
+        return count <= 0 ? 0 : totalProbeNanos.get() / (count * 1000000.0);
+    }
+
+    /**
+     * Returns the maximum duration of a probe in milliseconds.
+     */
+    public double getMaxProbeLatencyMillis() {
+        return maxProbeNanos.get() / 1000000.0;
+    }
+}
@@ -14,7 +14,9 @@ package org.openhab.binding.network.internal.dhcp;
 
 import java.net.SocketException;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -27,7 +29,7 @@ import org.slf4j.LoggerFactory;
  * receiver thread will be started. If the last IPRequestReceivedCallback is removed, the thread will be stopped
  * after the receive socket is closed.
  * IPRequestReceivedCallback will be called for the address that is registered and matches the
- * DHO_DHCP_REQUESTED_ADDRESS address field.
+ * DHO_DHCP_REQUESTED_ADDRESS address field. Registered observers are called for every requested address.
  *
  * @author David Graeff - Initial contribution
  */
@@ -35,34 +37,64 @@ import org.slf4j.LoggerFactory;
 public class DHCPListenService {
     static @Nullable DHCPPacketListenerServer instance;
     static Map<String, IPRequestReceivedCallback> registeredListeners = new TreeMap<>();
+    static Set<IPRequestReceivedCallback> registeredObservers = new CopyOnWriteArraySet<>();
     static Logger logger = LoggerFactory.getLogger(DHCPListenService.class);
 
     @SuppressWarnings({ "null", "unused" })
     public static synchronized DHCPPacketListenerServer register(String hostAddress,
             IPRequestReceivedCallback dhcpListener) throws SocketException {
+        DHCPPacketListenerServer instance = start();
+        synchronized (registeredListeners) {
+            registeredListeners.put(hostAddress, dhcpListener);
+        }
+        return instance;
+    }
+
+    /**
+     * Registers an observer that is called for DHCP requests of all addresses, for example by a network scan.
+     */
+    public static synchronized DHCPPacketListenerServer registerObserver(IPRequestReceivedCallback dhcpObserver)
+            throws SocketException {
+        DHCPPacketListenerServer instance = start();
+        registeredObservers.add(dhcpObserver);
+        return instance;
+    }
+
+    private static DHCPPacketListenerServer start() throws SocketException {
         DHCPPacketListenerServer instance = DHCPListenService.instance;
         if (instance == null) {
             instance = new DHCPPacketListenerServer((String ipAddress) -> {
                 IPRequestReceivedCallback listener = registeredListeners.get(ipAddress);
                 if (listener != null) {
                     listener.dhcpRequestReceived(ipAddress);
-                } else {
+                } else if (registeredObservers.isEmpty()) {
                     logger.trace("DHCP request for unknown address: {}", ipAddress);
                 }
+                for (IPRequestReceivedCallback observer : registeredObservers) {
+                    observer.dhcpRequestReceived(ipAddress);
+                }
             });
             DHCPListenService.instance = instance;
             instance.start();
         }
-        synchronized (registeredListeners) {
-            registeredListeners.put(hostAddress, dhcpListener);
-        }
         return instance;
     }
 
     public static void unregister(String hostAddress) {
         synchronized (registeredListeners) {
             registeredListeners.remove(hostAddress);
-            if (!registeredListeners.isEmpty()) {
+        }
+        stopIfUnused();
+    }
+
+    public static void unregisterObserver(IPRequestReceivedCallback dhcpObserver) {
+        registeredObservers.remove(dhcpObserver);
+        stopIfUnused();
+    }
+
+    private static void stopIfUnused() {
+        synchronized (registeredListeners) {
+            if (!registeredListeners.isEmpty() || !registeredObservers.isEmpty()) {
                 return;
             }
         }
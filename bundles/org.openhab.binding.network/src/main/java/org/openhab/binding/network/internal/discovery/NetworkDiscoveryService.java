@@ -14,13 +14,17 @@ package org.openhab.binding.network.internal.discovery;
 
 import static org.openhab.binding.network.internal.NetworkBindingConstants.*;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -33,47 +37,59 @@ import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
-import org.openhab.binding.network.internal.PresenceDetection;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor.ConnectResult;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
 import org.openhab.binding.network.internal.PresenceDetectionValue;
+import org.openhab.binding.network.internal.dhcp.DHCPListenService;
+import org.openhab.binding.network.internal.dhcp.IPRequestReceivedCallback;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
- * It tries common TCP ports to connect to, ICMP pings and ARP pings.
+ * It tries common TCP ports to connect to and evaluates the ARP cache and DHCP requests.
  *
  * @author Marc Mettke - Initial contribution
  * @author David Graeff - Rewritten
  */
 @NonNullByDefault
 @Component(service = DiscoveryService.class, immediate = true, configurationPid = "discovery.network")
-public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
+public class NetworkDiscoveryService extends AbstractDiscoveryService
+        implements PresenceDetectionListener, IPRequestReceivedCallback {
     static final int PING_TIMEOUT_IN_MS = 500;
-    static final int MAXIMUM_IPS_PER_INTERFACE = 255;
+    // Covers a /22 network
+    static final int MAXIMUM_IPS_PER_INTERFACE = 1023;
+    static final int CONNECTS_PER_SECOND = 2000;
+    static final int MAXIMUM_PENDING_CONNECTS = 512;
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
 
     // TCP port 548 (Apple Filing Protocol (AFP))
     // TCP port 554 (Windows share / Linux samba)
     // TCP port 1025 (Xbox / MS-RPC)
-    private Set<Integer> tcpServicePorts = Collections
+    private static final Set<Integer> TCP_SERVICE_PORTS = Collections
             .unmodifiableSet(Stream.of(80, 548, 554, 1025).collect(Collectors.toSet()));
-    private Integer scannedIPcount = 0;
-    private @Nullable ExecutorService executorService = null;
+    private @Nullable SubnetSweep sweep;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     private final NetworkUtils networkUtils = new NetworkUtils();
+    private @NonNullByDefault({}) PresenceDetectionExecutor executor;
 
     public NetworkDiscoveryService() {
-        super(SUPPORTED_THING_TYPES_UIDS, (int) Math.round(
-                new NetworkUtils().getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size() * (PING_TIMEOUT_IN_MS / 1000.0)),
-                false);
+        super(SUPPORTED_THING_TYPES_UIDS,
+                estimateScanTimeout(new NetworkUtils().getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE).size()), false);
+    }
+
+    private static int estimateScanTimeout(int ipCount) {
+        return (int) Math.ceil((double) ipCount * TCP_SERVICE_PORTS.size() / CONNECTS_PER_SECOND
+                + PING_TIMEOUT_IN_MS / 1000.0) + 1;
     }
 
     @Override
@@ -96,12 +112,19 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     @Override
     @Deactivate
     protected void deactivate() {
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        stopSweep();
         super.deactivate();
     }
 
+    @Reference
+    protected void setPresenceDetectionExecutor(PresenceDetectionExecutor executor) {
+        this.executor = executor;
+    }
+
+    protected void unsetPresenceDetectionExecutor(PresenceDetectionExecutor executor) {
+        this.executor = null;
+    }
+
     @Override
     public void partialDetectionResult(PresenceDetectionValue value) {
         final String ip = value.getHostAddress();
@@ -119,65 +142,89 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     public void finalDetectionResult(PresenceDetectionValue value) {
     }
 
+    @Override
+    public void dhcpRequestReceived(String ipAddress) {
+        newPingDevice(ipAddress);
+    }
+
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Sweeps all IPs on each interface on the network. A TCP connection attempt to each of the service ports is
+     * performed on each IP. An accepted connection is reported as service device, a refused connection as ping
+     * device. Devices that do not respond to the connection attempts but answered the ARP requests, which precede
+     * the connection attempts, are taken from the ARP cache of the operating system. DHCP requests received during
+     * the scan are reported as well.
      */
     @Override
     protected void startScan() {
-        if (executorService == null) {
-            executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        }
-        final ExecutorService service = executorService;
-        if (service == null) {
-            return;
-        }
+        stopSweep();
         removeOlderResults(getTimestampOfLastScan(), null);
         logger.trace("Starting Network Device Discovery");
 
         final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        scannedIPcount = 0;
-
+        final List<InetAddress> addresses = new ArrayList<>();
+        final List<InetSocketAddress> targets = new ArrayList<>();
         for (String ip : networkIPs) {
-            final PresenceDetection s = new PresenceDetection(this, 2000);
-            s.setHostname(ip);
-            s.setIOSDevice(true);
-            s.setUseDhcpSniffing(false);
-            s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath, configuration.arpPingUtilMethod);
-            // TCP devices
-            s.setServicePorts(tcpServicePorts);
-
-            service.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                synchronized (scannedIPcount) {
-                    scannedIPcount += 1;
-                    if (scannedIPcount == networkIPs.size()) {
-                        logger.trace("Scan of {} IPs successful", scannedIPcount);
-                        stopScan();
-                    }
+            try {
+                InetAddress address = InetAddress.getByName(ip);
+                addresses.add(address);
+                for (int port : TCP_SERVICE_PORTS) {
+                    targets.add(new InetSocketAddress(address, port));
                 }
-            });
+            } catch (UnknownHostException e) {
+                logger.trace("Invalid IP address {}", ip, e);
+            }
         }
+
+        try {
+            DHCPListenService.registerObserver(this);
+        } catch (SocketException e) {
+            logger.debug("Cannot use DHCP sniffing for the network scan: {}", e.getMessage());
+        }
+        try {
+            // iOS devices need to be woken up to answer ARP requests
+            networkUtils.wakeUpIOS(addresses);
+        } catch (IOException e) {
+            logger.trace("Failed to wake up iOS devices", e);
+        }
+
+        final SubnetSweep sweep = new SubnetSweep(executor, scheduler, targets,
+                PING_TIMEOUT_IN_MS, CONNECTS_PER_SECOND, MAXIMUM_PENDING_CONNECTS, (target, result) -> {
+                    final String ip = target.getAddress().getHostAddress();
+                    if (result == ConnectResult.CONNECTED) {
+                        scheduler.execute(() -> newServiceDevice(ip, target.getPort()));
+                    } else if (result == ConnectResult.REFUSED) {
+                        scheduler.execute(() -> newPingDevice(ip));
+                    }
+                });
+        this.sweep = sweep;
+        sweep.start().thenRunAsync(() -> {
+            if (this.sweep != sweep) {
+                return;
+            }
+            for (String ip : networkUtils.getArpCacheIPs()) {
+                if (networkIPs.contains(ip)) {
+                    newPingDevice(ip);
+                }
+            }
+            logger.trace("Scan of {} IPs successful", networkIPs.size());
+            stopScan();
+        }, scheduler);
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        final ExecutorService service = executorService;
-        if (service == null) {
-            return;
-        }
+        stopSweep();
+    }
 
-        try {
-            service.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
+    private synchronized void stopSweep() {
+        final SubnetSweep sweep = this.sweep;
+        if (sweep == null) {
+            return;
         }
-        service.shutdown();
-        executorService = null;
+        this.sweep = null;
+        sweep.cancel();
+        DHCPListenService.unregisterObserver(this);
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
@@ -186,7 +233,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the sweep in {@link startScan}.
      *
      * @param ip The device IP
      * @param tcpPort The TCP port
@@ -229,7 +276,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the sweep in {@link startScan}.
      *
      * @param ip The device IP
      */
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor.ConnectResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link SubnetSweep} performs TCP connection attempts to many addresses at once. The attempts are
+ * non-blocking and handled by the selector of the {@link PresenceDetectionExecutor}, no thread is occupied
+ * while waiting for an answer.
+ *
+ * New attempts are started by a periodic job with a global rate limit and a limit of pending attempts,
+ * so that neither the local network stack nor the network gets flooded.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SubnetSweep {
+    static final long TICK_IN_MS = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(SubnetSweep.class);
+    private final PresenceDetectionExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Queue<InetSocketAddress> targets;
+    private final int timeoutInMS;
+    private final int connectsPerTick;
+    private final int maximumPending;
+    private final BiConsumer<InetSocketAddress, ConnectResult> resultConsumer;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CompletableFuture<@Nullable Void> done = new CompletableFuture<>();
+    private @Nullable ScheduledFuture<?> launcher;
+
+    /**
+     * Creates a sweep. Call {@link #start()} to start it.
+     *
+     * @param executor The executor performing the connection attempts
+     * @param scheduler The scheduler for the rate limited launcher job
+     * @param targets The addresses and ports to connect to
+     * @param timeoutInMS The timeout of each connection attempt
+     * @param connectsPerSecond The maximum amount of connection attempts per second
+     * @param maximumPending The maximum amount of connection attempts waiting for an answer
+     * @param resultConsumer Receives the outcome of each connection attempt
+     */
+    public SubnetSweep(PresenceDetectionExecutor executor, ScheduledExecutorService scheduler,
+            Collection<InetSocketAddress> targets, int timeoutInMS, int connectsPerSecond, int maximumPending,
+            BiConsumer<InetSocketAddress, ConnectResult> resultConsumer) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.targets = new ConcurrentLinkedQueue<>(targets);
+        this.timeoutInMS = timeoutInMS;
+        this.connectsPerTick = (int) Math.max(1, connectsPerSecond * TICK_IN_MS / 1000);
+        this.maximumPending = maximumPending;
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * Starts the sweep.
+     *
+     * @return A future that completes when all connection attempts are done or the sweep got cancelled
+     */
+    public synchronized CompletableFuture<@Nullable Void> start() {
+        if (launcher == null && !done.isDone()) {
+            launcher = scheduler.scheduleAtFixedRate(this::launch, 0, TICK_IN_MS, TimeUnit.MILLISECONDS);
+        }
+        return done;
+    }
+
+    /**
+     * Stops the sweep. Connection attempts that are already pending are not reported anymore.
+     */
+    public void cancel() {
+        targets.clear();
+        done.complete(null);
+        stopLauncher();
+    }
+
+    /**
+     * Returns the amount of connection attempts that are not started yet.
+     */
+    public int getRemaining() {
+        return targets.size();
+    }
+
+    private void launch() {
+        for (int i = 0; i < connectsPerTick && pending.get() < maximumPending; ++i) {
+            final InetSocketAddress target = targets.poll();
+            if (target == null) {
+                break;
+            }
+            pending.incrementAndGet();
+            executor.tryConnect(target, timeoutInMS).whenComplete((result, e) -> {
+                if (e != null) {
+                    logger.trace("Connection attempt to {} failed", target, e);
+                } else if (!done.isDone()) {
+                    resultConsumer.accept(target, result);
+                }
+                pending.decrementAndGet();
+                checkDone();
+            });
+        }
+        checkDone();
+    }
+
+    private void checkDone() {
+        if (targets.isEmpty() && pending.get() == 0) {
+            done.complete(null);
+        }
+        if (done.isDone()) {
+            stopLauncher();
+        }
+    }
+
+    private synchronized void stopLauncher() {
+        final ScheduledFuture<?> launcher = this.launcher;
+        if (launcher != null) {
+            launcher.cancel(false);
+        }
+    }
+}
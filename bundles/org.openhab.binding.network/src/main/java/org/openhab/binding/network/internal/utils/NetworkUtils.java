@@ -28,10 +28,17 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
@@ -52,6 +59,8 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class NetworkUtils {
+    private static final Pattern ARP_CACHE_ENTRY = Pattern
+            .compile("(\\d{1,3}(?:\\.\\d{1,3}){3}).*?((?:[0-9a-fA-F]{1,2}[:-]){5}[0-9a-fA-F]{1,2})");
     private final Logger logger = LoggerFactory.getLogger(NetworkUtils.class);
 
     /**
@@ -326,6 +335,45 @@ public class NetworkUtils {
         return proc.waitFor() == 0;
     }
 
+    /**
+     * Returns the IPv4 addresses of the ARP cache of the operating system that are resolved to a hardware address.
+     * A host on the local network shows up in the ARP cache as soon as any packet, like a TCP connection attempt,
+     * was sent to it, even if it does not respond on any port.
+     *
+     * @return The IP addresses, empty if the ARP cache could not be read
+     */
+    public Set<String> getArpCacheIPs() {
+        String table;
+        if (SystemUtils.IS_OS_LINUX) {
+            try {
+                table = new String(Files.readAllBytes(Paths.get("/proc/net/arp")), StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                logger.debug("Failed to read the ARP cache", e);
+                return Collections.emptySet();
+            }
+        } else {
+            table = ExecUtil.executeCommandLineAndWaitResponse(SystemUtils.IS_OS_WINDOWS ? "arp -a" : "arp -an", 2000);
+        }
+        return table == null ? Collections.emptySet() : parseArpCache(table);
+    }
+
+    /**
+     * Extracts all IPv4 addresses with a valid hardware address from the output of "arp -a" or /proc/net/arp.
+     */
+    static Set<String> parseArpCache(String table) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String line : table.split("\\r?\\n")) {
+            Matcher matcher = ARP_CACHE_ENTRY.matcher(line);
+            if (matcher.find()) {
+                String mac = matcher.group(2).replace('-', ':').toLowerCase();
+                if (!mac.matches("0{1,2}(:0{1,2}){5}") && !mac.equals("ff:ff:ff:ff:ff:ff")) {
+                    result.add(matcher.group(1));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * iOS devices are in a deep sleep mode, where they only listen to UDP traffic on port 5353 (Bonjour service
      * discovery). A packet on port 5353 will wake up the network stack to respond to ARP pings at least.
@@ -340,4 +388,22 @@ public class NetworkUtils {
             // We ignore the port unreachable error
         }
     }
+
+    /**
+     * Sends the iOS wake up packet of {@link #wakeUpIOS(InetAddress)} to all given addresses, using a single socket.
+     *
+     * @throws IOException
+     */
+    public void wakeUpIOS(Collection<InetAddress> addresses) throws IOException {
+        byte[] buffer = new byte[0];
+        try (DatagramSocket s = new DatagramSocket()) {
+            for (InetAddress address : addresses) {
+                try {
+                    s.send(new DatagramPacket(buffer, buffer.length, address, 5353));
+                } catch (PortUnreachableException ignored) {
+                    // We ignore the port unreachable error
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see PresenceDetectionExecutor}
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionExecutorTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void timeoutStartsWhenProbeRuns() throws Exception {
+        PresenceDetectionExecutor executor = new PresenceDetectionExecutor(1);
+
+        CompletableFuture<Double> blocking = executor.probe("blocking", 10, () -> {
+            Thread.sleep(PresenceDetectionExecutor.PROBE_TIMEOUT_GRACE_MS + 500);
+            return 1.0;
+        });
+        // Waits for the blocking probe longer than its own timeout, but must not be reported as not reachable
+        CompletableFuture<Double> queued = executor.probe("queued", 10, () -> 2.0);
+
+        assertThat(blocking.get(5, TimeUnit.SECONDS), is(PresenceDetection.NOT_REACHABLE));
+        assertThat(queued.get(5, TimeUnit.SECONDS), is(2.0));
+    }
+
+    @Test
+    public void identicalProbesAreCoalesced() throws Exception {
+        PresenceDetectionExecutor executor = new PresenceDetectionExecutor(1);
+
+        CompletableFuture<Double> first = executor.probe("ping 1", 1000, () -> {
+            release.await();
+            return 3.0;
+        });
+        CompletableFuture<Double> second = executor.probe("ping 1", 1000, () -> 4.0);
+        release.countDown();
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(first.get(5, TimeUnit.SECONDS), is(3.0));
+        assertThat(executor.getCoalescedProbeCount(), is(1L));
+    }
+
+    @Test
+    public void probesAreRejectedIfTheQueueIsFull() throws Exception {
+        PresenceDetectionExecutor executor = new PresenceDetectionExecutor(1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        List<CompletableFuture<Double>> probes = new ArrayList<>();
+        probes.add(executor.probe("running", 1000, () -> {
+            started.countDown();
+            release.await();
+            return 1.0;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < PresenceDetectionExecutor.MAX_QUEUED_PROBES_PER_THREAD + 1; ++i) {
+            probes.add(executor.probe("probe " + i, 1000, () -> {
+                release.await();
+                return 1.0;
+            }));
+        }
+        CompletableFuture<String> task = executor.supplyAsync(() -> "resolved");
+
+        CompletableFuture<Double> rejected = probes.get(probes.size() - 1);
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("The probe should have been rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        }
+        assertTrue(task.isCompletedExceptionally());
+        assertThat(executor.getRejectedProbeCount(), is(2L));
+
+        release.countDown();
+        for (CompletableFuture<Double> probe : probes.subList(0, probes.size() - 1)) {
+            assertThat(probe.get(5, TimeUnit.SECONDS), is(1.0));
+        }
+    }
+
+    @Test
+    public void shutdownStopsThreadsAndCompletesProbes() throws Exception {
+        PresenceDetectionExecutor executor = new PresenceDetectionExecutor(1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Double> running = executor.probe("running", 10000, () -> {
+            started.countDown();
+            release.await();
+            return 1.0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.supplyAsync(() -> "resolved");
+
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            executor.connect(new InetSocketAddress(server.getInetAddress(), server.getLocalPort()), 1000)
+                    .get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(running.get(), is(PresenceDetection.NOT_REACHABLE));
+        assertTrue(queued.isCompletedExceptionally());
+        assertThat(executor.getThreadCount(), is(0));
+        assertTrue(executor.probe("later", 1000, () -> 1.0).isCompletedExceptionally());
+        assertThat(executor.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 1), 1000)
+                .get(5, TimeUnit.SECONDS), is(PresenceDetection.NOT_REACHABLE));
+    }
+}
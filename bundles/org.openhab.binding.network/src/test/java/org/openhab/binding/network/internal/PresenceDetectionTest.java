@@ -18,9 +18,11 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -49,13 +51,11 @@ public class PresenceDetectionTest {
     @Mock
     PresenceDetectionListener listener;
 
-    @Mock
-    ExecutorService executorService;
-
     @Mock
     Consumer<PresenceDetectionValue> callback;
 
     PresenceDetection subject;
+    PresenceDetectionExecutor executor = new PresenceDetectionExecutor();
 
     @Before
     public void setUp() throws UnknownHostException {
@@ -66,7 +66,7 @@ public class PresenceDetectionTest {
         doReturn(ArpPingUtilEnum.IPUTILS_ARPING).when(networkUtils).determineNativeARPpingMethod(anyString());
         doReturn(IpPingMethodEnum.WINDOWS_PING).when(networkUtils).determinePingMethod();
 
-        subject = spy(new PresenceDetection(listener, (int) CACHETIME));
+        subject = spy(new PresenceDetection(listener, (int) CACHETIME, executor));
         subject.networkUtils = networkUtils;
         subject.cache = spy(new ExpiringCacheAsync<PresenceDetectionValue>(CACHETIME, () -> {
             subject.performPresenceDetection(false);
@@ -87,28 +87,32 @@ public class PresenceDetectionTest {
     @After
     public void shutDown() {
         subject.waitForPresenceDetection();
+        executor.shutdown();
     }
 
-    // Depending on the amount of test methods an according amount of threads is spawned.
-    // We will check if they spawn and return in time.
+    // Depending on the amount of test methods an according amount of checks is started.
+    // We will check if they are started and return in time.
     @Test
-    public void threadCountTest() {
-        assertNull(subject.executorService);
+    public void checkCountTest() {
+        assertNull(subject.detection);
 
-        doNothing().when(subject).performARPping(any());
-        doNothing().when(subject).performJavaPing();
-        doNothing().when(subject).performSystemPing();
-        doNothing().when(subject).performServicePing(anyInt());
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        doReturn(CompletableFuture.completedFuture(null)).when(subject).performARPping(any());
+        doReturn(CompletableFuture.completedFuture(null)).when(subject).performJavaPing();
+        doReturn(CompletableFuture.completedFuture(null)).when(subject).performSystemPing();
+        doReturn(pending).when(subject).performServicePing(anyInt());
 
         subject.performPresenceDetection(false);
 
-        // Thread count: ARP + ICMP + 1*TCP
+        // Check count: ARP + ICMP + 1*TCP
         assertThat(subject.detectionChecks, is(3));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.detection);
 
+        pending.complete(null);
         subject.waitForPresenceDetection();
+        executor.shutdown();
         assertThat(subject.detectionChecks, is(0));
-        assertNull(subject.executorService);
+        assertNull(subject.detection);
     }
 
     @Test
@@ -116,10 +120,14 @@ public class PresenceDetectionTest {
         doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
         doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
                 any(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
 
-        assertTrue(subject.performPresenceDetection(false));
-        subject.waitForPresenceDetection();
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            subject.setServicePorts(Collections.singleton(server.getLocalPort()));
+
+            assertTrue(subject.performPresenceDetection(false));
+            subject.waitForPresenceDetection();
+        executor.shutdown();
+        }
 
         verify(subject, times(0)).performJavaPing();
         verify(subject).performSystemPing();
@@ -135,30 +143,33 @@ public class PresenceDetectionTest {
 
     @Test
     public void cacheTest() throws InterruptedException, IOException {
-        doReturn(true).when(networkUtils).nativePing(eq(IpPingMethodEnum.WINDOWS_PING), anyString(), anyInt());
-        doReturn(true).when(networkUtils).nativeARPPing(eq(ArpPingUtilEnum.IPUTILS_ARPING), anyString(), anyString(),
-                any(), anyInt());
-        doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
-
-        doReturn(executorService).when(subject).getThreadsFor(anyInt());
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        doReturn(pending).when(subject).performARPping(any());
+        doReturn(pending).when(subject).performSystemPing();
+        doReturn(pending).when(subject).performServicePing(anyInt());
 
         // We expect no valid value
         assertTrue(subject.cache.isExpired());
         // Get value will issue a PresenceDetection internally.
         subject.getValue(callback);
         verify(subject).performPresenceDetection(eq(false));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.detection);
         // There should be no straight callback yet
         verify(callback, times(0)).accept(any());
 
-        // Perform the different presence detection threads now
-        ArgumentCaptor<Runnable> capture = ArgumentCaptor.forClass(Runnable.class);
-        verify(executorService, times(3)).execute(capture.capture());
-        for (Runnable r : capture.getAllValues()) {
-            r.run();
-        }
+        // The checks are started after the host name resolution
+        verify(subject, timeout(1000)).performSystemPing();
+        verify(subject, timeout(1000)).performARPping(any());
+        verify(subject, timeout(1000)).performServicePing(anyInt());
+
+        // Report the results of the different presence detection checks now
+        subject.updateReachableValue(PresenceDetectionType.ICMP_PING, 1);
+        subject.updateReachableValue(PresenceDetectionType.ARP_PING, 1);
+        subject.updateReachableValue(PresenceDetectionType.TCP_CONNECTION, 1);
+        pending.complete(null);
         // "Wait" for the presence detection to finish
         subject.waitForPresenceDetection();
+        executor.shutdown();
 
         // Although there are multiple partial results and a final result,
         // the getValue() consumers get the fastest response possible, and only once.
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor;
+import org.openhab.binding.network.internal.PresenceDetectionExecutor.ConnectResult;
+
+/**
+ * Tests cases for {@see SubnetSweep}
+ *
+ * @author agent - Initial contribution
+ */
+public class SubnetSweepTest {
+    private ScheduledExecutorService scheduler;
+    private final PresenceDetectionExecutor executor = new PresenceDetectionExecutor(1);
+    private final Map<InetSocketAddress, ConnectResult> results = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    @Test
+    public void openAndClosedPorts() throws Exception {
+        final InetAddress localhost = InetAddress.getByName("127.0.0.1");
+        final InetSocketAddress closed;
+        try (ServerSocket socket = new ServerSocket(0, 50, localhost)) {
+            closed = new InetSocketAddress(localhost, socket.getLocalPort());
+        }
+
+        try (ServerSocket server = new ServerSocket(0, 50, localhost)) {
+            final InetSocketAddress open = new InetSocketAddress(localhost, server.getLocalPort());
+            SubnetSweep sweep = new SubnetSweep(executor, scheduler,
+                    Arrays.asList(open, closed), 1000, 100, 10, results::put);
+            sweep.start().get(5, TimeUnit.SECONDS);
+
+            assertThat(results.get(open), is(ConnectResult.CONNECTED));
+            assertThat(results.get(closed), is(ConnectResult.REFUSED));
+            assertThat(sweep.getRemaining(), is(0));
+        }
+    }
+
+    @Test
+    public void cancelStopsSweep() throws IOException {
+        final InetAddress localhost = InetAddress.getByName("127.0.0.1");
+        List<InetSocketAddress> targets = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            targets.add(new InetSocketAddress(localhost, 1));
+        }
+        // One connection attempt per tick
+        SubnetSweep sweep = new SubnetSweep(executor, scheduler, targets, 1000, 1,
+                10, results::put);
+        sweep.start();
+        sweep.cancel();
+
+        assertTrue(sweep.start().isDone());
+        assertThat(sweep.getRemaining(), is(0));
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.homekit.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.openhab.io.homekit.internal.accessories.HomekitAccessoryFactory;
+import org.openhab.io.homekit.internal.accessories.IncompleteAccessoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.beowulfe.hap.HomekitAccessory;
+
+/**
+ * Builds the root accessories for a snapshot of all items. The snapshot is indexed in one pass, so that the
+ * accessory groups and group members of an item are known without further item registry lookups, neither while
+ * finding the root accessories nor while building them.
+ *
+ * Each root accessory gets a fingerprint of the items it is built from. If the fingerprint did not change,
+ * an existing accessory does not need to be built and published again.
+ *
+ * @author agent - Initial contribution
+ */
+class HomekitAccessoryBuilder {
+    /**
+     * Describes the items a root accessory is built from. Accessories keep references to their items, so two
+     * fingerprints are only equal if they refer to the very same item instances.
+     */
+    static final class Fingerprint {
+        private final String description;
+        private final List<Item> items;
+
+        private Fingerprint(String description, List<Item> items) {
+            this.description = description;
+            this.items = items;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) obj;
+            if (!description.equals(other.description) || items.size() != other.items.size()) {
+                return false;
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) != other.items.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return description.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryBuilder.class);
+
+    private final Map<String, Item> items = new HashMap<>();
+    private final Map<String, GroupItem> accessoryGroups = new HashMap<>();
+    private final Map<String, List<Item>> membersByGroup = new HashMap<>();
+    private final ItemRegistry itemRegistry;
+    private final HomekitAccessoryUpdater updater;
+    private final HomekitSettings settings;
+
+    HomekitAccessoryBuilder(Collection<Item> allItems, ItemRegistry itemRegistry, HomekitAccessoryUpdater updater,
+            HomekitSettings settings) {
+        this.itemRegistry = itemRegistry;
+        this.updater = updater;
+        this.settings = settings;
+
+        for (Item item : allItems) {
+            items.put(item.getName(), item);
+            if (item instanceof GroupItem && HomekitTaggedItem.findAccessoryType(item) != null) {
+                accessoryGroups.put(item.getName(), (GroupItem) item);
+            }
+            for (String groupName : item.getGroupNames()) {
+                membersByGroup.computeIfAbsent(groupName, name -> new ArrayList<>()).add(item);
+            }
+        }
+    }
+
+    public Collection<String> getItemNames() {
+        return items.keySet();
+    }
+
+    /**
+     * Returns the tagged item for the given item name, if the item is a root accessory.
+     * Returns null if the item does not exist, is not an accessory or is a member of an accessory group.
+     */
+    public HomekitTaggedItem getRootAccessory(String itemName) {
+        Item item = items.get(itemName);
+        if (item == null) {
+            return null;
+        }
+        HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, findMyAccessoryGroups(item));
+        if (!taggedItem.isAccessory() || taggedItem.isMemberOfAccessoryGroup()) {
+            return null;
+        }
+        return taggedItem;
+    }
+
+    /**
+     * Returns a fingerprint of the items a root accessory is built from: The root item and, for accessory
+     * groups, all group members.
+     */
+    public Fingerprint fingerprint(HomekitTaggedItem rootItem) {
+        List<Item> fingerprintItems = new ArrayList<>();
+        fingerprintItems.add(rootItem.getItem());
+        if (rootItem.isGroup()) {
+            List<Item> members = new ArrayList<>(
+                    membersByGroup.getOrDefault(rootItem.getName(), Collections.emptyList()));
+            members.sort(Comparator.comparing(Item::getName));
+            fingerprintItems.addAll(members);
+        }
+        StringBuilder description = new StringBuilder();
+        fingerprintItems.forEach(item -> describe(description, item));
+        return new Fingerprint(description.toString(), fingerprintItems);
+    }
+
+    /**
+     * Builds the accessories for the given root items in parallel on the given executor and waits for them.
+     * Accessories that cannot be built are logged and missing in the result.
+     *
+     * @return The accessories by item name
+     */
+    public Map<String, HomekitAccessory> build(Collection<HomekitTaggedItem> rootItems, Executor executor) {
+        Map<String, HomekitAccessory> accessories = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> builds = new ArrayList<>();
+        for (HomekitTaggedItem rootItem : rootItems) {
+            try {
+                builds.add(CompletableFuture.runAsync(() -> build(rootItem, accessories), executor));
+            } catch (RejectedExecutionException e) {
+                logger.debug("Stopped building homekit devices, the bridge is shutting down");
+                break;
+            }
+        }
+        try {
+            CompletableFuture.allOf(builds.toArray(new CompletableFuture[builds.size()])).join();
+        } catch (CompletionException e) {
+            logger.warn("Could not add devices: {}", e.getMessage(), e);
+        }
+        return accessories;
+    }
+
+    private void build(HomekitTaggedItem rootItem, Map<String, HomekitAccessory> accessories) {
+        try {
+            logger.debug("Adding homekit device {}", rootItem.getName());
+            accessories.put(rootItem.getName(),
+                    HomekitAccessoryFactory.create(rootItem, getMembers(rootItem), itemRegistry, updater, settings));
+        } catch (HomekitException | IncompleteAccessoryException e) {
+            logger.warn("Could not add device: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the group members of an accessory group, taken from the snapshot.
+     */
+    private List<HomekitTaggedItem> getMembers(HomekitTaggedItem rootItem) {
+        if (!rootItem.isGroup()) {
+            return Collections.emptyList();
+        }
+        List<HomekitTaggedItem> members = new ArrayList<>();
+        for (Item member : membersByGroup.getOrDefault(rootItem.getName(), Collections.emptyList())) {
+            members.add(new HomekitTaggedItem(member, findMyAccessoryGroups(member)));
+        }
+        return members;
+    }
+
+    private List<GroupItem> findMyAccessoryGroups(Item item) {
+        List<GroupItem> groups = new ArrayList<>();
+        for (String groupName : item.getGroupNames()) {
+            GroupItem groupItem = accessoryGroups.get(groupName);
+            if (groupItem != null) {
+                groups.add(groupItem);
+            }
+        }
+        return groups;
+    }
+
+    private static void describe(StringBuilder fingerprint, Item item) {
+        fingerprint.append(item.getName()).append(';').append(item.getType()).append(';').append(item.getLabel())
+                .append(';').append(new TreeSet<>(item.getTags()));
+        if (item instanceof GroupItem) {
+            Item baseItem = ((GroupItem) item).getBaseItem();
+            if (baseItem != null) {
+                fingerprint.append(';').append(baseItem.getType());
+            }
+        }
+        fingerprint.append('\n');
+    }
+}
@@ -35,15 +35,19 @@ class HomekitAccessoryRegistry {
 
     private HomekitRoot bridge;
     private final Map<String, HomekitAccessory> createdAccessories = new HashMap<>();
+    private final Map<String, HomekitAccessoryBuilder.Fingerprint> fingerprints = new HashMap<>();
     private final Set<Integer> createdIds = new HashSet<>();
 
     private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryRegistry.class);
 
     public synchronized void remove(String itemName) {
+        fingerprints.remove(itemName);
         if (createdAccessories.containsKey(itemName)) {
             HomekitAccessory accessory = createdAccessories.remove(itemName);
             logger.debug("Removed accessory {} for taggedItem {}", accessory.getId(), itemName);
-            bridge.removeAccessory(accessory);
+            if (bridge != null) {
+                bridge.removeAccessory(accessory);
+            }
         }
     }
 
@@ -51,23 +55,53 @@ class HomekitAccessoryRegistry {
         Iterator<Entry<String, HomekitAccessory>> iter = createdAccessories.entrySet().iterator();
         while (iter.hasNext()) {
             Entry<String, HomekitAccessory> entry = iter.next();
-            bridge.removeAccessory(entry.getValue());
+            if (bridge != null) {
+                bridge.removeAccessory(entry.getValue());
+            }
             iter.remove();
         }
+        fingerprints.clear();
         createdIds.clear();
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
         this.bridge = bridge;
-        createdAccessories.values().forEach(accessory -> bridge.addAccessory(accessory));
+        if (bridge != null) {
+            createdAccessories.values().forEach(accessory -> bridge.addAccessory(accessory));
+        }
     }
 
-    public synchronized void addRootAccessory(String itemName, HomekitAccessory accessory) {
+    /**
+     * Adds an accessory, replacing an existing accessory for the same item.
+     *
+     * @param itemName The name of the root item
+     * @param accessory The accessory
+     * @param fingerprint The fingerprint of the items the accessory was built from
+     */
+    public synchronized void addRootAccessory(String itemName, HomekitAccessory accessory,
+            HomekitAccessoryBuilder.Fingerprint fingerprint) {
+        remove(itemName);
         createdAccessories.put(itemName, accessory);
+        fingerprints.put(itemName, fingerprint);
         createdIds.add(accessory.getId());
         if (bridge != null) {
             bridge.addAccessory(accessory);
         }
         logger.debug("Added accessory {}", accessory.getId());
     }
+
+    /**
+     * Returns true if there is an accessory for the given item, which was built from items with the given
+     * fingerprint.
+     */
+    public synchronized boolean isUnchanged(String itemName, HomekitAccessoryBuilder.Fingerprint fingerprint) {
+        return createdAccessories.containsKey(itemName) && fingerprint.equals(fingerprints.get(itemName));
+    }
+
+    /**
+     * Returns the names of all items for which an accessory exists.
+     */
+    public synchronized Set<String> getItemNames() {
+        return new HashSet<>(createdAccessories.keySet());
+    }
 }
@@ -14,29 +14,37 @@ package org.openhab.io.homekit.internal;
 
 import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.Item;
-import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
-import org.openhab.io.homekit.internal.accessories.HomekitAccessoryFactory;
-import org.openhab.io.homekit.internal.accessories.IncompleteAccessoryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.beowulfe.hap.HomekitAccessory;
 import com.beowulfe.hap.HomekitRoot;
 
 /**
  * Listens for changes to the item registry. When changes are detected, check
  * for Homekit tags and, if present, add the items to the HomekitAccessoryRegistry.
  *
+ * Accessories are built by a {@link HomekitAccessoryBuilder} for a snapshot of the item registry. Only accessories
+ * whose items have changed are built again and published to the bridge. They are built on a small pool of threads,
+ * which is shut down when the listener is stopped.
+ *
  * @author Andy Lintner - Initial contribution
  */
 public class HomekitChangeListener implements ItemRegistryChangeListener {
@@ -47,10 +55,15 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     private HomekitSettings settings;
     private boolean initialized = false;
     private Set<String> pendingUpdates = new HashSet<String>();
+    private boolean pendingFullUpdate = false;
 
     private final ScheduledExecutorService scheduler = ThreadPoolManager
             .getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON);
 
+    private static final int MAX_BUILD_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private final ThreadPoolExecutor buildExecutor = new ThreadPoolExecutor(MAX_BUILD_THREADS, MAX_BUILD_THREADS, 60,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("homekit-builder"));
+
     /**
      * Rather than reacting to item added/removed/modified changes directly, we mark them as dirty (and the groups to
      * which they belong)
@@ -64,6 +77,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     HomekitChangeListener() {
         this.applyUpdatesDebouncer = new Debouncer("update-homekit-devices", scheduler, Duration.ofMillis(1000),
                 Clock.systemUTC(), this::applyUpdates);
+        buildExecutor.allowCoreThreadTimeOut(true);
     }
 
     @Override
@@ -72,8 +86,9 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     }
 
     @Override
-    public void allItemsChanged(Collection<String> oldItemNames) {
-        clearAccessories();
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        pendingFullUpdate = true;
+        applyUpdatesDebouncer.call();
     }
 
     /**
@@ -85,12 +100,11 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     private synchronized void markDirty(Item item) {
         pendingUpdates.add(item.getName());
         /*
-         * If findMyAccessoryGroups fails because the accessory group has already been deleted, then we can count on a
-         * later update telling us that the accessory group was removed.
+         * Which of the groups are accessory groups is determined when the updates are applied. If an accessory group
+         * has already been deleted, then we can count on a later update telling us that the accessory group was
+         * removed.
          */
-        for (Item accessoryGroup : HomekitTaggedItem.findMyAccessoryGroups(item, itemRegistry)) {
-            pendingUpdates.add(accessoryGroup.getName());
-        }
+        pendingUpdates.addAll(item.getGroupNames());
 
         applyUpdatesDebouncer.call();
     }
@@ -100,25 +114,60 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         markDirty(item);
     }
 
-    private Optional<Item> getItemOptional(String name) {
-        try {
-            return Optional.of(itemRegistry.getItem(name));
-        } catch (ItemNotFoundException e) {
-            return Optional.empty();
+    private synchronized void applyUpdates() {
+        if (itemRegistry == null || settings == null) {
+            return;
         }
+        HomekitAccessoryBuilder builder = new HomekitAccessoryBuilder(itemRegistry.getAll(), itemRegistry, updater,
+                settings);
+
+        Set<String> itemNames = pendingUpdates;
+        pendingUpdates = new HashSet<>();
+        if (pendingFullUpdate) {
+            pendingFullUpdate = false;
+            itemNames.addAll(builder.getItemNames());
+            itemNames.addAll(accessoryRegistry.getItemNames());
+        }
+        updateAccessories(builder, itemNames);
     }
 
-    private synchronized void applyUpdates() {
-        Iterator<String> iter = pendingUpdates.iterator();
-
-        while (iter.hasNext()) {
-            String name = iter.next();
-            accessoryRegistry.remove(name);
+    /**
+     * Creates, replaces or removes the accessories of the given items. Accessories that would be built from the same
+     * items as before are kept.
+     *
+     * @param builder The builder for the current items
+     * @param itemNames The names of the items to check
+     */
+    private void updateAccessories(HomekitAccessoryBuilder builder, Collection<String> itemNames) {
+        Map<String, HomekitAccessoryBuilder.Fingerprint> fingerprints = new HashMap<>();
+        List<HomekitTaggedItem> changedRootItems = new ArrayList<>();
+        for (String name : itemNames) {
+            HomekitTaggedItem rootItem = builder.getRootAccessory(name);
+            if (rootItem == null) {
+                accessoryRegistry.remove(name);
+                continue;
+            }
+            HomekitAccessoryBuilder.Fingerprint fingerprint = builder.fingerprint(rootItem);
+            if (!accessoryRegistry.isUnchanged(name, fingerprint)) {
+                fingerprints.put(name, fingerprint);
+                changedRootItems.add(rootItem);
+            }
+        }
+        if (changedRootItems.isEmpty()) {
+            return;
+        }
 
-            getItemOptional(name).map(i -> new HomekitTaggedItem(i, itemRegistry))
-                    .filter(i -> i.isAccessory() && !i.isMemberOfAccessoryGroup())
-                    .ifPresent(rootItem -> createRootAccessory(rootItem));
+        Map<String, HomekitAccessory> accessories = builder.build(changedRootItems, buildExecutor);
+        for (HomekitTaggedItem rootItem : changedRootItems) {
+            String name = rootItem.getName();
+            HomekitAccessory accessory = accessories.get(name);
+            if (accessory != null) {
+                accessoryRegistry.addRootAccessory(name, accessory, fingerprints.get(name));
+            } else {
+                accessoryRegistry.remove(name);
+            }
         }
+        logger.debug("Updated {} of {} homekit devices", changedRootItems.size(), itemNames.size());
     }
 
     @Override
@@ -143,17 +192,16 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     /**
      * Call after itemRegistry and settings are specified to initialize homekit devices
      */
-    private void maybeInitialize() {
+    private synchronized void maybeInitialize() {
         if (initialized) {
             return;
         }
         if (this.itemRegistry != null && this.settings != null) {
             initialized = true;
             itemRegistry.addRegistryChangeListener(this);
-            itemRegistry.getAll().stream().map(item -> new HomekitTaggedItem(item, itemRegistry))
-                    .filter(taggedItem -> taggedItem.isAccessory())
-                    .filter(taggedItem -> !taggedItem.isMemberOfAccessoryGroup())
-                    .forEach(rootTaggedItem -> createRootAccessory(rootTaggedItem));
+            HomekitAccessoryBuilder builder = new HomekitAccessoryBuilder(itemRegistry.getAll(), itemRegistry,
+                    updater, settings);
+            updateAccessories(builder, builder.getItemNames());
         }
     }
 
@@ -170,21 +218,6 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         if (this.itemRegistry != null) {
             this.itemRegistry.removeRegistryChangeListener(this);
         }
-    }
-
-    private void createRootAccessory(HomekitTaggedItem taggedItem) {
-        try {
-            if (taggedItem.isMemberOfAccessoryGroup()) {
-                logger.warn("Bug! Cannot add {} as a root accessory if it is a member of a group! ",
-                        taggedItem.getName());
-                return;
-            }
-            logger.debug("Adding homekit device {}", taggedItem.getItem().getName());
-            accessoryRegistry.addRootAccessory(taggedItem.getName(),
-                    HomekitAccessoryFactory.create(taggedItem, itemRegistry, updater, settings));
-            logger.debug("Added homekit device {}", taggedItem.getItem().getName());
-        } catch (HomekitException | IncompleteAccessoryException e) {
-            logger.warn("Could not add device: {}", e.getMessage(), e);
-        }
+        buildExecutor.shutdownNow();
     }
 }
@@ -123,9 +123,17 @@ public class HomekitImpl implements Homekit {
 
     private void start() throws IOException, InvalidAlgorithmParameterException {
         homekit = new HomekitServer(settings.getNetworkInterface(), settings.getPort());
-        bridge = homekit.createBridge(new HomekitAuthInfoImpl(storageService, settings.getPin()), settings.getName(),
-                settings.getManufacturer(), settings.getModel(), settings.getSerialNumber());
-        bridge.start();
+        startBridge(homekit.createBridge(new HomekitAuthInfoImpl(storageService, settings.getPin()),
+                settings.getName(), settings.getManufacturer(), settings.getModel(), settings.getSerialNumber()));
+    }
+
+    /**
+     * Registers all accessories before the bridge is started. Each accessory added to a started bridge
+     * makes the bridge drop all client connections.
+     */
+    void startBridge(HomekitRoot bridge) {
+        this.bridge = bridge;
         changeListener.setBridge(bridge);
+        bridge.start();
     }
 }
@@ -76,6 +76,16 @@ public class HomekitTaggedItem {
     }
 
     public HomekitTaggedItem(Item item, ItemRegistry itemRegistry) {
+        this(item, findMyAccessoryGroups(item, itemRegistry));
+    }
+
+    /**
+     * Creates a tagged item with already known accessory groups.
+     *
+     * @param item The item
+     * @param matchingGroupItems The groups of the item which are tagged as Homekit devices
+     */
+    HomekitTaggedItem(Item item, List<GroupItem> matchingGroupItems) {
         this.item = item;
 
         try {
@@ -85,7 +95,6 @@ public class HomekitTaggedItem {
                 throw new BadItemConfigurationException(
                         "Items cannot be tagged as both a characteristic and an accessory type");
             }
-            List<GroupItem> matchingGroupItems = findMyAccessoryGroups(item, itemRegistry);
 
             switch (matchingGroupItems.size()) {
                 case 0: // Does not belong to a accessory group
@@ -13,11 +13,11 @@
 package org.openhab.io.homekit.internal.accessories;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.openhab.io.homekit.internal.HomekitAccessoryType;
@@ -40,18 +40,24 @@ import com.beowulfe.hap.HomekitAccessory;
 public class HomekitAccessoryFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(HomekitAccessoryFactory.class);
 
+    /**
+     * Creates the accessory for a root item.
+     *
+     * @param taggedItem The root item of the accessory
+     * @param members The members of the root item, if it is an accessory group. Empty otherwise.
+     */
     @SuppressWarnings("deprecation")
-    public static HomekitAccessory create(HomekitTaggedItem taggedItem, ItemRegistry itemRegistry,
-            HomekitAccessoryUpdater updater, HomekitSettings settings)
+    public static HomekitAccessory create(HomekitTaggedItem taggedItem, List<HomekitTaggedItem> members,
+            ItemRegistry itemRegistry, HomekitAccessoryUpdater updater, HomekitSettings settings)
             throws HomekitException, IncompleteAccessoryException {
         LOGGER.debug("Constructing {} of accessoryType {}", taggedItem.getName(), taggedItem.getAccessoryType());
 
-        Map<HomekitCharacteristicType, Item> characteristicItems = getCharacteristicItems(taggedItem);
+        Map<HomekitCharacteristicType, Item> characteristicItems = getCharacteristicItems(taggedItem, members);
 
         switch (taggedItem.getAccessoryType()) {
             case LEAK_SENSOR:
-                HomekitTaggedItem leakSensorAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.LEAK_SENSOR, itemRegistry).orElseThrow(
+                HomekitTaggedItem leakSensorAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.LEAK_SENSOR).orElseThrow(
                                 () -> new HomekitException("Leak accessory group should have a leak sensor in it"));
 
                 return new HomekitLeakSensorImpl(leakSensorAccessory, itemRegistry, updater,
@@ -59,22 +65,22 @@ public class HomekitAccessoryFactory {
             case VALVE:
                 return new HomekitValveImpl(taggedItem, itemRegistry, updater);
             case MOTION_SENSOR:
-                HomekitTaggedItem motionSensorAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.MOTION_SENSOR, itemRegistry)
+                HomekitTaggedItem motionSensorAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.MOTION_SENSOR)
                                 .orElseThrow(() -> new HomekitException(
                                         "Motion sensor accessory group should have a motion sensor item in it"));
                 return new HomekitMotionSensorImpl(motionSensorAccessory, itemRegistry, updater,
                         BatteryStatus.getFromCharacteristics(characteristicItems));
             case OCCUPANCY_SENSOR:
-                HomekitTaggedItem occupancySensorAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.OCCUPANCY_SENSOR, itemRegistry)
+                HomekitTaggedItem occupancySensorAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.OCCUPANCY_SENSOR)
                                 .orElseThrow(() -> new HomekitException(
                                         "Occupancy sensor accessory group should have a occupancy sensor item in it"));
                 return new HomekitOccupancySensorImpl(occupancySensorAccessory, itemRegistry, updater,
                         BatteryStatus.getFromCharacteristics(characteristicItems));
             case CONTACT_SENSOR:
-                HomekitTaggedItem contactSensorAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.CONTACT_SENSOR, itemRegistry)
+                HomekitTaggedItem contactSensorAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.CONTACT_SENSOR)
                                 .orElseThrow(() -> new HomekitException(
                                         "Contact sensor accessory group should have a occupancy sensor item in it"));
                 return new HomekitContactSensorImpl(contactSensorAccessory, itemRegistry, updater,
@@ -86,11 +92,11 @@ public class HomekitAccessoryFactory {
             case COLORFUL_LIGHTBULB:
                 return new HomekitColorfulLightbulbImpl(taggedItem, itemRegistry, updater);
             case THERMOSTAT:
-                HomekitTaggedItem temperatureAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.TEMPERATURE_SENSOR, itemRegistry).orElseThrow(
+                HomekitTaggedItem temperatureAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.TEMPERATURE_SENSOR).orElseThrow(
                                 () -> new HomekitException("Thermostats need a CurrentTemperature accessory"));
                 return new HomekitThermostatImpl(taggedItem, itemRegistry, updater, settings,
-                        temperatureAccessory.getItem(), getCharacteristicItems(taggedItem));
+                        temperatureAccessory.getItem(), characteristicItems);
             case SWITCH:
                 return new HomekitSwitchImpl(taggedItem, itemRegistry, updater);
             case TEMPERATURE_SENSOR:
@@ -101,14 +107,14 @@ public class HomekitAccessoryFactory {
             case WINDOW_COVERING:
                 return new HomekitWindowCoveringImpl(taggedItem, itemRegistry, updater);
             case SMOKE_SENSOR:
-                HomekitTaggedItem smokeSensorAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.SMOKE_SENSOR, itemRegistry).orElseThrow(
+                HomekitTaggedItem smokeSensorAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.SMOKE_SENSOR).orElseThrow(
                                 () -> new HomekitException("Smoke accessory group should have a smoke sensor in it"));
                 return new HomekitSmokeSensorImpl(smokeSensorAccessory, itemRegistry, updater,
                         BatteryStatus.getFromCharacteristics(characteristicItems));
             case CARBON_MONOXIDE_SENSOR:
-                HomekitTaggedItem carbonMonoxideSensorAccessory = getPrimaryAccessory(taggedItem,
-                        HomekitAccessoryType.CARBON_MONOXIDE_SENSOR, itemRegistry)
+                HomekitTaggedItem carbonMonoxideSensorAccessory = getPrimaryAccessory(taggedItem, members,
+                        HomekitAccessoryType.CARBON_MONOXIDE_SENSOR)
                                 .orElseThrow(() -> new HomekitException(
                                         "Carbon monoxide accessory group should have a carbon monoxide sensor in it"));
                 return new HomekitSmokeSensorImpl(carbonMonoxideSensorAccessory, itemRegistry, updater,
@@ -122,17 +128,16 @@ public class HomekitAccessoryFactory {
      * Given an accessory group, return the item in the group tagged as an accessory.
      *
      * @param taggedItem The group item containing our item, or, the accessory item.
+     * @param members The members of the group item
      * @param accessoryType The accessory type for which we're looking
      * @return
      */
     private static Optional<HomekitTaggedItem> getPrimaryAccessory(HomekitTaggedItem taggedItem,
-            HomekitAccessoryType accessoryType, ItemRegistry itemRegistry) {
+            List<HomekitTaggedItem> members, HomekitAccessoryType accessoryType) {
         LOGGER.debug("{}: isGroup? {}, isMember? {}", taggedItem.getName(), taggedItem.isGroup(),
                 taggedItem.isMemberOfAccessoryGroup());
         if (taggedItem.isGroup()) {
-            GroupItem groupItem = (GroupItem) taggedItem.getItem();
-            return groupItem.getMembers().stream().filter(item -> item.hasTag(accessoryType.getTag())).findFirst()
-                    .map(item -> new HomekitTaggedItem(item, itemRegistry));
+            return members.stream().filter(member -> member.getItem().hasTag(accessoryType.getTag())).findFirst();
         } else if (taggedItem.getAccessoryType() == accessoryType) {
             return Optional.of(taggedItem);
         } else {
@@ -140,10 +145,10 @@ public class HomekitAccessoryFactory {
         }
     }
 
-    private static Map<HomekitCharacteristicType, Item> getCharacteristicItems(HomekitTaggedItem taggedItem) {
+    private static Map<HomekitCharacteristicType, Item> getCharacteristicItems(HomekitTaggedItem taggedItem,
+            List<HomekitTaggedItem> members) {
         if (taggedItem.isGroup()) {
-            GroupItem groupItem = (GroupItem) taggedItem.getItem();
-            Map<HomekitCharacteristicType, Item> characteristicItems = groupItem.getMembers().stream()
+            Map<HomekitCharacteristicType, Item> characteristicItems = members.stream().map(HomekitTaggedItem::getItem)
                     .collect(Collectors.toMap(item -> HomekitTaggedItem.findCharacteristicType(item), item -> item));
             characteristicItems.entrySet().removeIf(e -> e.getKey() == null);
             return Collections.unmodifiableMap(characteristicItems);
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.library.items.NumberItem;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.junit.After;
+import org.junit.Test;
+
+import com.beowulfe.hap.HomekitAccessory;
+
+/**
+ * Tests for {@link HomekitAccessoryBuilder}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HomekitAccessoryBuilderTest {
+
+    private final ItemRegistry itemRegistry = mock(ItemRegistry.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private HomekitAccessoryBuilder builder(Item... items) {
+        return new HomekitAccessoryBuilder(Arrays.asList(items), itemRegistry, new HomekitAccessoryUpdater(),
+                new HomekitSettings());
+    }
+
+    private static SwitchItem light(String name) {
+        SwitchItem item = new SwitchItem(name);
+        item.addTag("Lighting");
+        return item;
+    }
+
+    @Test
+    public void testRootAccessories() {
+        SwitchItem light = light("light");
+        SwitchItem untagged = new SwitchItem("untagged");
+        HomekitAccessoryBuilder builder = builder(light, untagged);
+
+        assertNotNull(builder.getRootAccessory("light"));
+        assertNull(builder.getRootAccessory("untagged"));
+        assertNull(builder.getRootAccessory("missing"));
+    }
+
+    @Test
+    public void testFingerprintOfSameItemsIsEqual() {
+        SwitchItem light = light("light");
+        HomekitAccessoryBuilder first = builder(light);
+        HomekitAccessoryBuilder second = builder(light, new SwitchItem("other"));
+
+        assertEquals(first.fingerprint(first.getRootAccessory("light")),
+                second.fingerprint(second.getRootAccessory("light")));
+    }
+
+    @Test
+    public void testFingerprintOfNewItemInstanceDiffers() {
+        HomekitAccessoryBuilder first = builder(light("light"));
+        HomekitAccessoryBuilder second = builder(light("light"));
+
+        HomekitAccessoryBuilder.Fingerprint before = first.fingerprint(first.getRootAccessory("light"));
+        HomekitAccessoryBuilder.Fingerprint after = second.fingerprint(second.getRootAccessory("light"));
+        // the description is the same, but the accessory would still refer to the old item
+        assertEquals(before.toString(), after.toString());
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    public void testFingerprintOfChangedLabelDiffers() {
+        SwitchItem light = light("light");
+        HomekitAccessoryBuilder first = builder(light);
+        HomekitAccessoryBuilder.Fingerprint before = first.fingerprint(first.getRootAccessory("light"));
+
+        light.setLabel("Kitchen");
+        HomekitAccessoryBuilder second = builder(light);
+        assertNotEquals(before, second.fingerprint(second.getRootAccessory("light")));
+    }
+
+    @Test
+    public void testFingerprintOfGroupContainsMembers() {
+        GroupItem thermostat = new GroupItem("thermostat");
+        thermostat.addTag("Thermostat");
+        NumberItem current = new NumberItem("current");
+        current.addTag("CurrentTemperature");
+        current.addGroupName("thermostat");
+        NumberItem target = new NumberItem("target");
+        target.addTag("homekit:TargetTemperature");
+        target.addGroupName("thermostat");
+
+        HomekitAccessoryBuilder first = builder(thermostat, current, target);
+        HomekitAccessoryBuilder.Fingerprint before = first.fingerprint(first.getRootAccessory("thermostat"));
+        // members are no root accessories
+        assertNull(first.getRootAccessory("current"));
+
+        HomekitAccessoryBuilder same = builder(target, current, thermostat);
+        assertEquals(before, same.fingerprint(same.getRootAccessory("thermostat")));
+
+        NumberItem replaced = new NumberItem("target");
+        replaced.addTag("homekit:TargetTemperature");
+        replaced.addGroupName("thermostat");
+        HomekitAccessoryBuilder changed = builder(thermostat, current, replaced);
+        assertNotEquals(before, changed.fingerprint(changed.getRootAccessory("thermostat")));
+    }
+
+    @Test
+    public void testBuild() {
+        HomekitAccessoryBuilder builder = builder(light("light1"), light("light2"));
+        Collection<HomekitTaggedItem> rootItems = Arrays.asList(builder.getRootAccessory("light1"),
+                builder.getRootAccessory("light2"));
+
+        Map<String, HomekitAccessory> accessories = builder.build(rootItems, executor);
+        assertEquals(2, accessories.size());
+        assertEquals(builder.getRootAccessory("light1").getId(), accessories.get("light1").getId());
+    }
+
+    @Test
+    public void testBuildGroupFromSnapshot() {
+        GroupItem leak = new GroupItem("leak");
+        leak.addTag("LeakSensor");
+        SwitchItem sensor = new SwitchItem("sensor");
+        sensor.addTag("LeakSensor");
+        sensor.addGroupName("leak");
+        // the members are only known from the snapshot, the group item itself has none
+        HomekitAccessoryBuilder builder = builder(leak, sensor);
+
+        Map<String, HomekitAccessory> accessories = builder.build(Arrays.asList(builder.getRootAccessory("leak")),
+                executor);
+        assertEquals(1, accessories.size());
+        verify(itemRegistry, never()).get(anyString());
+    }
+}
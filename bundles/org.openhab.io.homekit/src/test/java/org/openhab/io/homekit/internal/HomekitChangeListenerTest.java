@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.homekit.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.beowulfe.hap.HomekitAccessory;
+import com.beowulfe.hap.HomekitRoot;
+
+/**
+ * Tests for the accessory updates of {@link HomekitChangeListener} and the bridge startup of {@link HomekitImpl}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HomekitChangeListenerTest {
+
+    private final ItemRegistry itemRegistry = mock(ItemRegistry.class);
+    private final HomekitRoot bridge = mock(HomekitRoot.class);
+    private HomekitChangeListener listener;
+
+    private final SwitchItem light1 = light("light1");
+    private final SwitchItem light2 = light("light2");
+
+    @Before
+    public void setUp() {
+        listener = new HomekitChangeListener();
+        listener.setBridge(bridge);
+        listener.setSettings(new HomekitSettings());
+    }
+
+    @After
+    public void tearDown() {
+        listener.stop();
+    }
+
+    private static SwitchItem light(String name) {
+        SwitchItem item = new SwitchItem(name);
+        item.addTag("Lighting");
+        return item;
+    }
+
+    private void setItems(Item... items) {
+        when(itemRegistry.getAll()).thenReturn(Arrays.asList(items));
+        for (Item item : items) {
+            when(itemRegistry.get(item.getName())).thenReturn(item);
+        }
+    }
+
+    @Test
+    public void testOnlyChangedAccessoriesArePublished() {
+        setItems(light1, light2);
+        listener.setItemRegistry(itemRegistry);
+        verify(bridge, times(2)).addAccessory(any());
+
+        SwitchItem newLight2 = light("light2");
+        newLight2.setLabel("Kitchen");
+        setItems(light1, newLight2);
+        listener.updated(light2, newLight2);
+
+        // updates are debounced
+        verify(bridge, timeout(5000)).removeAccessory(any());
+        verify(bridge, timeout(5000).times(3)).addAccessory(any());
+        ArgumentCaptor<HomekitAccessory> removed = ArgumentCaptor.forClass(HomekitAccessory.class);
+        verify(bridge).removeAccessory(removed.capture());
+        assertEquals(new HomekitTaggedItem(light2, itemRegistry).getId(), removed.getValue().getId());
+    }
+
+    @Test
+    public void testUnchangedAccessoriesAreKept() {
+        setItems(light1, light2);
+        listener.setItemRegistry(itemRegistry);
+
+        listener.allItemsChanged(Arrays.asList("light1", "light2"));
+
+        verify(bridge, after(2000).never()).removeAccessory(any());
+        verify(bridge, times(2)).addAccessory(any());
+    }
+
+    @Test
+    public void testRemovedAccessory() {
+        setItems(light1, light2);
+        listener.setItemRegistry(itemRegistry);
+
+        setItems(light1);
+        when(itemRegistry.get("light2")).thenReturn(null);
+        listener.removed(light2);
+
+        verify(bridge, timeout(5000)).removeAccessory(any());
+        verify(bridge, times(2)).addAccessory(any());
+    }
+
+    @Test
+    public void testAccessoriesRegisteredBeforeBridgeStart() {
+        HomekitImpl homekit = new HomekitImpl();
+        setItems(light1, light2);
+        homekit.setItemRegistry(itemRegistry);
+
+        homekit.startBridge(bridge);
+
+        InOrder inOrder = inOrder(bridge);
+        inOrder.verify(bridge, times(2)).addAccessory(any());
+        inOrder.verify(bridge).start();
+        verifyNoMoreInteractions(bridge);
+    }
+}
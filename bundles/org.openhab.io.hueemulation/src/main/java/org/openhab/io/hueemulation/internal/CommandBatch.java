@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * Collects the item commands of a group action or a scene recall, before they are handed over to the
+ * {@link CommandDispatcher}.
+ * <p>
+ * Commands that would not change the current item state are not added, but the item is remembered as skipped,
+ * so that the dispatcher can drop an older command for it that is not posted yet. If a command for the same item
+ * is added twice, the last command wins, but the item keeps its position within the batch.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class CommandBatch {
+    /**
+     * A command for an item
+     */
+    public static class ItemCommand {
+        public final Item item;
+        public final Command command;
+
+        ItemCommand(Item item, Command command) {
+            this.item = item;
+            this.command = command;
+        }
+    }
+
+    private final Map<String, ItemCommand> commands = new LinkedHashMap<>();
+    private final Set<String> skippedItems = new LinkedHashSet<>();
+    private int skipped = 0;
+
+    /**
+     * Adds a command for the given item to the batch.
+     *
+     * @param item The item
+     * @param command The command
+     * @return Return false if the item is already in the commanded state and the command got skipped.
+     */
+    public boolean add(Item item, Command command) {
+        if (isCurrentState(item, command)) {
+            commands.remove(item.getName());
+            skippedItems.add(item.getName());
+            ++skipped;
+            return false;
+        }
+        skippedItems.remove(item.getName());
+        commands.put(item.getName(), new ItemCommand(item, command));
+        return true;
+    }
+
+    /**
+     * Adds all commands of the given batch, including its count of skipped commands.
+     *
+     * @param batch The other batch
+     */
+    public void addAll(CommandBatch batch) {
+        batch.skippedItems.forEach(name -> {
+            commands.remove(name);
+            skippedItems.add(name);
+        });
+        batch.commands.values().forEach(c -> {
+            skippedItems.remove(c.item.getName());
+            commands.put(c.item.getName(), c);
+        });
+        skipped += batch.skipped;
+    }
+
+    /**
+     * Returns the commands in the order they were added.
+     */
+    public Collection<ItemCommand> getCommands() {
+        return commands.values();
+    }
+
+    /**
+     * Returns the amount of commands that were skipped, because the item was already in the commanded state.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns the names of the items whose last command was skipped, because the item was already in the commanded
+     * state.
+     */
+    public Set<String> getSkippedItems() {
+        return skippedItems;
+    }
+
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Returns true if the item state, converted to the type of the command, equals the command.
+     * For example an ON command is a no-op for a Color item with a brightness of 50%.
+     */
+    static boolean isCurrentState(Item item, Command command) {
+        if (!(command instanceof State)) {
+            return false;
+        }
+        return command.equals(item.getStateAs(((State) command).getClass()));
+    }
+}
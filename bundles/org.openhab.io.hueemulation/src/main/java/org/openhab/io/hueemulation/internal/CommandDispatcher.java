@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.items.events.ItemEventFactory;
+import org.openhab.io.hueemulation.internal.CommandBatch.ItemCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Posts the commands of {@link CommandBatch}es to the event bus. All commands are posted in the order
+ * they were submitted, with a maximum rate of commands per second. A Hue client recalling a scene with
+ * dozens of lights would otherwise flood the event bus and the bindings (Zigbee, KNX, ...) behind the items.
+ * <p>
+ * The first command of a batch is posted immediately, if no other batch is in progress.
+ * <p>
+ * If an item still has a command waiting when a new batch with a command for that item is submitted, the waiting
+ * command is replaced and keeps its position. A client dimming a group step by step thus does not queue up every
+ * intermediate step. A waiting command is dropped as well, if the new batch skipped the command for that item as
+ * a no-op. Otherwise a client switching a group OFF and ON again would end with the lights OFF, because ON is a
+ * no-op for the lights that did not receive their OFF yet.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class CommandDispatcher {
+    private static class QueuedEvent {
+        final Event event;
+        final EventPublisher eventPublisher;
+
+        QueuedEvent(Event event, EventPublisher eventPublisher) {
+            this.event = event;
+            this.eventPublisher = eventPublisher;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(CommandDispatcher.class);
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, QueuedEvent> queue = new LinkedHashMap<>();
+    private int commandsPerSecond;
+    private boolean dispatching = false;
+    private @Nullable ScheduledFuture<?> nextDispatch;
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param scheduler The scheduler for the paced commands
+     * @param commandsPerSecond The maximum amount of commands per second. 0 disables pacing.
+     */
+    public CommandDispatcher(ScheduledExecutorService scheduler, int commandsPerSecond) {
+        this.scheduler = scheduler;
+        this.commandsPerSecond = commandsPerSecond;
+    }
+
+    public synchronized void setCommandsPerSecond(int commandsPerSecond) {
+        this.commandsPerSecond = commandsPerSecond;
+    }
+
+    /**
+     * Queues all commands of the given batch.
+     *
+     * @param batch The commands
+     * @param eventPublisher The event publisher to post the commands to
+     */
+    public void submit(CommandBatch batch, EventPublisher eventPublisher) {
+        synchronized (this) {
+            int replaced = 0;
+            int dropped = 0;
+            for (String itemName : batch.getSkippedItems()) {
+                if (queue.remove(itemName) != null) {
+                    ++dropped;
+                }
+            }
+            for (ItemCommand c : batch.getCommands()) {
+                QueuedEvent previous = queue.put(c.item.getName(), new QueuedEvent(
+                        ItemEventFactory.createCommandEvent(c.item.getUID(), c.command, "hueemulation"),
+                        eventPublisher));
+                if (previous != null) {
+                    ++replaced;
+                }
+            }
+            if (batch.getSkipped() > 0) {
+                logger.debug("Skipped {} commands that would not change an item state", batch.getSkipped());
+            }
+            if (replaced > 0) {
+                logger.debug("Replaced {} commands that were not posted yet", replaced);
+            }
+            if (dropped > 0) {
+                logger.debug("Dropped {} waiting commands, the items are already in the requested state", dropped);
+            }
+            if (dispatching || queue.isEmpty()) {
+                return;
+            }
+            dispatching = true;
+        }
+        dispatchNext();
+    }
+
+    /**
+     * Discards all commands that are not posted yet.
+     */
+    public synchronized void cancel() {
+        queue.clear();
+        ScheduledFuture<?> future = nextDispatch;
+        if (future != null) {
+            future.cancel(false);
+            nextDispatch = null;
+        }
+        dispatching = false;
+    }
+
+    /**
+     * Returns the amount of commands that are not posted yet.
+     */
+    public synchronized int getPending() {
+        return queue.size();
+    }
+
+    private void dispatchNext() {
+        List<QueuedEvent> due = new ArrayList<>();
+        long delayInMicros;
+        synchronized (this) {
+            if (commandsPerSecond > 0) {
+                Iterator<QueuedEvent> iterator = queue.values().iterator();
+                if (iterator.hasNext()) {
+                    due.add(iterator.next());
+                    iterator.remove();
+                }
+                delayInMicros = 1000000 / commandsPerSecond;
+            } else {
+                due.addAll(queue.values());
+                queue.clear();
+                delayInMicros = 0;
+            }
+        }
+
+        for (QueuedEvent e : due) {
+            logger.debug("sending {} to {}", e.event.getPayload(), e.event.getTopic());
+            try {
+                e.eventPublisher.post(e.event);
+            } catch (RuntimeException ex) {
+                logger.warn("Cannot post command event {}", e.event, ex);
+            }
+        }
+
+        synchronized (this) {
+            if (queue.isEmpty()) {
+                dispatching = false;
+                nextDispatch = null;
+                return;
+            }
+            nextDispatch = scheduler.schedule(this::dispatchNext, delayInMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+}
@@ -90,6 +90,11 @@ public class ConfigStore {
     private @Nullable ScheduledFuture<?> pairingOffFuture;
     private @Nullable ScheduledFuture<?> writeUUIDFuture;
 
+    /**
+     * Posts the item commands of group actions and scene recalls with the configured rate
+     */
+    public final CommandDispatcher commandDispatcher;
+
     /**
      * This is the main gson instance, to be obtained by all components that operate on the dto data fields
      */
@@ -126,6 +131,7 @@ public class ConfigStore {
 
     public ConfigStore() {
         scheduler = ThreadPoolManager.getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON);
+        commandDispatcher = new CommandDispatcher(scheduler, HueEmulationConfig.DEFAULT_COMMANDS_PER_SECOND);
     }
 
     /**
@@ -141,6 +147,7 @@ public class ConfigStore {
         this.configAdmin = configAdmin;
         this.metadataRegistry = metadataRegistry;
         this.scheduler = scheduler;
+        this.commandDispatcher = new CommandDispatcher(scheduler, HueEmulationConfig.DEFAULT_COMMANDS_PER_SECOND);
     }
 
     @Activate
@@ -189,6 +196,8 @@ public class ConfigStore {
         ignoreItemsFilter = Collections.unmodifiableSet(
                 Stream.of(config.ignoreItemsWithTags.split(",")).map(String::trim).collect(Collectors.toSet()));
 
+        commandDispatcher.setCommandsPerSecond(config.commandsPerSecond);
+
         // Use either the user configured
         InetAddress configuredAddress = null;
         int networkPrefixLength = 24; // Default for most networks: 255.255.255.0
@@ -256,6 +265,7 @@ public class ConfigStore {
         if (future != null) {
             future.cancel(false);
         }
+        commandDispatcher.cancel();
     }
 
     protected void determineHighestAssignedHueID() {
@@ -49,6 +49,13 @@ public class HueEmulationConfig {
     /** Comma separated list of tags */
     public String ignoreItemsWithTags = "internal";
 
+    public static final int DEFAULT_COMMANDS_PER_SECOND = 20;
+    /**
+     * Group actions and scene recalls are posted as individual item commands with this maximum rate.
+     * 0 disables pacing.
+     */
+    public int commandsPerSecond = DEFAULT_COMMANDS_PER_SECOND;
+
     public static final String CONFIG_UUID = "uuid";
     public String uuid = "";
     public String devicename = "openHAB";
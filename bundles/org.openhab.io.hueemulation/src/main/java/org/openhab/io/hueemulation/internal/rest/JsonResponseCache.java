@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal.rest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Caches the serialized JSON of hue API entries (lights, groups), one fragment per hue ID.
+ * A list response is assembled from the fragments and is itself cached, until an entry is invalidated.
+ * <p>
+ * A fragment is only valid for the entry object it was created for. If the data store map contains
+ * another object for a hue ID, the fragment is created again. Changes of the underlying item, like
+ * state changes, need to be announced via {@link #invalidateItem(String)}.
+ * <p>
+ * Each assembled list response has a version, which is used as HTTP entity tag.
+ *
+ * @author agent - Initial contribution
+ *
+ * @param <T> The entry type
+ */
+@NonNullByDefault
+public class JsonResponseCache<T> {
+    private static class Fragment {
+        final Object entry;
+        final String json;
+
+        Fragment(Object entry, String json) {
+            this.entry = entry;
+            this.json = json;
+        }
+    }
+
+    /**
+     * An assembled list response and its entity tag.
+     */
+    public static class CachedJson {
+        public final String json;
+        public final String etag;
+
+        CachedJson(String json, String etag) {
+            this.json = json;
+            this.etag = etag;
+        }
+    }
+
+    private final Function<T, String> serializer;
+    private final Function<String, String> keySerializer;
+    private final Function<T, @Nullable String> itemName;
+    // Entity tags must change after a restart, even if the version starts at 0 again
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    private final Map<String, Fragment> fragments = new HashMap<>();
+    private final Map<String, String> itemToId = new HashMap<>();
+    private long version = 0;
+    private @Nullable CachedJson list;
+    private int listSize;
+
+    /**
+     * Creates a cache.
+     *
+     * @param serializer Serializes a single entry
+     * @param keySerializer Serializes a hue ID to a JSON string, including quotes
+     * @param itemName Returns the name of the item an entry is based on, if any
+     */
+    public JsonResponseCache(Function<T, String> serializer, Function<String, String> keySerializer,
+            Function<T, @Nullable String> itemName) {
+        this.serializer = serializer;
+        this.keySerializer = keySerializer;
+        this.itemName = itemName;
+    }
+
+    /**
+     * Returns the JSON of a single entry.
+     *
+     * @param id The hue ID
+     * @param entry The current entry of the data store
+     */
+    public synchronized String get(String id, T entry) {
+        Fragment fragment = fragments.get(id);
+        if (fragment == null || fragment.entry != entry) {
+            fragment = createFragment(id, entry);
+            list = null;
+        }
+        return fragment.json;
+    }
+
+    /**
+     * Returns the JSON object of all given entries. Only invalidated or new entries are serialized again.
+     *
+     * @param entries The entries of the data store by hue ID
+     */
+    public synchronized CachedJson getAll(Map<String, T> entries) {
+        boolean changed = false;
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            Fragment fragment = fragments.get(entry.getKey());
+            if (fragment == null || fragment.entry != entry.getValue()) {
+                createFragment(entry.getKey(), entry.getValue());
+                changed = true;
+            }
+        }
+
+        CachedJson list = this.list;
+        if (list != null && !changed && listSize == entries.size()) {
+            return list;
+        }
+
+        if (fragments.size() > entries.size()) {
+            removeStaleFragments(entries);
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        for (String id : entries.keySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(keySerializer.apply(id)).append(':').append(fragments.get(id).json);
+        }
+        json.append('}');
+
+        ++version;
+        list = new CachedJson(json.toString(), epoch + "-" + version);
+        this.list = list;
+        listSize = entries.size();
+        return list;
+    }
+
+    /**
+     * Invalidates the entries that are based on the given item.
+     *
+     * @param itemName The item name
+     */
+    public synchronized void invalidateItem(String itemName) {
+        String id = itemToId.remove(itemName);
+        if (id != null) {
+            fragments.remove(id);
+            list = null;
+        }
+    }
+
+    /**
+     * Invalidates the entry with the given hue ID.
+     *
+     * @param id The hue ID
+     */
+    public synchronized void invalidate(String id) {
+        if (fragments.remove(id) != null) {
+            list = null;
+        }
+    }
+
+    /**
+     * Invalidates all entries.
+     */
+    public synchronized void invalidateAll() {
+        fragments.clear();
+        itemToId.clear();
+        list = null;
+    }
+
+    private Fragment createFragment(String id, T entry) {
+        Fragment fragment = new Fragment(entry, serializer.apply(entry));
+        fragments.put(id, fragment);
+        String name = itemName.apply(entry);
+        if (name != null) {
+            itemToId.put(name, id);
+        }
+        return fragment;
+    }
+
+    private void removeStaleFragments(Map<String, T> entries) {
+        for (Iterator<String> it = fragments.keySet().iterator(); it.hasNext();) {
+            if (!entries.containsKey(it.next())) {
+                it.remove();
+            }
+        }
+        itemToId.values().removeIf(id -> !fragments.containsKey(id));
+    }
+}
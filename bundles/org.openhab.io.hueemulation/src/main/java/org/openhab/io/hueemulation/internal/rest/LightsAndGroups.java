@@ -13,6 +13,8 @@
 package org.openhab.io.hueemulation.internal.rest;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -27,30 +29,43 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.smarthome.core.common.registry.RegistryChangeListener;
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.events.EventSubscriber;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
+import org.eclipse.smarthome.core.items.events.ItemStateChangedEvent;
 import org.eclipse.smarthome.core.library.CoreItemFactory;
 import org.eclipse.smarthome.core.types.Command;
+import org.openhab.io.hueemulation.internal.CommandBatch;
 import org.openhab.io.hueemulation.internal.ConfigStore;
 import org.openhab.io.hueemulation.internal.DeviceType;
 import org.openhab.io.hueemulation.internal.NetworkUtils;
 import org.openhab.io.hueemulation.internal.StateUtils;
+import org.openhab.io.hueemulation.internal.dto.AbstractHueState;
 import org.openhab.io.hueemulation.internal.dto.HueGroupEntry;
 import org.openhab.io.hueemulation.internal.dto.HueLightEntry;
 import org.openhab.io.hueemulation.internal.dto.HueNewLights;
+import org.openhab.io.hueemulation.internal.dto.HueStateColorBulb;
 import org.openhab.io.hueemulation.internal.dto.changerequest.HueChangeRequest;
 import org.openhab.io.hueemulation.internal.dto.changerequest.HueStateChange;
 import org.openhab.io.hueemulation.internal.dto.response.HueResponse;
+import org.openhab.io.hueemulation.internal.dto.response.HueResponse.HueErrorMessage;
+import org.openhab.io.hueemulation.internal.dto.response.HueSuccessGeneric;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -93,12 +108,13 @@ import io.swagger.annotations.ApiResponses;
  * @author David Graeff - Initial contribution
  * @author Florian Schmidt - Removed base type restriction from Group items
  */
-@Component(immediate = false, service = { LightsAndGroups.class }, property = "com.eclipsesource.jaxrs.publish=false")
+@Component(immediate = false, service = { LightsAndGroups.class,
+        EventSubscriber.class }, property = "com.eclipsesource.jaxrs.publish=false")
 @NonNullByDefault
 @Path("")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
-public class LightsAndGroups implements RegistryChangeListener<Item> {
+public class LightsAndGroups implements RegistryChangeListener<Item>, EventSubscriber {
     private final Logger logger = LoggerFactory.getLogger(LightsAndGroups.class);
     private static final String ITEM_TYPE_GROUP = "Group";
     private static final Set<String> ALLOWED_ITEM_TYPES = Stream.of(CoreItemFactory.COLOR, CoreItemFactory.DIMMER,
@@ -112,6 +128,17 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
     protected @NonNullByDefault({}) ItemRegistry itemRegistry;
     @Reference(policy = ReferencePolicy.DYNAMIC, cardinality = ReferenceCardinality.OPTIONAL)
     protected volatile @NonNullByDefault({}) EventPublisher eventPublisher;
+    @Reference(policy = ReferencePolicy.DYNAMIC, cardinality = ReferenceCardinality.OPTIONAL)
+    protected volatile @Nullable Scenes scenes;
+
+    /**
+     * Hue clients poll the lights and groups every few seconds. The serialized entries are cached and
+     * invalidated on item state changes and item registry changes.
+     */
+    private final JsonResponseCache<HueLightEntry> lightsCache = new JsonResponseCache<>(e -> cs.gson.toJson(e),
+            id -> cs.gson.toJson(id), e -> e.item != null ? e.item.getName() : null);
+    private final JsonResponseCache<HueGroupEntry> groupsCache = new JsonResponseCache<>(e -> cs.gson.toJson(e),
+            id -> cs.gson.toJson(id), e -> e.groupItem != null ? e.groupItem.getName() : null);
 
     /**
      * Registers to the {@link ItemRegistry} and enumerates currently existing items.
@@ -119,6 +146,8 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
     @Activate
     protected void activate() {
         cs.ds.resetGroupsAndLights();
+        lightsCache.invalidateAll();
+        groupsCache.invalidateAll();
 
         itemRegistry.removeRegistryChangeListener(this);
         itemRegistry.addRegistryChangeListener(this);
@@ -136,8 +165,32 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
         itemRegistry.removeRegistryChangeListener(this);
     }
 
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return Collections.singleton(ItemStateChangedEvent.TYPE);
+    }
+
+    @Override
+    public @Nullable EventFilter getEventFilter() {
+        return null;
+    }
+
+    /**
+     * Invalidates the cached entries of items that changed their state.
+     */
+    @Override
+    public void receive(Event event) {
+        if (event instanceof ItemStateChangedEvent) {
+            String itemName = ((ItemStateChangedEvent) event).getItemName();
+            lightsCache.invalidateItem(itemName);
+            groupsCache.invalidateItem(itemName);
+        }
+    }
+
     @Override
     public synchronized void added(Item newElement) {
+        // Group members might have changed
+        groupsCache.invalidateAll();
         if (!(newElement instanceof GenericItem)) {
             return;
         }
@@ -188,12 +241,15 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
     private void updateGroup0() {
         cs.ds.groups.get("0").lights = cs.ds.lights.keySet().stream().map(v -> String.valueOf(v))
                 .collect(Collectors.toList());
+        groupsCache.invalidate("0");
     }
 
     @Override
     public synchronized void removed(Item element) {
         String hueID = cs.mapItemUIDtoHueID(element);
         logger.debug("Remove item {}", hueID);
+        lightsCache.invalidate(hueID);
+        groupsCache.invalidateAll();
         cs.ds.lights.remove(hueID);
         cs.ds.groups.remove(hueID);
         updateGroup0();
@@ -211,6 +267,8 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
         GenericItem element = (GenericItem) newElement;
 
         String hueID = cs.mapItemUIDtoHueID(element);
+        lightsCache.invalidate(hueID);
+        groupsCache.invalidateAll();
 
         HueGroupEntry hueGroup = cs.ds.groups.get(hueID);
         if (hueGroup != null) {
@@ -243,12 +301,12 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
     @Path("{username}/lights")
     @ApiOperation(value = "Return all lights")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "OK") })
-    public Response getAllLightsApi(@Context UriInfo uri,
+    public Response getAllLightsApi(@Context UriInfo uri, @Context Request request,
             @PathParam("username") @ApiParam(value = "username") String username) {
         if (!userManagement.authorizeUser(username)) {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.UNAUTHORIZED, "Not Authorized");
         }
-        return Response.ok(cs.gson.toJson(cs.ds.lights)).build();
+        return cachedResponse(request, lightsCache.getAll(cs.ds.lights));
     }
 
     @GET
@@ -285,7 +343,8 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
         if (!userManagement.authorizeUser(username)) {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.UNAUTHORIZED, "Not Authorized");
         }
-        return Response.ok(cs.gson.toJson(cs.ds.lights.get(id))).build();
+        HueLightEntry hueDevice = cs.ds.lights.get(id);
+        return Response.ok(hueDevice != null ? lightsCache.get(id, hueDevice) : cs.gson.toJson(null)).build();
     }
 
     @SuppressWarnings({ "null", "unused" })
@@ -397,8 +456,9 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.UNAUTHORIZED, "Not Authorized");
         }
         HueGroupEntry hueDevice = cs.ds.groups.get(id);
-        GroupItem groupItem = hueDevice.groupItem;
-        if (hueDevice == null || groupItem == null) {
+        GroupItem groupItem = hueDevice != null ? hueDevice.groupItem : null;
+        // Group 0 (all lights) is not backed by a group item
+        if (hueDevice == null || (groupItem == null && !"0".equals(id))) {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.NOT_AVAILABLE, "Group not existing");
         }
 
@@ -409,19 +469,56 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
         }
 
         // First synchronize the internal state information with the framework
-        hueDevice.action = StateUtils.colorStateFromItemState(groupItem.getState(), hueDevice.deviceType);
+        AbstractHueState groupState;
+        if (groupItem != null) {
+            hueDevice.action = StateUtils.colorStateFromItemState(groupItem.getState(), hueDevice.deviceType);
+            groupsCache.invalidate(id);
+            groupState = hueDevice.action;
+        } else {
+            groupState = new HueStateColorBulb(false);
+        }
 
         List<HueResponse> responses = new ArrayList<>();
-        Command command = StateUtils.computeCommandByState(responses, "/groups/" + id + "/state/", hueDevice.action,
-                state);
+        CommandBatch batch = new CommandBatch();
 
-        // If a command could be created, post it to the framework now
+        String sceneId = state.scene;
+        if (sceneId != null) {
+            Scenes scenes = this.scenes;
+            if (scenes != null && scenes.addSceneCommands(sceneId, batch)) {
+                responses.add(new HueResponse(new HueSuccessGeneric(sceneId, "/groups/" + id + "/action/scene")));
+            } else {
+                responses.add(new HueResponse(new HueErrorMessage(HueResponse.NOT_AVAILABLE,
+                        "/groups/" + id + "/action/scene", "Scene not existing")));
+            }
+        }
+
+        Command command = StateUtils.computeCommandByState(responses, "/groups/" + id + "/state/", groupState, state);
+
+        // If a command could be created, compute the commands for all lights of the group
         if (command != null) {
-            logger.debug("sending {} to {}", command, id);
+            if (groupItem == null) {
+                addGroupCommands(batch, cs.ds.lights.values().stream().map(l -> l.item).collect(Collectors.toList()),
+                        null, state);
+            } else if (groupItem.getAllMembers().isEmpty()) {
+                batch.add(groupItem, command);
+            } else {
+                CommandBatch memberBatch = new CommandBatch();
+                addGroupCommands(memberBatch, groupItem.getAllMembers(), hueDevice.deviceType, state);
+                if (batch.isEmpty() && memberBatch.getSkipped() == 0) {
+                    // No light would be skipped: A single group command lets the binding switch the group at once
+                    batch.add(groupItem, command);
+                } else {
+                    batch.addAll(memberBatch);
+                }
+            }
+        }
+
+        // Post all commands to the framework now
+        if (!batch.isEmpty()) {
             if (eventPublisher != null) {
-                eventPublisher.post(ItemEventFactory.createCommandEvent(groupItem.getUID(), command, "hueemulation"));
+                cs.commandDispatcher.submit(batch, eventPublisher);
             } else {
-                logger.warn("No event publisher. Cannot post item '{}' command!", groupItem.getUID());
+                logger.warn("No event publisher. Cannot post commands of group '{}'!", id);
             }
         }
 
@@ -429,16 +526,42 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
         }.getType())).build();
     }
 
+    /**
+     * Adds a command for each light of a group to the batch.
+     * Each command is computed on the state of the respective light, because relative changes
+     * like "bri_inc" depend on it. Lights that are already in the target state are skipped by the batch.
+     *
+     * @param batch The command batch
+     * @param members The lights of the group
+     * @param groupType The device type of the group, used for lights that are not exposed themselves
+     * @param state The state change request
+     */
+    private void addGroupCommands(CommandBatch batch, Collection<Item> members, @Nullable DeviceType groupType,
+            HueStateChange state) {
+        List<HueResponse> memberResponses = new ArrayList<>();
+        for (Item member : members) {
+            DeviceType deviceType = StateUtils.determineTargetType(cs, member);
+            if (deviceType == null) {
+                deviceType = groupType;
+            }
+            AbstractHueState memberState = StateUtils.colorStateFromItemState(member.getState(), deviceType);
+            Command command = StateUtils.computeCommandByState(memberResponses, "", memberState, state);
+            if (command != null) {
+                batch.add(member, command);
+            }
+        }
+    }
+
     @GET
     @Path("{username}/groups")
     @ApiOperation(value = "Return all groups")
     @ApiResponses(value = { @ApiResponse(code = 200, message = "OK") })
-    public Response getAllGroupsApi(@Context UriInfo uri,
+    public Response getAllGroupsApi(@Context UriInfo uri, @Context Request request,
             @PathParam("username") @ApiParam(value = "username") String username) {
         if (!userManagement.authorizeUser(username)) {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.UNAUTHORIZED, "Not Authorized");
         }
-        return Response.ok(cs.gson.toJson(cs.ds.groups)).build();
+        return cachedResponse(request, groupsCache.getAll(cs.ds.groups));
     }
 
     @GET
@@ -451,7 +574,8 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
         if (!userManagement.authorizeUser(username)) {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.UNAUTHORIZED, "Not Authorized");
         }
-        return Response.ok(cs.gson.toJson(cs.ds.groups.get(id))).build();
+        HueGroupEntry hueGroup = cs.ds.groups.get(id);
+        return Response.ok(hueGroup != null ? groupsCache.get(id, hueGroup) : cs.gson.toJson(null)).build();
     }
 
     @SuppressWarnings({ "null", "unused" })
@@ -522,4 +646,16 @@ public class LightsAndGroups implements RegistryChangeListener<Item> {
             return NetworkUtils.singleError(cs.gson, uri, HueResponse.NOT_AVAILABLE, "Group does not exist");
         }
     }
+
+    /**
+     * Returns the cached list response or "304 Not Modified", if the client already has this version.
+     */
+    private Response cachedResponse(Request request, JsonResponseCache.CachedJson cached) {
+        EntityTag etag = new EntityTag(cached.etag);
+        ResponseBuilder builder = request.evaluatePreconditions(etag);
+        if (builder == null) {
+            builder = Response.ok(cached.json);
+        }
+        return builder.tag(etag).build();
+    }
 }
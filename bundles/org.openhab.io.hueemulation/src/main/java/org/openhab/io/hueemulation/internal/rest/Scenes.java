@@ -44,11 +44,13 @@ import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.TypeParser;
 import org.openhab.core.automation.Action;
 import org.openhab.core.automation.Rule;
 import org.openhab.core.automation.RuleRegistry;
 import org.openhab.core.automation.util.ModuleBuilder;
 import org.openhab.core.automation.util.RuleBuilder;
+import org.openhab.io.hueemulation.internal.CommandBatch;
 import org.openhab.io.hueemulation.internal.ConfigStore;
 import org.openhab.io.hueemulation.internal.NetworkUtils;
 import org.openhab.io.hueemulation.internal.StateUtils;
@@ -227,6 +229,42 @@ public class Scenes implements RegistryChangeListener<Rule> {
         return NetworkUtils.singleSuccess(cs.gson, "/scenes/" + id + " deleted.");
     }
 
+    /**
+     * Adds the item commands of a scene to the given batch, for recalling the scene.
+     *
+     * @param id The scene id
+     * @param batch The command batch
+     * @return Return false if the scene does not exist.
+     */
+    public boolean addSceneCommands(String id, CommandBatch batch) {
+        Rule scene = ruleRegistry.get(id);
+        if (scene == null || !scene.getTags().contains("scene")) {
+            return false;
+        }
+
+        for (Action a : scene.getActions()) {
+            if (!a.getTypeUID().equals("core.ItemCommandAction")) {
+                continue;
+            }
+            ItemCommandActionConfig config = a.getConfiguration().as(ItemCommandActionConfig.class);
+            Item item;
+            try {
+                item = itemRegistry.getItem(config.itemName);
+            } catch (ItemNotFoundException e) {
+                logger.warn("Rule {} is referring to a non existing item {}", scene.getName(), config.itemName);
+                continue;
+            }
+            Command command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), config.command);
+            if (command == null) {
+                logger.warn("Rule {} has an invalid command {} for item {}", scene.getName(), config.command,
+                        config.itemName);
+                continue;
+            }
+            batch.add(item, command);
+        }
+        return true;
+    }
+
     protected static Action actionFromState(String itemID, State state) {
         final Configuration actionConfig = new Configuration();
         actionConfig.put("itemName", itemID);
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.hueemulation.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.library.items.DimmerItem;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests for {@link CommandDispatcher}.
+ *
+ * @author agent - Initial contribution
+ */
+public class CommandDispatcherTests {
+    private ScheduledExecutorService scheduler;
+    private EventPublisher eventPublisher;
+    private CommandDispatcher dispatcher;
+
+    private final DimmerItem light1 = new DimmerItem("light1");
+    private final DimmerItem light2 = new DimmerItem("light2");
+    private final DimmerItem light3 = new DimmerItem("light3");
+
+    @Before
+    public void setUp() {
+        scheduler = mock(ScheduledExecutorService.class);
+        eventPublisher = mock(EventPublisher.class);
+        dispatcher = new CommandDispatcher(scheduler, 10);
+    }
+
+    private CommandBatch batch(DimmerItem... items) {
+        CommandBatch batch = new CommandBatch();
+        for (int i = 0; i < items.length; i++) {
+            batch.add(items[i], new PercentType(10 * (i + 1)));
+        }
+        return batch;
+    }
+
+    private void runScheduled() {
+        ArgumentCaptor<Runnable> next = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(next.capture(), eq(100000L), eq(TimeUnit.MICROSECONDS));
+        reset(scheduler);
+        next.getValue().run();
+    }
+
+    private List<Event> postedEvents(int count) {
+        ArgumentCaptor<Event> events = ArgumentCaptor.forClass(Event.class);
+        verify(eventPublisher, times(count)).post(events.capture());
+        return events.getAllValues();
+    }
+
+    @Test
+    public void firstCommandPostedImmediatelyOthersPaced() {
+        dispatcher.submit(batch(light1, light2), eventPublisher);
+
+        assertThat(postedEvents(1).get(0).getTopic().contains("light1"), is(true));
+        assertThat(dispatcher.getPending(), is(1));
+
+        runScheduled();
+        assertThat(postedEvents(2).get(1).getTopic().contains("light2"), is(true));
+        assertThat(dispatcher.getPending(), is(0));
+    }
+
+    @Test
+    public void waitingCommandReplacedByNewerCommand() {
+        dispatcher.submit(batch(light1, light2, light3), eventPublisher);
+        assertThat(dispatcher.getPending(), is(2));
+
+        // light2 gets 30% instead of 20% and keeps its position before light3
+        CommandBatch newer = new CommandBatch();
+        newer.add(light2, new PercentType(30));
+        dispatcher.submit(newer, eventPublisher);
+        assertThat(dispatcher.getPending(), is(2));
+
+        runScheduled();
+        runScheduled();
+        List<Event> events = postedEvents(3);
+        assertThat(events.get(1).getTopic().contains("light2"), is(true));
+        assertThat(events.get(1).getPayload().contains("30"), is(true));
+        assertThat(events.get(2).getTopic().contains("light3"), is(true));
+    }
+
+    @Test
+    public void unpacedCommandsPostedAtOnce() {
+        dispatcher.setCommandsPerSecond(0);
+        dispatcher.submit(batch(light1, light2, light3), eventPublisher);
+
+        assertThat(postedEvents(3).size(), is(3));
+        assertThat(dispatcher.getPending(), is(0));
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void waitingCommandDroppedIfNewerCommandIsNoop() {
+        light1.setState(OnOffType.ON);
+        light2.setState(OnOffType.ON);
+        light3.setState(OnOffType.ON);
+
+        CommandBatch off = new CommandBatch();
+        off.add(light1, OnOffType.OFF);
+        off.add(light2, OnOffType.OFF);
+        off.add(light3, OnOffType.OFF);
+        dispatcher.submit(off, eventPublisher);
+        assertThat(dispatcher.getPending(), is(2));
+        // light1 got its OFF command, light2 and light3 are still ON and wait for theirs
+        light1.setState(OnOffType.OFF);
+
+        CommandBatch on = new CommandBatch();
+        on.add(light1, OnOffType.ON);
+        on.add(light2, OnOffType.ON);
+        on.add(light3, OnOffType.ON);
+        assertThat(new ArrayList<>(on.getSkippedItems()), is(Arrays.asList("light2", "light3")));
+        dispatcher.submit(on, eventPublisher);
+        assertThat(dispatcher.getPending(), is(1));
+
+        runScheduled();
+        List<Event> events = postedEvents(2);
+        assertThat(events.get(1).getTopic().contains("light1"), is(true));
+        assertThat(events.get(1).getPayload().contains("ON"), is(true));
+        assertThat(dispatcher.getPending(), is(0));
+    }
+}
@@ -18,10 +18,13 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -29,14 +32,18 @@ import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.events.ItemCommandEvent;
+import org.eclipse.smarthome.core.items.events.ItemEventFactory;
 import org.eclipse.smarthome.core.library.items.ColorItem;
 import org.eclipse.smarthome.core.library.items.SwitchItem;
 import org.eclipse.smarthome.core.library.types.HSBType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.Command;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.core.automation.util.RuleBuilder;
 import org.openhab.io.hueemulation.internal.ConfigStore;
 import org.openhab.io.hueemulation.internal.DeviceType;
 import org.openhab.io.hueemulation.internal.dto.HueGroupEntry;
@@ -44,6 +51,7 @@ import org.openhab.io.hueemulation.internal.dto.HueLightEntry;
 import org.openhab.io.hueemulation.internal.dto.HueStateColorBulb;
 import org.openhab.io.hueemulation.internal.dto.HueStatePlug;
 import org.openhab.io.hueemulation.internal.rest.mocks.DummyItemRegistry;
+import org.openhab.io.hueemulation.internal.rest.mocks.DummyRuleRegistry;
 
 /**
  * Tests for {@link LightsAndGroups}.
@@ -331,6 +339,128 @@ public class LightsAndGroupsTests {
         assertThat(body, containsString("color"));
     }
 
+    @Test
+    public void allLightsCachedWithEntityTag() throws IOException {
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request().get();
+        assertEquals(200, response.getStatus());
+        EntityTag etag = response.getEntityTag();
+        assertThat(etag, is(notNullValue()));
+        assertThat(response.readEntity(String.class), containsString("\"on\":false"));
+
+        // Nothing changed: The client already has the current version
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request()
+                .header(HttpHeaders.IF_NONE_MATCH, etag.toString()).get();
+        assertEquals(304, response.getStatus());
+
+        // A state change invalidates the light
+        HueLightEntry hueDevice = cs.ds.lights.get("1");
+        hueDevice.item.setState(OnOffType.ON);
+        subject.receive(ItemEventFactory.createStateChangedEvent("switch", OnOffType.ON, OnOffType.OFF));
+
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/lights").request()
+                .header(HttpHeaders.IF_NONE_MATCH, etag.toString()).get();
+        assertEquals(200, response.getStatus());
+        assertThat(response.getEntityTag(), is(not(etag)));
+        assertThat(response.readEntity(String.class), containsString("\"on\":true"));
+    }
+
+    @Test
+    public void allGroupsFollowDataStore() throws IOException {
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups").request().get();
+        assertEquals(200, response.getStatus());
+        EntityTag etag = response.getEntityTag();
+        assertThat(response.readEntity(String.class), not(containsString("newgroup")));
+
+        // Entries that are added to the data store directly are picked up as well
+        cs.ds.groups.put("11", new HueGroupEntry("newgroup", new GroupItem("newgroup"), DeviceType.SwitchType));
+
+        response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups").request()
+                .header(HttpHeaders.IF_NONE_MATCH, etag.toString()).get();
+        assertEquals(200, response.getStatus());
+        assertThat(response.readEntity(String.class), containsString("newgroup"));
+    }
+
+    @Test
+    public void groupActionOnlyCommandsChangedLights() throws IOException {
+        SwitchItem lightOn = new SwitchItem("lightOn");
+        lightOn.setState(OnOffType.ON);
+        SwitchItem lightOff = new SwitchItem("lightOff");
+        lightOff.setState(OnOffType.OFF);
+        GroupItem group = new GroupItem("group", new SwitchItem("switch"));
+        group.addMember(lightOn);
+        group.addMember(lightOff);
+        cs.ds.groups.put("11", new HueGroupEntry("name", group, DeviceType.SwitchType));
+
+        String body = "{'on':true}";
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups/11/action").request()
+                .put(Entity.json(body));
+        assertEquals(200, response.getStatus());
+        assertThat(response.readEntity(String.class), containsString("success"));
+
+        // A command is only posted for the light that is not switched on yet
+        ArgumentCaptor<Event> event = ArgumentCaptor.forClass(Event.class);
+        verify(commonSetup.eventPublisher).post(event.capture());
+        assertThat(event.getValue().getTopic(), containsString("lightOff"));
+    }
+
+    @Test
+    public void groupActionWithoutSkippedLightsCommandsGroup() throws IOException {
+        SwitchItem light1 = new SwitchItem("light1");
+        light1.setState(OnOffType.OFF);
+        SwitchItem light2 = new SwitchItem("light2");
+        light2.setState(OnOffType.OFF);
+        GroupItem group = new GroupItem("group", new SwitchItem("switch"));
+        group.addMember(light1);
+        group.addMember(light2);
+        cs.ds.groups.put("11", new HueGroupEntry("name", group, DeviceType.SwitchType));
+
+        String body = "{'on':true}";
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups/11/action").request()
+                .put(Entity.json(body));
+        assertEquals(200, response.getStatus());
+        assertThat(response.readEntity(String.class), containsString("success"));
+
+        // No light is in the requested state yet, so a single command is posted to the group
+        ArgumentCaptor<Event> event = ArgumentCaptor.forClass(Event.class);
+        verify(commonSetup.eventPublisher).post(event.capture());
+        assertThat(event.getValue().getTopic(), containsString("items/group/"));
+    }
+
+    @Test
+    public void recallSceneViaGroupAction() throws IOException {
+        DummyRuleRegistry ruleRegistry = new DummyRuleRegistry();
+        Scenes scenes = new Scenes();
+        scenes.cs = cs;
+        scenes.userManagement = commonSetup.userManagement;
+        scenes.itemRegistry = itemRegistry;
+        scenes.ruleRegistry = ruleRegistry;
+        scenes.activate();
+        subject.scenes = scenes;
+
+        SwitchItem sceneSwitch = new SwitchItem("sceneSwitch");
+        sceneSwitch.setState(OnOffType.OFF);
+        itemRegistry.add(sceneSwitch);
+        ColorItem sceneColor = new ColorItem("sceneColor");
+        sceneColor.setState(HSBType.BLUE);
+        itemRegistry.add(sceneColor);
+
+        ruleRegistry.add(RuleBuilder.create("scene1").withTags("scene")
+                .withActions(Arrays.asList(Scenes.actionFromState("sceneSwitch", (Command) OnOffType.ON),
+                        Scenes.actionFromState("sceneColor", (Command) HSBType.BLUE)))
+                .build());
+
+        String body = "{'scene':'scene1'}";
+        Response response = commonSetup.client.target(commonSetup.basePath + "/testuser/groups/0/action").request()
+                .put(Entity.json(body));
+        assertEquals(200, response.getStatus());
+        assertThat(response.readEntity(String.class), containsString("success"));
+
+        // The color light is already in the scene state
+        ArgumentCaptor<Event> event = ArgumentCaptor.forClass(Event.class);
+        verify(commonSetup.eventPublisher).post(event.capture());
+        assertThat(event.getValue().getTopic(), containsString("sceneSwitch"));
+    }
+
     private boolean assertHueValue(ItemCommandEvent ce, int hueValue) {
         assertThat(((HSBType) ce.getItemCommand()).getHue().intValue(), is(hueValue * 360 / HueStateColorBulb.MAX_HUE));
         return true;
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang.builder.StandardToStringStyle;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PollTask} reading a single block that covers the requests of several other poll tasks.
+ *
+ * The response is sliced and each original callback receives the data of its own request, exactly as if the
+ * request had been executed alone. Errors are propagated to all original callbacks. Tasks that are no longer
+ * registered do not receive any data, and a failing callback does not prevent the delivery to the other tasks.
+ *
+ * @author agent - Initial contribution
+ *
+ * @see ModbusReadRequestMerger
+ */
+@NonNullByDefault
+public class MergedPollTask implements PollTask, ModbusReadCallback {
+
+    private static StandardToStringStyle toStringStyle = new StandardToStringStyle();
+    static {
+        toStringStyle.setUseShortClassName(true);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(MergedPollTask.class);
+    private final ModbusSlaveEndpoint endpoint;
+    private final ModbusReadRequestBlueprint request;
+    private final List<PollTask> tasks;
+    private final Predicate<PollTask> registered;
+
+    /**
+     * @param endpoint endpoint shared by all tasks
+     * @param request request covering the requests of all tasks
+     * @param tasks the original tasks
+     */
+    public MergedPollTask(ModbusSlaveEndpoint endpoint, ModbusReadRequestBlueprint request, List<PollTask> tasks) {
+        this(endpoint, request, tasks, task -> true);
+    }
+
+    /**
+     * @param endpoint endpoint shared by all tasks
+     * @param request request covering the requests of all tasks
+     * @param tasks the original tasks
+     * @param registered tells whether an original task is still registered. Only registered tasks receive data.
+     */
+    public MergedPollTask(ModbusSlaveEndpoint endpoint, ModbusReadRequestBlueprint request, List<PollTask> tasks,
+            Predicate<PollTask> registered) {
+        this.endpoint = endpoint;
+        this.request = request;
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.registered = registered;
+    }
+
+    @Override
+    public ModbusSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public ModbusReadRequestBlueprint getRequest() {
+        return request;
+    }
+
+    @Override
+    public ModbusReadCallback getCallback() {
+        return this;
+    }
+
+    /**
+     * Get the original tasks covered by this task
+     *
+     * @return unmodifiable list of the original tasks
+     */
+    public List<PollTask> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Check whether the data of the merged request should be delivered to the task
+     *
+     * @param task original task
+     * @return callback of the task, or null if the task has no callback or is no longer registered
+     */
+    private @Nullable ModbusReadCallback getCallbackIfRegistered(PollTask task) {
+        if (!registered.test(task)) {
+            logger.debug("Poll task {} is unregistered, not delivering the data of merged request {}", task, request);
+            return null;
+        }
+        return task.getCallback();
+    }
+
+    @Override
+    public void onRegisters(ModbusReadRequestBlueprint mergedRequest, ModbusRegisterArray registers) {
+        for (PollTask task : tasks) {
+            ModbusReadCallback callback = getCallbackIfRegistered(task);
+            if (callback == null) {
+                continue;
+            }
+            ModbusReadRequestBlueprint taskRequest = task.getRequest();
+            int offset = taskRequest.getReference() - request.getReference();
+            int length = Math.max(0, Math.min(taskRequest.getDataLength(), registers.size() - offset));
+            ModbusRegister[] slice = new ModbusRegister[length];
+            for (int i = 0; i < length; i++) {
+                slice[i] = registers.getRegister(offset + i);
+            }
+            try {
+                callback.onRegisters(taskRequest, new BasicModbusRegisterArray(slice));
+            } catch (RuntimeException e) {
+                logger.error("Unhandled exception in callback {} of poll task {}: {} {}", callback, task,
+                        e.getClass().getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void onBits(ModbusReadRequestBlueprint mergedRequest, BitArray bits) {
+        for (PollTask task : tasks) {
+            ModbusReadCallback callback = getCallbackIfRegistered(task);
+            if (callback == null) {
+                continue;
+            }
+            ModbusReadRequestBlueprint taskRequest = task.getRequest();
+            int offset = taskRequest.getReference() - request.getReference();
+            int length = Math.max(0, Math.min(taskRequest.getDataLength(), bits.size() - offset));
+            BasicBitArray slice = new BasicBitArray(length);
+            for (int i = 0; i < length; i++) {
+                slice.setBit(i, bits.getBit(offset + i));
+            }
+            try {
+                callback.onBits(taskRequest, slice);
+            } catch (RuntimeException e) {
+                logger.error("Unhandled exception in callback {} of poll task {}: {} {}", callback, task,
+                        e.getClass().getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void onError(ModbusReadRequestBlueprint mergedRequest, Exception error) {
+        for (PollTask task : tasks) {
+            ModbusReadCallback callback = getCallbackIfRegistered(task);
+            if (callback == null) {
+                continue;
+            }
+            try {
+                callback.onError(task.getRequest(), error);
+            } catch (RuntimeException e) {
+                logger.error("Unhandled exception in callback {} of poll task {}: {} {}", callback, task,
+                        e.getClass().getName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, toStringStyle).append("request", request).append("endpoint", endpoint)
+                .append("tasks", tasks.size()).toString();
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+
+/**
+ * Counters and latency histograms of the operations executed against a single endpoint
+ *
+ * All methods are lock-free and safe to call from any thread.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusEndpointMetrics {
+
+    private final ModbusSlaveEndpoint endpoint;
+
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder failedOperations = new LongAdder();
+    private final LongAdder connectionFailures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder transactionIdMismatches = new LongAdder();
+
+    private final LatencyHistogram connectionTime = new LatencyHistogram();
+    private final LatencyHistogram transactionTime = new LatencyHistogram();
+    private final LatencyHistogram callbackTime = new LatencyHistogram();
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+
+    public ModbusEndpointMetrics(ModbusSlaveEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Record a finished operation
+     *
+     * @param connectionNanos time spent borrowing, invalidating and returning connections
+     * @param transactionNanos time spent in transactions with the slave
+     * @param callbackNanos time spent in callbacks
+     * @param totalNanos total time of the operation
+     * @param tries number of executed tries
+     * @param failed whether the operation failed after all tries
+     */
+    public void recordOperation(long connectionNanos, long transactionNanos, long callbackNanos, long totalNanos,
+            int tries, boolean failed) {
+        operations.increment();
+        if (failed) {
+            failedOperations.increment();
+        }
+        if (tries > 1) {
+            retries.add(tries - 1);
+        }
+        connectionTime.record(connectionNanos);
+        transactionTime.record(transactionNanos);
+        callbackTime.record(callbackNanos);
+        totalTime.record(totalNanos);
+    }
+
+    /**
+     * Record that no connection could be established to the endpoint
+     */
+    public void recordConnectionFailure() {
+        connectionFailures.increment();
+    }
+
+    /**
+     * Record a response with unexpected transaction id
+     */
+    public void recordTransactionIdMismatch() {
+        transactionIdMismatches.increment();
+    }
+
+    public ModbusSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    public long getFailedOperations() {
+        return failedOperations.sum();
+    }
+
+    public long getConnectionFailures() {
+        return connectionFailures.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getTransactionIdMismatches() {
+        return transactionIdMismatches.sum();
+    }
+
+    /**
+     * Get the time spent borrowing, invalidating and returning connections per operation
+     */
+    public LatencyHistogram getConnectionTime() {
+        return connectionTime;
+    }
+
+    /**
+     * Get the time spent in transactions with the slave per operation, including all retries
+     */
+    public LatencyHistogram getTransactionTime() {
+        return transactionTime;
+    }
+
+    /**
+     * Get the time spent in callbacks per operation
+     */
+    public LatencyHistogram getCallbackTime() {
+        return callbackTime;
+    }
+
+    /**
+     * Get the total time per operation
+     */
+    public LatencyHistogram getTotalTime() {
+        return totalTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "endpoint=%s, operations=%d, failed=%d, connectionFailures=%d, retries=%d, transactionIdMismatches=%d",
+                endpoint, getOperations(), getFailedOperations(), getConnectionFailures(), getRetries(),
+                getTransactionIdMismatches());
+    }
+}
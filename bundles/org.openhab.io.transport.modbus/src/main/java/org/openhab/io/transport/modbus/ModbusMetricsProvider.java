@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus;
+
+import java.util.Collection;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+
+/**
+ * Provides the metrics of the operations executed by the {@link ModbusManager}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public interface ModbusMetricsProvider {
+
+    /**
+     * Get the metrics of all endpoints that have been communicated with
+     *
+     * @return unmodifiable collection of endpoint metrics
+     */
+    public Collection<ModbusEndpointMetrics> getEndpointMetrics();
+
+    /**
+     * Get the metrics of a single endpoint
+     *
+     * @param endpoint endpoint to query
+     * @return metrics of the endpoint, or null if no operation has been executed against the endpoint
+     */
+    public @Nullable ModbusEndpointMetrics getEndpointMetrics(ModbusSlaveEndpoint endpoint);
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Merges poll tasks reading adjacent or overlapping blocks into a minimal set of requests
+ *
+ * Only tasks with the same endpoint, unit id, function code and maximum tries are merged. The merged requests never
+ * exceed the maximum number of registers or bits that fit into a single Modbus PDU.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusReadRequestMerger {
+
+    /**
+     * Maximum number of registers that can be read with a single request (function codes 3 and 4)
+     */
+    public static final int MAX_REGISTERS_PER_READ = 125;
+
+    /**
+     * Maximum number of bits that can be read with a single request (function codes 1 and 2)
+     */
+    public static final int MAX_BITS_PER_READ = 2000;
+
+    private ModbusReadRequestMerger() {
+        // utility class
+    }
+
+    /**
+     * Merge poll tasks
+     *
+     * @param tasks tasks to merge
+     * @param maxGap maximum number of unrequested registers or bits between two requests that are still read as part
+     *            of a merged request. Use 0 to merge only adjacent and overlapping requests.
+     * @return tasks to execute instead of the given tasks. Tasks that could not be merged with any other task are
+     *         returned as is, all others are replaced by {@link MergedPollTask}s.
+     */
+    public static List<PollTask> merge(Collection<? extends PollTask> tasks, int maxGap) {
+        return merge(tasks, maxGap, task -> true);
+    }
+
+    /**
+     * Merge poll tasks
+     *
+     * @param tasks tasks to merge
+     * @param maxGap maximum number of unrequested registers or bits between two requests that are still read as part
+     *            of a merged request. Use 0 to merge only adjacent and overlapping requests.
+     * @param registered tells whether a task is still registered. The {@link MergedPollTask}s deliver data only to
+     *            registered tasks.
+     * @return tasks to execute instead of the given tasks. Tasks that could not be merged with any other task are
+     *         returned as is, all others are replaced by {@link MergedPollTask}s.
+     */
+    public static List<PollTask> merge(Collection<? extends PollTask> tasks, int maxGap,
+            Predicate<PollTask> registered) {
+        Map<List<Object>, List<PollTask>> groups = new LinkedHashMap<>();
+        for (PollTask task : tasks) {
+            ModbusReadRequestBlueprint request = task.getRequest();
+            List<Object> key = Arrays.asList(task.getEndpoint(), request.getUnitID(), request.getFunctionCode(),
+                    request.getMaxTries());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(task);
+        }
+
+        List<PollTask> merged = new ArrayList<>(tasks.size());
+        for (List<PollTask> group : groups.values()) {
+            mergeGroup(group, maxGap, registered, merged);
+        }
+        return merged;
+    }
+
+    private static void mergeGroup(List<PollTask> group, int maxGap, Predicate<PollTask> registered,
+            List<PollTask> result) {
+        group.sort(Comparator.comparingInt((PollTask task) -> task.getRequest().getReference())
+                .thenComparingInt(task -> task.getRequest().getDataLength()));
+        int maxLength = maxDataLength(group.get(0).getRequest().getFunctionCode());
+
+        List<PollTask> block = new ArrayList<>();
+        int blockStart = 0;
+        int blockEnd = 0;
+        for (PollTask task : group) {
+            int start = task.getRequest().getReference();
+            int end = start + task.getRequest().getDataLength();
+            if (!block.isEmpty() && start <= blockEnd + Math.max(0, maxGap)
+                    && Math.max(blockEnd, end) - blockStart <= maxLength) {
+                block.add(task);
+                blockEnd = Math.max(blockEnd, end);
+                continue;
+            }
+            flush(block, blockStart, blockEnd, registered, result);
+            block = new ArrayList<>();
+            block.add(task);
+            blockStart = start;
+            blockEnd = end;
+        }
+        flush(block, blockStart, blockEnd, registered, result);
+    }
+
+    private static void flush(List<PollTask> block, int start, int end, Predicate<PollTask> registered,
+            List<PollTask> result) {
+        if (block.isEmpty()) {
+            return;
+        }
+        if (block.size() == 1) {
+            result.add(block.get(0));
+            return;
+        }
+        PollTask first = block.get(0);
+        ModbusReadRequestBlueprint request = first.getRequest();
+        BasicModbusReadRequestBlueprint mergedRequest = new BasicModbusReadRequestBlueprint(request.getUnitID(),
+                request.getFunctionCode(), start, end - start, request.getMaxTries());
+        result.add(new MergedPollTask(first.getEndpoint(), mergedRequest, block, registered));
+    }
+
+    private static int maxDataLength(ModbusReadFunctionCode functionCode) {
+        switch (functionCode) {
+            case READ_COILS:
+            case READ_INPUT_DISCRETES:
+                return MAX_BITS_PER_READ;
+            default:
+                return MAX_REGISTERS_PER_READ;
+        }
+    }
+}
@@ -12,7 +12,7 @@
  */
 package org.openhab.io.transport.modbus.internal;
 
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 
@@ -24,6 +24,9 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
  */
 @NonNullByDefault
 public class AggregateStopWatch {
+
+    private static final AtomicLong OPERATION_COUNTER = new AtomicLong();
+
     /**
      * ID associated with this modbus operation
      */
@@ -50,7 +53,7 @@ public class AggregateStopWatch {
     final SimpleStopWatch callback = new SimpleStopWatch();
 
     public AggregateStopWatch() {
-        this.operationId = UUID.randomUUID().toString();
+        this.operationId = Long.toString(OPERATION_COUNTER.incrementAndGet());
     }
 
     /**
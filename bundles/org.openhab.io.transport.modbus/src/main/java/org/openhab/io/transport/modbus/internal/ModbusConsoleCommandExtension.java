@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.io.console.Console;
+import org.eclipse.smarthome.io.console.extensions.AbstractConsoleCommandExtension;
+import org.eclipse.smarthome.io.console.extensions.ConsoleCommandExtension;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
+import org.openhab.io.transport.modbus.ModbusMetricsProvider;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+
+/**
+ * Console command printing the metrics of the Modbus transport
+ *
+ * @author agent - Initial contribution
+ */
+@Component(service = ConsoleCommandExtension.class)
+@NonNullByDefault
+public class ModbusConsoleCommandExtension extends AbstractConsoleCommandExtension {
+
+    private static final String SUBCMD_METRICS = "metrics";
+
+    private @Nullable volatile ModbusMetricsProvider metricsProvider;
+
+    public ModbusConsoleCommandExtension() {
+        super("modbus", "Inspect the Modbus transport.");
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        if (args.length == 1 && SUBCMD_METRICS.equals(args[0])) {
+            printMetrics(console);
+        } else {
+            printUsage(console);
+        }
+    }
+
+    private void printMetrics(Console console) {
+        ModbusMetricsProvider metricsProvider = this.metricsProvider;
+        if (metricsProvider == null) {
+            console.println("Modbus manager is not available.");
+            return;
+        }
+        Collection<ModbusEndpointMetrics> metrics = metricsProvider.getEndpointMetrics();
+        if (metrics.isEmpty()) {
+            console.println("No operations executed yet.");
+            return;
+        }
+        for (ModbusEndpointMetrics endpointMetrics : metrics) {
+            console.println(endpointMetrics.getEndpoint().toString());
+            console.println(String.format("  operations: %d, failed: %d, connection failures: %d, retries: %d, "
+                    + "transaction id mismatches: %d", endpointMetrics.getOperations(),
+                    endpointMetrics.getFailedOperations(), endpointMetrics.getConnectionFailures(),
+                    endpointMetrics.getRetries(), endpointMetrics.getTransactionIdMismatches()));
+            console.println("  connection:  " + endpointMetrics.getConnectionTime());
+            console.println("  transaction: " + endpointMetrics.getTransactionTime());
+            console.println("  callback:    " + endpointMetrics.getCallbackTime());
+            console.println("  total:       " + endpointMetrics.getTotalTime());
+        }
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return Arrays.asList(buildCommandUsage(SUBCMD_METRICS,
+                "print counters and latencies of the operations per endpoint"));
+    }
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    protected void setMetricsProvider(ModbusMetricsProvider metricsProvider) {
+        this.metricsProvider = metricsProvider;
+    }
+
+    protected void unsetMetricsProvider(ModbusMetricsProvider metricsProvider) {
+        this.metricsProvider = null;
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serialized execution lane of a single endpoint (serial bus or TCP gateway).
+ *
+ * Operations of one endpoint are executed one after another by at most one worker at a time, so a slow or
+ * unresponsive slave only delays the operations of its own endpoint. Writes are always executed before polls. A poll
+ * is dropped if the same poll task is still waiting in the lane, since the queued execution will read fresh data
+ * anyway. A busy lane hands its worker back to the executor after {@value #MAX_OPERATIONS_PER_TURN} operations, so
+ * that lanes can share a bounded executor fairly.
+ *
+ * Each queued operation is represented by a future that completes when the operation has been executed. Cancelling
+ * the future removes a waiting operation and interrupts a running one.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusEndpointLane {
+
+    static final int MAX_OPERATIONS_PER_TURN = 16;
+
+    /**
+     * A queued operation. It is a {@link ScheduledFuture} without delay, since it is returned by
+     * {@link org.openhab.io.transport.modbus.ModbusManager} as the future representing the task.
+     */
+    private class Operation extends FutureTask<@Nullable Void> implements ScheduledFuture<@Nullable Void> {
+        private final @Nullable PollTask poll;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Operation(@Nullable PollTask poll, Runnable runnable) {
+            super(runnable, null);
+            this.poll = poll;
+        }
+
+        @Override
+        protected void setException(@Nullable Throwable t) {
+            logger.error("Unexpected error when executing operation for endpoint {}", endpoint, t);
+            super.setException(t);
+        }
+
+        @Override
+        public long getDelay(@Nullable TimeUnit unit) {
+            return 0;
+        }
+
+        @Override
+        public int compareTo(@Nullable Delayed other) {
+            return other == null ? 1 : Long.compare(0, other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ModbusEndpointLane.class);
+
+    private final ModbusSlaveEndpoint endpoint;
+    private final Executor executor;
+
+    private final Deque<Operation> writes = new ArrayDeque<>();
+    private final Deque<Operation> polls = new ArrayDeque<>();
+    private final Map<PollTask, Operation> queuedPolls = new HashMap<>();
+    private @Nullable Operation current;
+    private boolean running;
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong droppedPolls = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalExecutionNanos = new AtomicLong();
+    private final AtomicLong maxExecutionNanos = new AtomicLong();
+
+    /**
+     * @param endpoint endpoint served by this lane
+     * @param executor executor providing the worker of this lane
+     */
+    public ModbusEndpointLane(ModbusSlaveEndpoint endpoint, Executor executor) {
+        this.endpoint = endpoint;
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a write operation. Writes are executed before any queued poll.
+     *
+     * @return future completing when the write has been executed
+     */
+    public ScheduledFuture<?> submitWrite(Runnable operation) {
+        return enqueue(new Operation(null, operation));
+    }
+
+    /**
+     * Queue a poll operation. If the same poll task is still waiting in this lane, the poll is dropped and the
+     * future of the waiting poll is returned.
+     *
+     * @param task the poll task, used to detect duplicate polls
+     * @param operation the operation executing the poll
+     * @return future completing when the poll has been executed
+     */
+    public ScheduledFuture<?> submitPoll(PollTask task, Runnable operation) {
+        return enqueue(new Operation(task, operation));
+    }
+
+    /**
+     * Check whether the given poll task is waiting for execution
+     */
+    public synchronized boolean isQueued(PollTask task) {
+        Operation queued = queuedPolls.get(task);
+        return queued != null && !queued.isCancelled();
+    }
+
+    /**
+     * Cancel the given poll task, whether it is waiting or being executed. A running poll is interrupted.
+     */
+    public void cancelPoll(PollTask task) {
+        Operation queued;
+        Operation running;
+        synchronized (this) {
+            queued = queuedPolls.remove(task);
+            if (queued != null) {
+                polls.remove(queued);
+            }
+            running = current;
+        }
+        if (queued != null) {
+            queued.cancel(false);
+        }
+        if (running != null && task.equals(running.poll)) {
+            running.cancel(true);
+        }
+    }
+
+    private Operation enqueue(Operation operation) {
+        PollTask poll = operation.poll;
+        synchronized (this) {
+            if (poll == null) {
+                writes.add(operation);
+            } else {
+                Operation queued = queuedPolls.get(poll);
+                if (queued != null && !queued.isCancelled()) {
+                    droppedPolls.incrementAndGet();
+                    logger.debug("Endpoint {} is falling behind, dropping duplicate poll {}", endpoint, poll);
+                    return queued;
+                }
+                if (queued != null) {
+                    polls.remove(queued);
+                }
+                queuedPolls.put(poll, operation);
+                polls.add(operation);
+            }
+            if (running) {
+                return operation;
+            }
+            running = true;
+        }
+        schedule();
+        return operation;
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Executor of endpoint {} is shut down, discarding queued operations", endpoint);
+            clear();
+            synchronized (this) {
+                // No worker is left to reset the flag
+                running = false;
+            }
+        }
+    }
+
+    private @Nullable Operation next() {
+        synchronized (this) {
+            Operation operation = writes.poll();
+            if (operation == null) {
+                operation = polls.poll();
+            }
+            if (operation == null) {
+                running = false;
+                return null;
+            }
+            PollTask poll = operation.poll;
+            if (poll != null) {
+                queuedPolls.remove(poll, operation);
+            }
+            current = operation;
+            return operation;
+        }
+    }
+
+    private void drain() {
+        for (int turn = 0; turn < MAX_OPERATIONS_PER_TURN; turn++) {
+            Operation operation = next();
+            if (operation == null) {
+                return;
+            }
+            if (operation.isCancelled()) {
+                continue;
+            }
+            long started = System.nanoTime();
+            long waited = started - operation.enqueuedNanos;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            try {
+                operation.run();
+            } finally {
+                synchronized (this) {
+                    current = null;
+                }
+                if (operation.isCancelled()) {
+                    // Do not let the interrupt of a cancelled operation hit the next one
+                    Thread.interrupted();
+                }
+                long duration = System.nanoTime() - started;
+                totalExecutionNanos.addAndGet(duration);
+                maxExecutionNanos.accumulateAndGet(duration, Math::max);
+                executed.incrementAndGet();
+            }
+        }
+        // Give other lanes a chance, this lane is still marked as running
+        schedule();
+    }
+
+    /**
+     * Discard all queued operations. An operation that is being executed is not affected, and the lane keeps its
+     * worker until that operation has finished.
+     */
+    public void clear() {
+        synchronized (this) {
+            writes.forEach(operation -> operation.cancel(false));
+            polls.forEach(operation -> operation.cancel(false));
+            writes.clear();
+            polls.clear();
+            queuedPolls.clear();
+        }
+    }
+
+    public ModbusSlaveEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Get the number of operations waiting for execution
+     */
+    public synchronized int getQueueDepth() {
+        return writes.size() + polls.size();
+    }
+
+    public long getExecutedOperations() {
+        return executed.get();
+    }
+
+    public long getDroppedPolls() {
+        return droppedPolls.get();
+    }
+
+    /**
+     * Get the average time operations waited in the lane before execution
+     */
+    public double getAverageWaitMillis() {
+        long count = executed.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / (count * 1_000_000.0);
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Get the average execution time of the operations, including connection borrow, retries and callbacks
+     */
+    public double getAverageExecutionMillis() {
+        long count = executed.get();
+        return count == 0 ? 0 : totalExecutionNanos.get() / (count * 1_000_000.0);
+    }
+
+    public double getMaxExecutionMillis() {
+        return maxExecutionNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "endpoint=%s, queueDepth=%d, executed=%d, droppedPolls=%d, waitMillis(avg/max)=%.1f/%.1f, executionMillis(avg/max)=%.1f/%.1f",
+                endpoint, getQueueDepth(), getExecutedOperations(), getDroppedPolls(), getAverageWaitMillis(),
+                getMaxWaitMillis(), getAverageExecutionMillis(), getMaxExecutionMillis());
+    }
+}
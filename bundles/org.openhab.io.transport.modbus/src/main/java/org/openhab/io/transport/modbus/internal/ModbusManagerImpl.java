@@ -13,13 +13,19 @@
 package org.openhab.io.transport.modbus.internal;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -34,13 +40,18 @@ import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.io.transport.modbus.MergedPollTask;
 import org.openhab.io.transport.modbus.ModbusCallback;
 import org.openhab.io.transport.modbus.ModbusConnectionException;
+import org.openhab.io.transport.modbus.ModbusEndpointMetrics;
 import org.openhab.io.transport.modbus.ModbusManager;
 import org.openhab.io.transport.modbus.ModbusManagerListener;
+import org.openhab.io.transport.modbus.ModbusMetricsProvider;
 import org.openhab.io.transport.modbus.ModbusReadCallback;
 import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusReadRequestMerger;
 import org.openhab.io.transport.modbus.ModbusRequestBlueprint;
 import org.openhab.io.transport.modbus.ModbusUnexpectedTransactionIdException;
 import org.openhab.io.transport.modbus.ModbusWriteCallback;
@@ -77,11 +88,31 @@ import net.wimpi.modbus.net.ModbusSlaveConnection;
  * important with serial slaves but practice has shown that even many tcp slaves have limited
  * capability to handle many connections at the same time
  *
+ * The scheduled thread pool only takes care of the timing of the regular polls. The operations themselves are
+ * executed serially in a {@link ModbusEndpointLane} of their endpoint, so that a slow or unresponsive endpoint cannot
+ * starve the others. The futures returned for one-off operations are the futures of the lane operations.
+ *
  * @author Sami Salonen - Initial contribution
  */
-@Component(service = ModbusManager.class, immediate = true, configurationPid = "transport.modbus")
+@Component(service = { ModbusManager.class,
+        ModbusMetricsProvider.class }, immediate = true, configurationPid = "transport.modbus")
 @NonNullByDefault
-public class ModbusManagerImpl implements ModbusManager {
+public class ModbusManagerImpl implements ModbusManager, ModbusMetricsProvider {
+
+    /**
+     * Regular polls sharing endpoint, unit id, function code, max tries and poll period. The polls of a group are
+     * scheduled once and executed with merged requests.
+     */
+    private static class PollGroup {
+        private final List<Object> key;
+        private final Set<PollTask> members = new LinkedHashSet<>();
+        private volatile List<PollTask> mergedTasks = Collections.emptyList();
+        private @Nullable ScheduledFuture<?> future;
+
+        private PollGroup(List<Object> key) {
+            this.key = key;
+        }
+    }
 
     static class PollTaskUnregistered extends Exception {
         public PollTaskUnregistered(String msg) {
@@ -233,7 +264,10 @@ public class ModbusManagerImpl implements ModbusManager {
      * Thread naming for executing callbacks
      */
     private static final String MODBUS_POLLER_CALLBACK_THREAD_POOL_NAME = "modbusManagerCallbackThreadPool";
-
+    /**
+     * Thread naming for the workers of the endpoint lanes
+     */
+    private static final String MODBUS_LANE_THREAD_POOL_NAME = "modbusManagerLane";
     /**
      * Log message with WARN level if the task queues exceed this limit.
      *
@@ -268,11 +302,27 @@ public class ModbusManagerImpl implements ModbusManager {
     @Nullable
     private volatile ModbusSlaveConnectionFactoryImpl connectionFactory;
     private volatile Map<PollTask, ScheduledFuture<?>> scheduledPollTasks = new ConcurrentHashMap<>();
+    /**
+     * Groups of regular polls executed with merged requests, only used if poll merging is enabled
+     */
+    private final Map<List<Object>, PollGroup> pollGroups = new HashMap<>();
+    private final Map<PollTask, PollGroup> pollGroupsByTask = new HashMap<>();
+    private volatile boolean pollMergingEnabled;
+    private volatile int pollMergingMaxGap;
     /**
      * Executor for requests
      */
     @Nullable
     private volatile ScheduledExecutorService scheduledThreadPoolExecutor;
+    /**
+     * Executor providing the workers of the endpoint lanes. Each lane occupies at most one thread at a time, and the
+     * pool grows with the number of lanes, so an endpoint hanging in a timeout never delays the operations of other
+     * endpoints. Idle workers are released.
+     */
+    @Nullable
+    private volatile ThreadPoolExecutor laneExecutor;
+    private final Map<ModbusSlaveEndpoint, ModbusEndpointLane> lanes = new ConcurrentHashMap<>();
+    private final Map<ModbusSlaveEndpoint, ModbusEndpointMetrics> endpointMetrics = new ConcurrentHashMap<>();
     private volatile Collection<ModbusManagerListener> listeners = new CopyOnWriteArraySet<>();
     @Nullable
     private volatile ScheduledFuture<?> monitorFuture;
@@ -429,6 +479,7 @@ public class ModbusManagerImpl implements ModbusManager {
         if (!connection.isPresent()) {
             logger.warn("Could not connect to endpoint {} -- aborting request {} [operation ID {}]", endpoint, request,
                     operationId);
+            getMetrics(endpoint).recordConnectionFailure();
             if (callback != null) {
                 timer.callback.timeRunnable(
                         () -> invokeCallbackWithError(request, callback, new ModbusConnectionException(endpoint)));
@@ -468,7 +519,13 @@ public class ModbusManagerImpl implements ModbusManager {
     }
 
     private void verifyTaskIsRegistered(PollTask task) throws PollTaskUnregistered {
-        if (!this.scheduledPollTasks.containsKey(task)) {
+        boolean registered;
+        if (task instanceof MergedPollTask) {
+            registered = ((MergedPollTask) task).getTasks().stream().anyMatch(scheduledPollTasks::containsKey);
+        } else {
+            registered = scheduledPollTasks.containsKey(task);
+        }
+        if (!registered) {
             String msg = String.format("Poll task %s is unregistered", task);
             logger.debug(msg);
             throw new PollTaskUnregistered(msg);
@@ -502,7 +559,6 @@ public class ModbusManagerImpl implements ModbusManager {
             return;
         }
 
-        logTaskQueueInfo();
         R request = task.getRequest();
         ModbusSlaveEndpoint endpoint = task.getEndpoint();
         @Nullable
@@ -517,6 +573,8 @@ public class ModbusManagerImpl implements ModbusManager {
         }
 
         Optional<ModbusSlaveConnection> connection = Optional.empty();
+        int tryIndex = 0;
+        boolean succeeded = false;
         try {
             logger.trace("Starting new operation with task {}. Trying to get connection [operation ID {}]", task,
                     operationId);
@@ -536,7 +594,6 @@ public class ModbusManagerImpl implements ModbusManager {
                 return;
             }
 
-            int tryIndex = 0;
             /**
              * last execution is tracked such that the endpoint is not spammed on retry. First retry can be executed
              * right away since getConnection ensures enough time has passed since last transaction. More precisely,
@@ -574,6 +631,7 @@ public class ModbusManagerImpl implements ModbusManager {
                     willRetry = tryIndex < maxTries;
                     operation.accept(timer, task, connection.get());
                     lastError.set(null);
+                    succeeded = true;
                     break;
                 } catch (IOException e) {
                     lastError.set(new ModbusSlaveIOExceptionImpl(e));
@@ -624,6 +682,7 @@ public class ModbusManagerImpl implements ModbusManager {
                     continue;
                 } catch (ModbusUnexpectedTransactionIdException e) {
                     lastError.set(e);
+                    getMetrics(endpoint).recordTransactionIdMismatch();
                     // transaction error details already logged
                     if (willRetry) {
                         logger.warn(
@@ -686,23 +745,23 @@ public class ModbusManagerImpl implements ModbusManager {
             timer.connection.timeConsumer(c -> returnConnection(endpoint, c), connection);
             logger.trace("Connection was returned to the pool, ending operation [operation ID {}]", operationId);
             timer.suspendAllRunning();
+            getMetrics(endpoint).recordOperation(timer.connection.getTotalTimeNanos(),
+                    timer.transaction.getTotalTimeNanos(), timer.callback.getTotalTimeNanos(),
+                    timer.total.getTotalTimeNanos(), tryIndex, !succeeded);
             logger.debug("Modbus operation ended, timing info: {} [operation ID {}]", timer, operationId);
         }
     }
 
     @Override
     public ScheduledFuture<?> submitOneTimePoll(PollTask task) {
-        ScheduledExecutorService executor = scheduledThreadPoolExecutor;
-        Objects.requireNonNull(executor, "Not activated!");
         long scheduleTime = System.currentTimeMillis();
         logger.debug("Scheduling one-off poll task {}", task);
-        ScheduledFuture<?> future = executor.schedule(() -> {
+        return getLane(task.getEndpoint()).submitPoll(task, () -> {
             long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
-            logger.debug("Will now execute one-off poll task {}, waited in thread pool for {}", task,
+            logger.debug("Will now execute one-off poll task {}, waited in queue for {}", task,
                     millisInThreadPoolWaiting);
             executeOperation(task, true, pollOperation);
-        }, 0L, TimeUnit.MILLISECONDS);
-        return future;
+        });
     }
 
     @Override
@@ -716,15 +775,28 @@ public class ModbusManagerImpl implements ModbusManager {
                 logger.trace("Unregistering previous poll task (possibly with different period)");
                 unregisterRegularPoll(task);
             }
+            if (pollMergingEnabled) {
+                registerGroupedPoll(executor, task, pollPeriodMillis, initialDelayMillis);
+                return;
+            }
             ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
-                long started = System.currentTimeMillis();
-                logger.debug("Executing scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis, task,
-                        started);
-                executeOperation(task, false, pollOperation);
-                long finished = System.currentTimeMillis();
-                logger.debug(
-                        "Execution of scheduled ({}ms) poll task {} finished at {}. Was started at millis: {} (=duration of {} millis)",
-                        pollPeriodMillis, task, finished, started, finished - started);
+                long scheduled = System.currentTimeMillis();
+                ModbusEndpointLane lane = getLane(task.getEndpoint());
+                if (lane.isQueued(task)) {
+                    logger.debug("Previous execution of scheduled ({}ms) poll task {} still queued, skipping this one",
+                            pollPeriodMillis, task);
+                    return;
+                }
+                lane.submitPoll(task, () -> {
+                    long started = System.currentTimeMillis();
+                    logger.debug("Executing scheduled ({}ms) poll task {}. Current millis: {}", pollPeriodMillis,
+                            task, started);
+                    executeOperation(task, false, pollOperation);
+                    long finished = System.currentTimeMillis();
+                    logger.debug(
+                            "Execution of scheduled ({}ms) poll task {} finished at {}. Was queued at millis: {}, started at millis: {} (=duration of {} millis)",
+                            pollPeriodMillis, task, finished, scheduled, started, finished - started);
+                });
             }, initialDelayMillis, pollPeriodMillis, TimeUnit.MILLISECONDS);
 
             scheduledPollTasks.put(task, future);
@@ -733,6 +805,63 @@ public class ModbusManagerImpl implements ModbusManager {
         }
     }
 
+    /**
+     * Register regular poll as part of a poll group. The group is scheduled with the first registered task, and
+     * the merged requests of the group are recalculated on every change of its members.
+     */
+    private void registerGroupedPoll(ScheduledExecutorService executor, PollTask task, long pollPeriodMillis,
+            long initialDelayMillis) {
+        ModbusReadRequestBlueprint request = task.getRequest();
+        List<Object> key = Arrays.asList(task.getEndpoint(), request.getUnitID(), request.getFunctionCode(),
+                request.getMaxTries(), pollPeriodMillis);
+        PollGroup group = pollGroups.computeIfAbsent(key, PollGroup::new);
+        group.members.add(task);
+        group.mergedTasks = mergePolls(group.members);
+        pollGroupsByTask.put(task, group);
+
+        ScheduledFuture<?> future = group.future;
+        if (future == null) {
+            group.future = future = executor.scheduleWithFixedDelay(() -> {
+                List<PollTask> mergedTasks = group.mergedTasks;
+                logger.debug("Queuing scheduled ({}ms) poll group with {} requests. Current millis: {}",
+                        pollPeriodMillis, mergedTasks.size(), System.currentTimeMillis());
+                for (PollTask mergedTask : mergedTasks) {
+                    getLane(mergedTask.getEndpoint()).submitPoll(mergedTask,
+                            () -> executeOperation(mergedTask, false, pollOperation));
+                }
+            }, initialDelayMillis, pollPeriodMillis, TimeUnit.MILLISECONDS);
+        }
+        scheduledPollTasks.put(task, future);
+        logger.trace("Registered poll task {} with period {} as part of a group of {} tasks merged to {} requests",
+                task, pollPeriodMillis, group.members.size(), group.mergedTasks.size());
+    }
+
+    /**
+     * Merge the polls of a poll group. The merged tasks deliver data only to tasks that are still registered.
+     */
+    private List<PollTask> mergePolls(Collection<PollTask> tasks) {
+        return ModbusReadRequestMerger.merge(tasks, pollMergingMaxGap, task -> scheduledPollTasks.containsKey(task));
+    }
+
+    /**
+     * Remove regular poll from its poll group
+     *
+     * @return whether the poll group has no more members and its future should be canceled
+     */
+    private boolean unregisterGroupedPoll(PollTask task) {
+        PollGroup group = pollGroupsByTask.remove(task);
+        if (group == null) {
+            return true;
+        }
+        group.members.remove(task);
+        if (group.members.isEmpty()) {
+            pollGroups.remove(group.key);
+            return true;
+        }
+        group.mergedTasks = mergePolls(group.members);
+        return false;
+    }
+
     @SuppressWarnings({ "null", "unused" })
     @Override
     public boolean unregisterRegularPoll(PollTask task) {
@@ -756,7 +885,16 @@ public class ModbusManagerImpl implements ModbusManager {
             // is usually pretty soon as transactions should be relatively short-lived)
             factory.disconnectOnReturn(task.getEndpoint(), System.currentTimeMillis());
 
-            future.cancel(true);
+            PollGroup group = pollGroupsByTask.get(task);
+            List<PollTask> lanePolls = group == null ? Collections.singletonList(task) : group.mergedTasks;
+            if (unregisterGroupedPoll(task)) {
+                future.cancel(true);
+                // The scheduled future only queues the polls, cancel the queued or running polls in the lane as well
+                ModbusEndpointLane lane = lanes.get(task.getEndpoint());
+                if (lane != null) {
+                    lanePolls.forEach(lane::cancelPoll);
+                }
+            }
 
             logger.info("Poll task {} canceled", task);
 
@@ -777,17 +915,63 @@ public class ModbusManagerImpl implements ModbusManager {
 
     @Override
     public ScheduledFuture<?> submitOneTimeWrite(WriteTask task) {
-        ScheduledExecutorService scheduledThreadPoolExecutor = this.scheduledThreadPoolExecutor;
-        Objects.requireNonNull(scheduledThreadPoolExecutor, "Not activated!");
         long scheduleTime = System.currentTimeMillis();
         logger.debug("Scheduling one-off write task {}", task);
-        ScheduledFuture<?> future = scheduledThreadPoolExecutor.schedule(() -> {
+        return getLane(task.getEndpoint()).submitWrite(() -> {
             long millisInThreadPoolWaiting = System.currentTimeMillis() - scheduleTime;
-            logger.debug("Will now execute one-off write task {}, waited in thread pool for {}", task,
+            logger.debug("Will now execute one-off write task {}, waited in queue for {}", task,
                     millisInThreadPoolWaiting);
             executeOperation(task, true, writeOperation);
-        }, 0L, TimeUnit.MILLISECONDS);
-        return future;
+        });
+    }
+
+    /**
+     * Get the execution lane of the endpoint, creating it if necessary
+     */
+    private ModbusEndpointLane getLane(ModbusSlaveEndpoint endpoint) {
+        ThreadPoolExecutor laneExecutor = this.laneExecutor;
+        Objects.requireNonNull(laneExecutor, "Not activated!");
+        ModbusEndpointLane lane = lanes.get(endpoint);
+        if (lane != null) {
+            return lane;
+        }
+        synchronized (lanes) {
+            lane = lanes.computeIfAbsent(endpoint, e -> new ModbusEndpointLane(e, laneExecutor));
+            // One worker per lane, the lanes never wait for each other
+            int threads = lanes.size();
+            if (threads > laneExecutor.getCorePoolSize()) {
+                laneExecutor.setMaximumPoolSize(threads);
+                laneExecutor.setCorePoolSize(threads);
+            }
+            return lane;
+        }
+    }
+
+    /**
+     * Get the execution lanes of all endpoints used so far, e.g. for inspecting their queue depth and latency
+     *
+     * @return unmodifiable view of the lanes
+     */
+    public Collection<ModbusEndpointLane> getEndpointLanes() {
+        return Collections.unmodifiableCollection(lanes.values());
+    }
+
+    private ModbusEndpointMetrics getMetrics(ModbusSlaveEndpoint endpoint) {
+        ModbusEndpointMetrics metrics = endpointMetrics.get(endpoint);
+        if (metrics == null) {
+            metrics = endpointMetrics.computeIfAbsent(endpoint, ModbusEndpointMetrics::new);
+        }
+        return metrics;
+    }
+
+    @Override
+    public Collection<ModbusEndpointMetrics> getEndpointMetrics() {
+        return Collections.unmodifiableCollection(endpointMetrics.values());
+    }
+
+    @Override
+    public @Nullable ModbusEndpointMetrics getEndpointMetrics(ModbusSlaveEndpoint endpoint) {
+        return endpointMetrics.get(endpoint);
     }
 
     @Override
@@ -825,6 +1009,17 @@ public class ModbusManagerImpl implements ModbusManager {
     protected void activate(Map<String, Object> configProperties) {
         synchronized (this) {
             logger.info("Modbus manager activated");
+            Object pollMergingEnabled = configProperties.get("pollMergingEnabled");
+            this.pollMergingEnabled = pollMergingEnabled != null
+                    && Boolean.parseBoolean(pollMergingEnabled.toString());
+            Object pollMergingMaxGap = configProperties.get("pollMergingMaxGap");
+            try {
+                this.pollMergingMaxGap = pollMergingMaxGap == null ? 0
+                        : Integer.parseInt(pollMergingMaxGap.toString());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid pollMergingMaxGap '{}', merging adjacent requests only", pollMergingMaxGap);
+                this.pollMergingMaxGap = 0;
+            }
             if (connectionPool == null) {
                 constructConnectionPool();
             }
@@ -833,6 +1028,13 @@ public class ModbusManagerImpl implements ModbusManager {
                 this.scheduledThreadPoolExecutor = scheduledThreadPoolExecutor = ThreadPoolManager
                         .getScheduledPool(MODBUS_POLLER_THREAD_POOL_NAME);
             }
+            if (laneExecutor == null) {
+                // Grows with the number of lanes, see getLane
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), new NamedThreadFactory(MODBUS_LANE_THREAD_POOL_NAME));
+                executor.allowCoreThreadTimeOut(true);
+                laneExecutor = executor;
+            }
             if (scheduledThreadPoolExecutor.isShutdown()) {
                 logger.error("Thread pool is shut down! Aborting activation of ModbusMangerImpl");
                 throw new IllegalStateException("Thread pool(s) shut down! Aborting activation of ModbusMangerImpl");
@@ -863,6 +1065,14 @@ public class ModbusManagerImpl implements ModbusManager {
             // Note that it is not allowed to shutdown the executor, since they will be reused when
             // when pool is received from ThreadPoolManager is called
             scheduledThreadPoolExecutor = null;
+            // Lane executor is owned by us, on the other hand
+            ThreadPoolExecutor laneExecutor = this.laneExecutor;
+            if (laneExecutor != null) {
+                laneExecutor.shutdownNow();
+                this.laneExecutor = null;
+            }
+            lanes.values().forEach(ModbusEndpointLane::clear);
+            lanes.clear();
             connectionFactory = null;
             logger.debug("Modbus manager deactivated");
         }
@@ -899,6 +1109,18 @@ public class ModbusManagerImpl implements ModbusManager {
                 }
             }
 
+            for (ModbusEndpointMetrics metrics : endpointMetrics.values()) {
+                pollMonitorLogger.trace("POLL MONITOR: metrics {}, total time {}", metrics, metrics.getTotalTime());
+            }
+            for (ModbusEndpointLane lane : lanes.values()) {
+                pollMonitorLogger.trace("POLL MONITOR: lane {}", lane);
+                if (lane.getQueueDepth() >= WARN_QUEUE_SIZE) {
+                    pollMonitorLogger.warn(
+                            "Many ({}) operations queued for endpoint {}! The endpoint might be too slow for the configured poll rate.",
+                            lane.getQueueDepth(), lane.getEndpoint());
+                }
+            }
+
             pollMonitorLogger.trace("</POLL MONITOR>");
         }
     }
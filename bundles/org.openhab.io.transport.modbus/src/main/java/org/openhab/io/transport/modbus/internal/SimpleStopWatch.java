@@ -12,6 +12,7 @@
  */
 package org.openhab.io.transport.modbus.internal;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -23,14 +24,17 @@ import net.wimpi.modbus.ModbusException;
 /**
  * Implementation of simple stop watch.
  *
+ * The stop watch is not thread-safe, it is meant to be used by the single thread executing an operation.
+ *
  * @author Sami Salonen - initial contribution
  *
  */
 @NonNullByDefault
 public class SimpleStopWatch {
 
-    private volatile long totalMillis;
-    private volatile long resumed;
+    private long totalNanos;
+    private long resumed;
+    private boolean running;
 
     @FunctionalInterface
     public abstract interface SupplierWithPollTaskUnregisteredException<T> {
@@ -47,11 +51,12 @@ public class SimpleStopWatch {
      *
      * @throws IllegalStateException if stop watch is running already
      */
-    public synchronized void resume() {
-        if (isRunning()) {
+    public void resume() {
+        if (running) {
             throw new IllegalStateException("Cannot suspend a running StopWatch");
         }
-        resumed = System.currentTimeMillis();
+        running = true;
+        resumed = System.nanoTime();
     }
 
     /**
@@ -59,12 +64,12 @@ public class SimpleStopWatch {
      *
      * @throws IllegalStateException if stop watch has not been resumed
      */
-    public synchronized void suspend() {
-        if (!isRunning()) {
+    public void suspend() {
+        if (!running) {
             throw new IllegalStateException("Cannot suspend non-running StopWatch");
         }
-        totalMillis += System.currentTimeMillis() - resumed;
-        resumed = 0;
+        totalNanos += System.nanoTime() - resumed;
+        running = false;
     }
 
     /**
@@ -72,8 +77,17 @@ public class SimpleStopWatch {
      *
      * @return total running time in milliseconds
      */
-    public synchronized long getTotalTimeMillis() {
-        return totalMillis;
+    public long getTotalTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+
+    /**
+     * Get total running time of this StopWatch in nanoseconds
+     *
+     * @return total running time in nanoseconds
+     */
+    public long getTotalTimeNanos() {
+        return totalNanos;
     }
 
     /**
@@ -81,8 +95,8 @@ public class SimpleStopWatch {
      *
      * @return boolean telling whether this StopWatch is running
      */
-    public synchronized boolean isRunning() {
-        return resumed > 0;
+    public boolean isRunning() {
+        return running;
     }
 
     /**
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicModbusRegister;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.ModbusBitUtilities;
+import org.openhab.io.transport.modbus.ModbusConstants.ValueType;
+import org.openhab.io.transport.modbus.ModbusRegister;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+
+public class BitUtilitiesExtractPrimitiveFromRegistersTest {
+
+    private static ModbusRegisterArray registers(int... values) {
+        return new BasicModbusRegisterArray(
+                IntStream.of(values).mapToObj(BasicModbusRegister::new).toArray(ModbusRegister[]::new));
+    }
+
+    @Test
+    public void testIntegers() {
+        ModbusRegisterArray registers = registers(0xFFFE, 0x0102, 0x8000, 0x0001);
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 1, ValueType.BIT), is(equalTo(1L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.BIT), is(equalTo(0L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.INT8), is(equalTo(-2L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.UINT8), is(equalTo(254L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 3, ValueType.UINT8), is(equalTo(1L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.INT16), is(equalTo(-2L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.UINT16),
+                is(equalTo(65534L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 1, ValueType.INT32),
+                is(equalTo(0x01028000L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 1, ValueType.INT32_SWAP),
+                is(equalTo((long) 0x80000102)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 1, ValueType.UINT32_SWAP),
+                is(equalTo(0x80000102L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.INT64),
+                is(equalTo(0xFFFE010280000001L)));
+        assertThat(ModbusBitUtilities.extractLongFromRegisters(registers, 0, ValueType.UINT64_SWAP),
+                is(equalTo(0x000180000102FFFEL)));
+    }
+
+    @Test
+    public void testFloats() {
+        int bits = Float.floatToIntBits(-1.5f);
+        ModbusRegisterArray registers = registers(bits >>> 16, bits & 0xFFFF);
+        assertThat(ModbusBitUtilities.extractFloatFromRegisters(registers, 0, ValueType.FLOAT32),
+                is(equalTo(-1.5f)));
+        ModbusRegisterArray swapped = registers(bits & 0xFFFF, bits >>> 16);
+        assertThat(ModbusBitUtilities.extractFloatFromRegisters(swapped, 0, ValueType.FLOAT32_SWAP),
+                is(equalTo(-1.5f)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLongWithFloatType() {
+        ModbusBitUtilities.extractLongFromRegisters(registers(0, 0), 0, ValueType.FLOAT32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFloatWithIntegerType() {
+        ModbusBitUtilities.extractFloatFromRegisters(registers(0, 0), 0, ValueType.INT32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfBounds() {
+        ModbusBitUtilities.extractLongFromRegisters(registers(0, 0, 0), 0, ValueType.INT64);
+    }
+
+    /**
+     * The primitive extractors must agree with the state extraction for all value types
+     */
+    @Test
+    public void testConsistentWithStateExtraction() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            ModbusRegisterArray registers = registers(
+                    IntStream.range(0, 4).map(i -> random.nextInt(0x10000)).toArray());
+            for (ValueType type : ValueType.values()) {
+                Optional<DecimalType> state = ModbusBitUtilities.extractStateFromRegisters(registers, 0, type);
+                BigDecimal expected;
+                switch (type) {
+                    case FLOAT32:
+                    case FLOAT32_SWAP:
+                        float floatValue = ModbusBitUtilities.extractFloatFromRegisters(registers, 0, type);
+                        if (Float.isNaN(floatValue) || Float.isInfinite(floatValue)) {
+                            assertThat(state.isPresent(), is(false));
+                            continue;
+                        }
+                        expected = new DecimalType(floatValue).toBigDecimal();
+                        break;
+                    case UINT64:
+                    case UINT64_SWAP:
+                        expected = new BigDecimal(
+                                Long.toUnsignedString(ModbusBitUtilities.extractLongFromRegisters(registers, 0, type)));
+                        break;
+                    default:
+                        expected = BigDecimal.valueOf(ModbusBitUtilities.extractLongFromRegisters(registers, 0, type));
+                        break;
+                }
+                assertThat(String.format("registers=%s, type=%s", registers, type),
+                        state.get().toBigDecimal().compareTo(expected), is(equalTo(0)));
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.number.IsCloseTo.closeTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.io.transport.modbus.LatencyHistogram;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount(), is(equalTo(0L)));
+        assertThat(histogram.getMeanMillis(), is(equalTo(0.0)));
+        assertThat(histogram.getPercentileMillis(99), is(equalTo(0.0)));
+    }
+
+    @Test
+    public void testMeanAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+        assertThat(histogram.getCount(), is(equalTo(2L)));
+        assertThat(histogram.getMeanMillis(), is(closeTo(20, 0.001)));
+        assertThat(histogram.getMaxMillis(), is(closeTo(30, 0.001)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        // buckets are accurate to 1/8 of the value
+        assertThat(histogram.getPercentileMillis(50), is(closeTo(50, 50 / 8.0)));
+        assertThat(histogram.getPercentileMillis(90), is(closeTo(90, 90 / 8.0)));
+        assertThat(histogram.getPercentileMillis(100), is(closeTo(100, 0.001)));
+    }
+
+    @Test
+    public void testSmallAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-1);
+        histogram.record(3_000);
+        histogram.record(TimeUnit.DAYS.toNanos(365));
+        assertThat(histogram.getCount(), is(equalTo(3L)));
+        assertThat(histogram.getPercentileMillis(34), is(closeTo(0.003, 0.0001)));
+        assertThat(histogram.getMaxMillis(), is(closeTo(TimeUnit.DAYS.toMillis(365), 0.001)));
+    }
+}
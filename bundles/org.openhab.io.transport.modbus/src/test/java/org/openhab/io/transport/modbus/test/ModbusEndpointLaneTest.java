@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+import org.openhab.io.transport.modbus.internal.ModbusEndpointLane;
+
+public class ModbusEndpointLaneTest {
+
+    private final List<Runnable> workers = new ArrayList<>();
+    private final List<String> executed = new ArrayList<>();
+    private ModbusEndpointLane lane;
+
+    @Before
+    public void setUp() {
+        lane = new ModbusEndpointLane(new ModbusTCPSlaveEndpoint("127.0.0.1", 502), workers::add);
+    }
+
+    private void runWorkers() {
+        while (!workers.isEmpty()) {
+            workers.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testWritesBeforePolls() {
+        lane.submitPoll(mock(PollTask.class), () -> executed.add("poll1"));
+        lane.submitPoll(mock(PollTask.class), () -> executed.add("poll2"));
+        lane.submitWrite(() -> executed.add("write1"));
+        lane.submitWrite(() -> executed.add("write2"));
+        assertThat(lane.getQueueDepth(), is(equalTo(4)));
+        assertThat(workers.size(), is(equalTo(1)));
+
+        runWorkers();
+
+        assertThat(executed, is(equalTo(Arrays.asList("write1", "write2", "poll1", "poll2"))));
+        assertThat(lane.getQueueDepth(), is(equalTo(0)));
+        assertThat(lane.getExecutedOperations(), is(equalTo(4L)));
+    }
+
+    @Test
+    public void testDuplicatePollDropped() {
+        PollTask task = mock(PollTask.class);
+        ScheduledFuture<?> first = lane.submitPoll(task, () -> executed.add("first"));
+        ScheduledFuture<?> second = lane.submitPoll(task, () -> executed.add("second"));
+        assertThat(lane.isQueued(task), is(true));
+
+        runWorkers();
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(executed, is(equalTo(Arrays.asList("first"))));
+        assertThat(lane.getDroppedPolls(), is(equalTo(1L)));
+        assertThat(lane.isQueued(task), is(false));
+
+        // not queued anymore, so the next poll is executed again
+        lane.submitPoll(task, () -> executed.add("third"));
+        runWorkers();
+        assertThat(executed, is(equalTo(Arrays.asList("first", "third"))));
+        assertThat(lane.getDroppedPolls(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void testFutureCompletesAfterExecution() throws Exception {
+        ScheduledFuture<?> future = lane.submitWrite(() -> executed.add("write"));
+        assertThat(future.isDone(), is(false));
+
+        runWorkers();
+
+        assertThat(future.isDone(), is(true));
+        assertThat(future.get(), is(nullValue()));
+    }
+
+    @Test
+    public void testCancelQueuedPoll() {
+        PollTask task = mock(PollTask.class);
+        ScheduledFuture<?> future = lane.submitPoll(task, () -> executed.add("poll"));
+        lane.cancelPoll(task);
+
+        runWorkers();
+
+        assertThat(future.isCancelled(), is(true));
+        assertThat(executed.isEmpty(), is(true));
+        assertThat(lane.getQueueDepth(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testWorkerHandedBackAfterTurn() {
+        for (int i = 0; i < 20; i++) {
+            String name = "write" + i;
+            lane.submitWrite(() -> executed.add(name));
+        }
+        workers.remove(0).run();
+        assertThat(executed.size(), is(equalTo(16)));
+        assertThat(workers.size(), is(equalTo(1)));
+
+        runWorkers();
+        assertThat(executed.size(), is(equalTo(20)));
+    }
+
+    @Test
+    public void testClearDoesNotStartSecondWorker() {
+        lane.submitWrite(() -> {
+            executed.add("running");
+            lane.clear();
+            lane.submitWrite(() -> executed.add("next"));
+        });
+        lane.submitWrite(() -> executed.add("discarded"));
+
+        workers.remove(0).run();
+
+        // the running worker picks up the new operation, no second worker runs concurrently
+        assertThat(workers.size(), is(equalTo(0)));
+        assertThat(executed, is(equalTo(Arrays.asList("running", "next"))));
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelRunningPollInterrupts() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ModbusEndpointLane lane = new ModbusEndpointLane(new ModbusTCPSlaveEndpoint("127.0.0.1", 502), executor);
+            PollTask task = mock(PollTask.class);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            ScheduledFuture<?> future = lane.submitPoll(task, () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+            lane.cancelPoll(task);
+
+            assertThat(interrupted.await(5, TimeUnit.SECONDS), is(true));
+            assertThat(future.isCancelled(), is(true));
+
+            // the lane keeps working and the interrupt does not leak into the next operation
+            CountDownLatch next = new CountDownLatch(1);
+            lane.submitWrite(() -> {
+                if (!Thread.currentThread().isInterrupted()) {
+                    next.countDown();
+                }
+            });
+            assertThat(next.await(5, TimeUnit.SECONDS), is(true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.transport.modbus.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openhab.io.transport.modbus.BasicBitArray;
+import org.openhab.io.transport.modbus.BasicModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.BasicModbusRegisterArray;
+import org.openhab.io.transport.modbus.BasicPollTaskImpl;
+import org.openhab.io.transport.modbus.BitArray;
+import org.openhab.io.transport.modbus.MergedPollTask;
+import org.openhab.io.transport.modbus.ModbusReadCallback;
+import org.openhab.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.io.transport.modbus.ModbusReadRequestMerger;
+import org.openhab.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.io.transport.modbus.PollTask;
+import org.openhab.io.transport.modbus.endpoint.ModbusTCPSlaveEndpoint;
+
+public class ModbusReadRequestMergerTest {
+
+    private static class RecordingCallback implements ModbusReadCallback {
+        private final List<Object> responses = new ArrayList<>();
+
+        @Override
+        public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+            responses.add(registers.toHexString());
+        }
+
+        @Override
+        public void onBits(ModbusReadRequestBlueprint request, BitArray bits) {
+            responses.add(bits.toBinaryString());
+        }
+
+        @Override
+        public void onError(ModbusReadRequestBlueprint request, Exception error) {
+            responses.add(error);
+        }
+    }
+
+    private final ModbusTCPSlaveEndpoint endpoint = new ModbusTCPSlaveEndpoint("localhost", 502);
+
+    private PollTask task(ModbusReadFunctionCode functionCode, int start, int length, ModbusReadCallback callback) {
+        return new BasicPollTaskImpl(endpoint,
+                new BasicModbusReadRequestBlueprint(1, functionCode, start, length, 3), callback);
+    }
+
+    @Test
+    public void testAdjacentAndOverlappingRequestsAreMerged() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, callback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, callback);
+        PollTask third = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 3, 2, callback);
+
+        List<PollTask> merged = ModbusReadRequestMerger.merge(Arrays.asList(third, first, second), 0);
+
+        assertThat(merged.size(), is(equalTo(1)));
+        assertThat(merged.get(0), is(instanceOf(MergedPollTask.class)));
+        assertThat(merged.get(0).getRequest().getReference(), is(equalTo(0)));
+        assertThat(merged.get(0).getRequest().getDataLength(), is(equalTo(5)));
+    }
+
+    @Test
+    public void testIncompatibleRequestsAreNotMerged() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask holding = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, callback);
+        PollTask input = task(ModbusReadFunctionCode.READ_INPUT_REGISTERS, 2, 2, callback);
+        PollTask distant = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 10, 2, callback);
+
+        List<PollTask> merged = ModbusReadRequestMerger.merge(Arrays.asList(holding, input, distant), 0);
+
+        assertThat(merged.size(), is(equalTo(3)));
+        assertThat(merged, hasItems(holding, input, distant));
+    }
+
+    @Test
+    public void testGapIsMergedWhenAllowed() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, callback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 5, 2, callback);
+
+        assertThat(ModbusReadRequestMerger.merge(Arrays.asList(first, second), 2).size(), is(equalTo(2)));
+        assertThat(ModbusReadRequestMerger.merge(Arrays.asList(first, second), 3).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testMaximumPduSizeIsRespected() {
+        RecordingCallback callback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 100, callback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 100, 26, callback);
+
+        assertThat(ModbusReadRequestMerger.merge(Arrays.asList(first, second), 0).size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void testCallbacksReceiveTheirSlice() {
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, firstCallback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 1, 2, secondCallback);
+        PollTask merged = ModbusReadRequestMerger.merge(Arrays.asList(first, second), 0).get(0);
+
+        merged.getCallback().onRegisters(merged.getRequest(), new BasicModbusRegisterArray(1, 2, 3));
+
+        assertThat(firstCallback.responses, is(equalTo(Arrays.asList("0001 0002"))));
+        assertThat(secondCallback.responses, is(equalTo(Arrays.asList("0002 0003"))));
+    }
+
+    @Test
+    public void testCallbacksReceiveTheirBits() {
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_COILS, 0, 2, firstCallback);
+        PollTask second = task(ModbusReadFunctionCode.READ_COILS, 2, 3, secondCallback);
+        PollTask merged = ModbusReadRequestMerger.merge(Arrays.asList(first, second), 0).get(0);
+
+        merged.getCallback().onBits(merged.getRequest(), new BasicBitArray(true, false, false, true, true));
+
+        assertThat(firstCallback.responses, is(equalTo(Arrays.asList("10"))));
+        assertThat(secondCallback.responses, is(equalTo(Arrays.asList("011"))));
+    }
+
+    @Test
+    public void testErrorsArePropagatedToAllCallbacks() {
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, firstCallback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, secondCallback);
+        PollTask merged = ModbusReadRequestMerger.merge(Arrays.asList(first, second), 0).get(0);
+        Exception error = new Exception();
+
+        merged.getCallback().onError(merged.getRequest(), error);
+
+        assertThat(firstCallback.responses, is(equalTo(Arrays.asList(error))));
+        assertThat(secondCallback.responses, is(equalTo(Arrays.asList(error))));
+    }
+
+    @Test
+    public void testUnregisteredTasksReceiveNoData() {
+        RecordingCallback firstCallback = new RecordingCallback();
+        RecordingCallback secondCallback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, firstCallback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, secondCallback);
+        Set<PollTask> registered = new HashSet<>(Arrays.asList(first, second));
+        PollTask merged = ModbusReadRequestMerger.merge(Arrays.asList(first, second), 0, registered::contains).get(0);
+
+        // unregistered after the merge
+        registered.remove(first);
+        merged.getCallback().onRegisters(merged.getRequest(), new BasicModbusRegisterArray(1, 2, 3, 4));
+        merged.getCallback().onError(merged.getRequest(), new Exception());
+
+        assertThat(firstCallback.responses.isEmpty(), is(true));
+        assertThat(secondCallback.responses.size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void testFailingCallbackDoesNotStopDelivery() {
+        ModbusReadCallback failingCallback = new RecordingCallback() {
+            @Override
+            public void onRegisters(ModbusReadRequestBlueprint request, ModbusRegisterArray registers) {
+                throw new IllegalStateException("failing callback");
+            }
+        };
+        RecordingCallback secondCallback = new RecordingCallback();
+        PollTask first = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2, failingCallback);
+        PollTask second = task(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2, secondCallback);
+        PollTask merged = ModbusReadRequestMerger.merge(Arrays.asList(first, second), 0).get(0);
+
+        merged.getCallback().onRegisters(merged.getRequest(), new BasicModbusRegisterArray(1, 2, 3, 4));
+
+        assertThat(secondCallback.responses, is(equalTo(Arrays.asList("0003 0004"))));
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Holds the settings of the MapDB persistence service as configured in <code>services/mapdb.cfg</code>.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbConfiguration {
+
+    /** if enabled, every stored state is additionally appended to the time indexed history */
+    private boolean historyEnabled = false;
+
+    /** history entries older than this number of days are removed, 0 keeps the history forever */
+    private int historyRetentionDays = 0;
+
+    /** history entries older than this number of days are downsampled, 0 disables downsampling */
+    private int historyDownsampleAfterDays = 0;
+
+    /** size of the buckets in minutes of which only the first entry is kept when downsampling */
+    private int historyDownsampleIntervalMinutes = 60;
+
+    /** maximum number of distinct items waiting for the next commit before writers are blocked */
+    private int writeBufferCapacity = 10000;
+
+    /** number of distinct items that triggers a commit immediately */
+    private int commitBatchSize = 500;
+
+    /** maximum time in milliseconds a stored state waits for its commit */
+    private int commitIntervalMillis = 1000;
+
+    public void fill(@Nullable Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        historyEnabled = getBoolean(properties.get("historyEnabled"), historyEnabled);
+        historyRetentionDays = getInt(properties.get("historyRetentionDays"), historyRetentionDays);
+        historyDownsampleAfterDays = getInt(properties.get("historyDownsampleAfterDays"), historyDownsampleAfterDays);
+        historyDownsampleIntervalMinutes = getInt(properties.get("historyDownsampleIntervalMinutes"),
+                historyDownsampleIntervalMinutes);
+        writeBufferCapacity = getInt(properties.get("writeBufferCapacity"), writeBufferCapacity);
+        commitBatchSize = getInt(properties.get("commitBatchSize"), commitBatchSize);
+        commitIntervalMillis = getInt(properties.get("commitIntervalMillis"), commitIntervalMillis);
+    }
+
+    private static boolean getBoolean(@Nullable Object value, boolean defaultValue) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value != null ? Boolean.parseBoolean(value.toString().trim()) : defaultValue;
+    }
+
+    private static int getInt(@Nullable Object value, int defaultValue) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    public boolean isHistoryEnabled() {
+        return historyEnabled;
+    }
+
+    public int getHistoryRetentionDays() {
+        return historyRetentionDays;
+    }
+
+    public int getHistoryDownsampleAfterDays() {
+        return historyDownsampleAfterDays;
+    }
+
+    public int getHistoryDownsampleIntervalMinutes() {
+        return historyDownsampleIntervalMinutes;
+    }
+
+    public int getWriteBufferCapacity() {
+        return writeBufferCapacity;
+    }
+
+    public int getCommitBatchSize() {
+        return commitBatchSize;
+    }
+
+    public int getCommitIntervalMillis() {
+        return commitIntervalMillis;
+    }
+
+    /**
+     * Returns whether there is any retention or downsampling policy that requires periodic maintenance.
+     */
+    public boolean isHistoryMaintenanceRequired() {
+        return historyEnabled && (historyRetentionDays > 0
+                || (historyDownsampleAfterDays > 0 && historyDownsampleIntervalMinutes > 0));
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.BTreeMap;
+import org.mapdb.DB;
+import org.mapdb.Fun;
+import org.mapdb.Fun.Tuple2;
+import org.mapdb.Serializer;
+
+/**
+ * An append-only, time indexed store of item states. Entries are kept in a single BTree keyed by
+ * (alias, epoch millis), so all entries of one item are adjacent and ordered by time.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbHistoryStore {
+
+    private static final String HISTORY_MAP_NAME = "itemStateHistory";
+
+    private final BTreeMap<Tuple2<String, Long>, byte[]> history;
+
+    public MapDbHistoryStore(DB db) {
+        history = db.createTreeMap(HISTORY_MAP_NAME).keySerializer(BTreeKeySerializer.TUPLE2)
+                .valueSerializer(Serializer.BYTE_ARRAY).makeOrGet();
+    }
+
+    /**
+     * Appends an encoded state to the history of the given alias.
+     * A second entry with the same timestamp replaces the first one.
+     */
+    public void append(String alias, long timestamp, byte[] value) {
+        history.put(Fun.t2(alias, timestamp), value);
+    }
+
+    /**
+     * Returns whether there is at least one history entry for the given alias.
+     */
+    public boolean contains(String alias) {
+        return !range(alias, Long.MIN_VALUE, Long.MAX_VALUE, false).isEmpty();
+    }
+
+    /**
+     * Returns a live view on the history entries of the given alias within [from, to].
+     *
+     * @param alias the item name or alias
+     * @param from the first timestamp to include
+     * @param to the last timestamp to include
+     * @param descending whether the view should iterate the newest entries first
+     */
+    public NavigableMap<Tuple2<String, Long>, byte[]> range(String alias, long from, long to, boolean descending) {
+        NavigableMap<Tuple2<String, Long>, byte[]> range = history.subMap(Fun.t2(alias, from), true,
+                Fun.t2(alias, to), true);
+        return descending ? range.descendingMap() : range;
+    }
+
+    /**
+     * Returns the history entries of the given alias matching the filter. The date range is looked up in the index,
+     * states are decoded and filtered one after another until the requested page is complete.
+     *
+     * @param alias the item name or alias
+     * @param filter the filter criteria, its item name is ignored
+     * @return the requested page of history entries
+     */
+    public List<HistoricItem> query(String alias, FilterCriteria filter) {
+        Date begin = filter.getBeginDate();
+        Date end = filter.getEndDate();
+        long from = begin == null ? Long.MIN_VALUE : begin.getTime();
+        long to = end == null ? Long.MAX_VALUE : end.getTime();
+        if (from > to) {
+            return Collections.emptyList();
+        }
+        boolean descending = filter.getOrdering() == Ordering.DESCENDING;
+
+        int pageSize = filter.getPageSize();
+        if (pageSize <= 0) {
+            return Collections.emptyList();
+        }
+        long skip = (long) filter.getPageNumber() * pageSize;
+        List<HistoricItem> result = new ArrayList<>();
+        for (byte[] value : range(alias, from, to, descending).values()) {
+            MapDbItem item = MapDbStateCodec.decode(alias, value);
+            if (item == null || !matchesState(filter, item.getState())) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(item);
+            if (result.size() >= pageSize) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static boolean matchesState(FilterCriteria filter, State state) {
+        State expected = filter.getState();
+        if (expected == null) {
+            return true;
+        }
+        switch (filter.getOperator()) {
+            case EQ:
+                return state.equals(expected);
+            case NEQ:
+                return !state.equals(expected);
+            default:
+                break;
+        }
+        DecimalType value = state.as(DecimalType.class);
+        DecimalType reference = expected.as(DecimalType.class);
+        if (value == null || reference == null) {
+            return false;
+        }
+        int comparison = value.compareTo(reference);
+        switch (filter.getOperator()) {
+            case GT:
+                return comparison > 0;
+            case GTE:
+                return comparison >= 0;
+            case LT:
+                return comparison < 0;
+            case LTE:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Removes all history entries of the given alias that are older than the cutoff.
+     *
+     * @return the number of removed entries
+     */
+    public int purgeBefore(String alias, long cutoff) {
+        int removed = 0;
+        Iterator<Tuple2<String, Long>> it = range(alias, Long.MIN_VALUE, cutoff - 1, false).keySet().iterator();
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Thins out the history entries of the given alias within [from, to] so only the first entry of
+     * every interval remains.
+     *
+     * @return the number of removed entries
+     */
+    public int downsample(String alias, long from, long to, long intervalMillis) {
+        if (intervalMillis <= 0) {
+            return 0;
+        }
+        int removed = 0;
+        long currentBucket = Long.MIN_VALUE;
+        Iterator<Tuple2<String, Long>> it = range(alias, from, to, false).keySet().iterator();
+        while (it.hasNext()) {
+            long bucket = Math.floorDiv(it.next().b, intervalMillis);
+            if (bucket == currentBucket) {
+                it.remove();
+                removed++;
+            } else {
+                currentBucket = bucket;
+            }
+        }
+        return removed;
+    }
+}
@@ -13,14 +13,19 @@
 package org.openhab.persistence.mapdb.internal;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -29,6 +34,7 @@ import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
 import org.eclipse.smarthome.core.persistence.HistoricItem;
 import org.eclipse.smarthome.core.persistence.PersistenceItemInfo;
 import org.eclipse.smarthome.core.persistence.PersistenceService;
@@ -37,12 +43,15 @@ import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.UnDefType;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 
 /**
  * This is the implementation of the MapDB {@link PersistenceService}. To learn
@@ -53,7 +62,7 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to Eclipse SmartHome
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb")
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
     private static final String SERVICE_NAME = "mapdb";
@@ -62,25 +71,56 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     private static final String DB_FILE_NAME = "storage.mapdb";
 
+    private static final String STATE_MAP_NAME = "itemStates";
+
+    /** name of the map holding the JSON records written by previous versions */
+    private static final String LEGACY_STATE_MAP_NAME = "itemStore";
+
+    private static final long HISTORY_MAINTENANCE_INTERVAL_MINUTES = 60;
+
+    /** maximum time a store() call is blocked if the write buffer is full */
+    private static final long WRITE_BUFFER_MAX_BLOCK_MILLIS = 1000;
+
+    private static final String WRITER_THREAD_NAME = "MapDbWriter";
+
+    /** maximum time to wait for the remaining writes on deactivation */
+    private static final long WRITER_SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
+    private final MapDbConfiguration configuration = new MapDbConfiguration();
+
     @NonNullByDefault({})
-    private ExecutorService threadPool;
+    private ScheduledExecutorService threadPool;
 
     /** holds the local instance of the MapDB database */
     @NonNullByDefault({})
     private DB db;
     @NonNullByDefault({})
-    private Map<String, String> map;
+    private Map<String, byte[]> map;
+
+    /** holds the time indexed history, only present if the history mode is enabled */
+    private @Nullable MapDbHistoryStore history;
+
+    private @Nullable ScheduledFuture<?> maintenanceJob;
+
+    /** holds the latest states until they are committed by the writer */
+    @NonNullByDefault({})
+    private volatile MapDbWriteBuffer writeBuffer;
+
+    /** the thread committing the write buffer, it is blocked on the buffer most of the time */
+    private @Nullable Thread writer;
+
+    /** decoded latest states, filled in bulk on activation and kept up to date by store() */
+    private final Map<String, MapDbItem> latestStates = new ConcurrentHashMap<>();
 
-    private transient Gson mapper = new GsonBuilder()
-            .registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
-            .create();
+    private volatile boolean latestStatesLoaded;
 
-    public void activate() {
+    public void activate(@Nullable Map<String, Object> properties) {
         logger.debug("MapDB persistence service is being activated");
 
-        threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+        configuration.fill(properties);
+        threadPool = ThreadPoolManager.getScheduledPool(getClass().getSimpleName());
 
         File folder = new File(DB_FOLDER_NAME);
         if (!folder.exists()) {
@@ -93,12 +133,31 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
         File dbFile = new File(DB_FOLDER_NAME, DB_FILE_NAME);
         db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-        map = db.createTreeMap("itemStore").makeOrGet();
+        map = db.createTreeMap(STATE_MAP_NAME).valueSerializer(Serializer.BYTE_ARRAY).makeOrGet();
+        migrateLegacyStates();
+        configureHistory();
+        writeBuffer = createWriteBuffer();
+        startWriter();
+        // decode all states up front so restoreOnStartup does not have to read them one by one
+        threadPool.submit(this::loadLatestStates);
         logger.debug("MapDB persistence service is now activated");
     }
 
+    @Modified
+    public void modified(@Nullable Map<String, Object> properties) {
+        configuration.fill(properties);
+        if (db != null) {
+            configureHistory();
+            replaceWriteBuffer();
+        }
+    }
+
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
+        stopHistoryMaintenance();
+        stopWriter(writeBuffer);
+        latestStates.clear();
+        latestStatesLoaded = false;
         if (db != null) {
             db.close();
         }
@@ -117,10 +176,43 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream()
-                .map(this::deserialize)
+        if (!latestStatesLoaded) {
+            loadLatestStates();
+        }
+        return new HashSet<PersistenceItemInfo>(latestStates.values());
+    }
+
+    /**
+     * Returns the latest state of every stored item or alias.
+     *
+     * All records are read in a single sequential pass over the database and decoded in parallel. The result is
+     * cached, so subsequent calls as well as the per item queries issued by restoreOnStartup are served from memory.
+     *
+     * @return an unmodifiable view on the latest states by item name or alias
+     */
+    public Map<String, HistoricItem> getLatestStates() {
+        if (!latestStatesLoaded) {
+            loadLatestStates();
+        }
+        return Collections.unmodifiableMap(latestStates);
+    }
+
+    private synchronized void loadLatestStates() {
+        if (latestStatesLoaded) {
+            return;
+        }
+        long start = System.nanoTime();
+        // states that are not committed yet take precedence over the ones in the database
+        Map<String, byte[]> records = new HashMap<>(map);
+        records.putAll(writeBuffer.snapshot());
+        records.entrySet().parallelStream()
+                .map(entry -> deserialize(entry.getKey(), entry.getValue()))
                 .flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo>toSet());
+                // do not replace states that have been stored in the meantime
+                .forEach(item -> latestStates.putIfAbsent(item.getName(), item));
+        latestStatesLoaded = true;
+        logger.debug("Loaded {} states from MapDB database in {} ms", latestStates.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     @Override
@@ -141,44 +233,258 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         logger.debug("store called for {}", alias);
 
         State state = item.getState();
+        long timestamp = System.currentTimeMillis();
+        byte[] value = MapDbStateCodec.encode(state, timestamp);
+        try {
+            MapDbWriteBuffer buffer = writeBuffer;
+            while (!buffer.put(alias, value)) {
+                if (buffer == writeBuffer) {
+                    logger.debug("Discarded state of '{}' as the MapDB persistence service is shutting down", alias);
+                    return;
+                }
+                // the buffer has been replaced by a reconfiguration
+                buffer = writeBuffer;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        MapDbHistoryStore history = this.history;
+        if (history != null) {
+            // only states accepted by the write buffer are added, history entries are never coalesced and become
+            // durable with the next commit of the writer
+            history.append(alias, timestamp, value);
+        }
         MapDbItem mItem = new MapDbItem();
         mItem.setName(alias);
         mItem.setState(state);
-        mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(alias, json);
-        commit();
+        mItem.setTimestamp(new Date(timestamp));
+        latestStates.put(alias, mItem);
         logger.debug("Stored '{}' with state '{}' in MapDB database", alias, state.toString());
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        String itemName = filter.getItemName();
+        if (itemName == null) {
             return Collections.emptyList();
         }
-        Optional<MapDbItem> item = deserialize(json);
-        if (!item.isPresent()) {
+        MapDbHistoryStore history = this.history;
+        if (history != null && !isLatestStateQuery(filter) && history.contains(itemName)) {
+            return history.query(itemName, filter);
+        }
+        MapDbItem item = latestStates.get(itemName);
+        if (item != null) {
+            return Collections.singletonList(item);
+        }
+        if (latestStatesLoaded) {
             return Collections.emptyList();
         }
-        return Collections.singletonList(item.get());
+        byte[] value = writeBuffer.get(itemName);
+        if (value == null) {
+            value = map.get(itemName);
+        }
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        Optional<MapDbItem> decoded = deserialize(itemName, value);
+        if (!decoded.isPresent()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(decoded.get());
+    }
+
+    /**
+     * Returns whether the filter only asks for the most recent state, as done by restoreOnStartup.
+     */
+    private static boolean isLatestStateQuery(FilterCriteria filter) {
+        return filter.getBeginDate() == null && filter.getEndDate() == null && filter.getState() == null
+                && filter.getPageNumber() == 0 && filter.getPageSize() == 1
+                && filter.getOrdering() == Ordering.DESCENDING;
+    }
+
+    private void configureHistory() {
+        stopHistoryMaintenance();
+        if (!configuration.isHistoryEnabled()) {
+            history = null;
+            return;
+        }
+        if (history == null) {
+            history = new MapDbHistoryStore(db);
+        }
+        if (configuration.isHistoryMaintenanceRequired()) {
+            maintenanceJob = threadPool.scheduleWithFixedDelay(this::maintainHistory, 1,
+                    HISTORY_MAINTENANCE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    private void stopHistoryMaintenance() {
+        ScheduledFuture<?> job = maintenanceJob;
+        if (job != null) {
+            job.cancel(false);
+            maintenanceJob = null;
+        }
+    }
+
+    /**
+     * Applies the configured retention and downsampling policies to the history of all known items.
+     */
+    private void maintainHistory() {
+        MapDbHistoryStore history = this.history;
+        if (history == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long retentionCutoff = configuration.getHistoryRetentionDays() > 0
+                ? now - TimeUnit.DAYS.toMillis(configuration.getHistoryRetentionDays())
+                : Long.MIN_VALUE;
+        long downsampleCutoff = configuration.getHistoryDownsampleAfterDays() > 0
+                ? now - TimeUnit.DAYS.toMillis(configuration.getHistoryDownsampleAfterDays())
+                : Long.MIN_VALUE;
+        long interval = TimeUnit.MINUTES.toMillis(configuration.getHistoryDownsampleIntervalMinutes());
+
+        int removed = 0;
+        try {
+            for (String alias : new ArrayList<>(map.keySet())) {
+                if (retentionCutoff != Long.MIN_VALUE) {
+                    removed += history.purgeBefore(alias, retentionCutoff);
+                }
+                if (downsampleCutoff > retentionCutoff) {
+                    removed += history.downsample(alias, retentionCutoff, downsampleCutoff, interval);
+                }
+            }
+            if (removed > 0) {
+                db.commit();
+            }
+            logger.debug("MapDB history maintenance removed {} entries", removed);
+        } catch (RuntimeException e) {
+            logger.warn("MapDB history maintenance failed: {}", e.getMessage(), e);
+        }
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    /**
+     * Converts the JSON states written by previous versions of this service into the binary format and removes
+     * the legacy map afterwards.
+     */
+    private void migrateLegacyStates() {
+        if (!db.exists(LEGACY_STATE_MAP_NAME)) {
+            return;
+        }
+        Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter()).create();
+        int migrated = 0;
+        Map<String, String> legacyMap = db.getTreeMap(LEGACY_STATE_MAP_NAME);
+        for (Map.Entry<String, String> entry : legacyMap.entrySet()) {
+            MapDbItem item = deserializeJson(mapper, entry.getValue());
+            if (item != null) {
+                map.put(entry.getKey(), MapDbStateCodec.encode(item.getState(), item.getTimestamp().getTime()));
+                migrated++;
+            }
+        }
+        db.delete(LEGACY_STATE_MAP_NAME);
+        db.commit();
+        logger.info("Migrated {} MapDB states to the binary format", migrated);
     }
 
-    private Optional<MapDbItem> deserialize(String json) {
-        MapDbItem item = mapper.<MapDbItem>fromJson(json, MapDbItem.class);
-        if (item == null || !item.isValid()) {
-            logger.warn("Deserialized invalid item: {}", item);
+    private @Nullable MapDbItem deserializeJson(Gson mapper, String json) {
+        try {
+            MapDbItem item = mapper.<MapDbItem>fromJson(json, MapDbItem.class);
+            if (item != null && item.isValid()) {
+                return item;
+            }
+        } catch (JsonParseException e) {
+            // handled below
+        }
+        logger.warn("Dropping invalid legacy record: {}", json);
+        return null;
+    }
+
+    private Optional<MapDbItem> deserialize(String name, byte[] value) {
+        MapDbItem item = MapDbStateCodec.decode(name, value);
+        if (item == null) {
+            logger.warn("Deserialized invalid item: {}", name);
             return Optional.empty();
         }
         return Optional.of(item);
     }
 
-    private void commit() {
-        threadPool.submit(() -> db.commit());
+    private MapDbWriteBuffer createWriteBuffer() {
+        return new MapDbWriteBuffer(configuration.getWriteBufferCapacity(), configuration.getCommitBatchSize(),
+                configuration.getCommitIntervalMillis(), WRITE_BUFFER_MAX_BLOCK_MILLIS);
+    }
+
+    /**
+     * Applies changed write buffer settings. The current buffer is drained and committed completely before the
+     * writer of the new buffer starts, so an older state never overwrites a newer one.
+     */
+    private void replaceWriteBuffer() {
+        MapDbWriteBuffer oldBuffer = writeBuffer;
+        // new states are collected by the new buffer while the old one is drained
+        writeBuffer = createWriteBuffer();
+        stopWriter(oldBuffer);
+        startWriter();
+    }
+
+    private void startWriter() {
+        MapDbWriteBuffer buffer = writeBuffer;
+        Thread writer = new Thread(() -> writeLoop(buffer), WRITER_THREAD_NAME);
+        writer.setDaemon(true);
+        writer.start();
+        this.writer = writer;
+    }
+
+    /**
+     * Drains the write buffer and commits every batch with a single database commit until the buffer is closed.
+     */
+    private void writeLoop(MapDbWriteBuffer buffer) {
+        try {
+            while (true) {
+                Map<String, byte[]> batch = buffer.drain();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    map.putAll(batch);
+                    db.commit();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to commit {} states to the MapDB database: {}", batch.size(), e.getMessage(),
+                            e);
+                }
+                buffer.commitCompleted(System.nanoTime() - start);
+                logger.trace("Committed {} states to MapDB database ({})", batch.size(), buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the given buffer and waits until the writer has committed the remaining states.
+     */
+    private void stopWriter(@Nullable MapDbWriteBuffer buffer) {
+        if (buffer != null) {
+            buffer.close();
+        }
+        Thread writer = this.writer;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(WRITER_SHUTDOWN_TIMEOUT_SECONDS));
+                if (writer.isAlive()) {
+                    logger.warn("MapDB writer did not finish within {} seconds", WRITER_SHUTDOWN_TIMEOUT_SECONDS);
+                    writer.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Returns the statistics of the write buffer, i.e. its queue depth and the commit latencies.
+     */
+    public @Nullable MapDbWriteBuffer getWriteStatistics() {
+        return writeBuffer;
     }
 
     private static <T> Stream<T> streamOptional(Optional<T> opt) {
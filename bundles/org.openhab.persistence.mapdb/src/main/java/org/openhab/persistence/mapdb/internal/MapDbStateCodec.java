@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.TypeParser;
+import org.eclipse.smarthome.core.types.UnDefType;
+
+/**
+ * A compact binary codec for the values stored by the MapDB persistence service.
+ *
+ * A record consists of a format version, the timestamp, a type tag and a type specific payload. The most common
+ * state types are encoded as primitives, all other states fall back to their class name and full string
+ * representation. The item name is not part of the record, it is always taken from the key of the map.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public final class MapDbStateCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte TAG_GENERIC = 0;
+    private static final byte TAG_UNDEF = 1;
+    private static final byte TAG_NULL = 2;
+    private static final byte TAG_ON = 3;
+    private static final byte TAG_OFF = 4;
+    private static final byte TAG_OPEN = 5;
+    private static final byte TAG_CLOSED = 6;
+    private static final byte TAG_DECIMAL = 7;
+    private static final byte TAG_PERCENT = 8;
+    private static final byte TAG_HSB = 9;
+    private static final byte TAG_STRING = 10;
+
+    private static final byte NUMBER_COMPACT = 0;
+    private static final byte NUMBER_TEXT = 1;
+
+    private MapDbStateCodec() {
+        // prevent instantiation
+    }
+
+    /**
+     * Encodes the state and timestamp of an item.
+     */
+    public static byte[] encode(State state, long timestamp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(timestamp);
+            writeState(out, state);
+        } catch (IOException e) {
+            // cannot happen when writing to a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a record previously written by {@link #encode(State, long)}.
+     *
+     * @param name the item name or alias the record has been stored for
+     * @param data the encoded record
+     * @return the decoded item or null if the record is not valid
+     */
+    public static @Nullable MapDbItem decode(String name, byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                return null;
+            }
+            long timestamp = in.readLong();
+            State state = readState(in);
+            if (state == null) {
+                return null;
+            }
+            MapDbItem item = new MapDbItem();
+            item.setName(name);
+            item.setState(state);
+            item.setTimestamp(new Date(timestamp));
+            return item;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeState(DataOutput out, State state) throws IOException {
+        Class<?> type = state.getClass();
+        if (state == UnDefType.UNDEF) {
+            out.writeByte(TAG_UNDEF);
+        } else if (state == UnDefType.NULL) {
+            out.writeByte(TAG_NULL);
+        } else if (state == OnOffType.ON) {
+            out.writeByte(TAG_ON);
+        } else if (state == OnOffType.OFF) {
+            out.writeByte(TAG_OFF);
+        } else if (state == OpenClosedType.OPEN) {
+            out.writeByte(TAG_OPEN);
+        } else if (state == OpenClosedType.CLOSED) {
+            out.writeByte(TAG_CLOSED);
+        } else if (type == HSBType.class) {
+            HSBType hsb = (HSBType) state;
+            out.writeByte(TAG_HSB);
+            writeNumber(out, hsb.getHue().toBigDecimal());
+            writeNumber(out, hsb.getSaturation().toBigDecimal());
+            writeNumber(out, hsb.getBrightness().toBigDecimal());
+        } else if (type == PercentType.class) {
+            out.writeByte(TAG_PERCENT);
+            writeNumber(out, ((PercentType) state).toBigDecimal());
+        } else if (type == DecimalType.class) {
+            out.writeByte(TAG_DECIMAL);
+            writeNumber(out, ((DecimalType) state).toBigDecimal());
+        } else if (type == StringType.class) {
+            out.writeByte(TAG_STRING);
+            writeString(out, state.toFullString());
+        } else {
+            out.writeByte(TAG_GENERIC);
+            out.writeUTF(type.getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    private static @Nullable State readState(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_UNDEF:
+                return UnDefType.UNDEF;
+            case TAG_NULL:
+                return UnDefType.NULL;
+            case TAG_ON:
+                return OnOffType.ON;
+            case TAG_OFF:
+                return OnOffType.OFF;
+            case TAG_OPEN:
+                return OpenClosedType.OPEN;
+            case TAG_CLOSED:
+                return OpenClosedType.CLOSED;
+            case TAG_HSB:
+                return new HSBType(new DecimalType(readNumber(in)), new PercentType(readNumber(in)),
+                        new PercentType(readNumber(in)));
+            case TAG_PERCENT:
+                return new PercentType(readNumber(in));
+            case TAG_DECIMAL:
+                return new DecimalType(readNumber(in));
+            case TAG_STRING:
+                return new StringType(readString(in));
+            case TAG_GENERIC:
+                String typeName = in.readUTF();
+                return readGenericState(typeName, readString(in));
+            default:
+                return null;
+        }
+    }
+
+    private static @Nullable State readGenericState(String typeName, String value) {
+        try {
+            @SuppressWarnings("unchecked")
+            Class<? extends State> type = (Class<? extends State>) Class.forName(typeName);
+            List<Class<? extends State>> types = Collections.singletonList(type);
+            return TypeParser.parseState(types, value);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        // DataOutput.writeUTF() is limited to 64k, which is not enough for arbitrary string states
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNumber(DataOutput out, BigDecimal value) throws IOException {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            out.writeByte(NUMBER_COMPACT);
+            out.writeInt(value.scale());
+            out.writeLong(unscaled.longValue());
+        } else {
+            out.writeByte(NUMBER_TEXT);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    private static BigDecimal readNumber(DataInput in) throws IOException {
+        if (in.readByte() == NUMBER_COMPACT) {
+            int scale = in.readInt();
+            return BigDecimal.valueOf(in.readLong(), scale);
+        }
+        return new BigDecimal(in.readUTF());
+    }
+}
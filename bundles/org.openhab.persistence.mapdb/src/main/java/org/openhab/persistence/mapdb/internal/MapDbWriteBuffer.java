@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A bounded buffer for the latest states that have not been committed to the database yet.
+ *
+ * Repeated writes to the same alias are coalesced, so only the most recent value is written by the next commit.
+ * Producers are blocked for at most the configured time if the buffer is full. A single writer drains the buffer
+ * once either the batch size is reached or the oldest pending write exceeds the commit interval.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbWriteBuffer {
+
+    private final int capacity;
+    private final int batchSize;
+    private final long commitIntervalNanos;
+    private final long maxBlockNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition ready = lock.newCondition();
+
+    private LinkedHashMap<String, byte[]> pending = new LinkedHashMap<>();
+    /** the batch currently written by the writer, still visible to readers until its commit completes */
+    private Map<String, byte[]> inFlight = Collections.emptyMap();
+    private long oldestPendingNanos;
+    private boolean closed;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalescedWrites = new AtomicLong();
+    private final AtomicLong blockedWrites = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong totalCommitNanos = new AtomicLong();
+    private final AtomicLong maxCommitNanos = new AtomicLong();
+    private volatile long lastCommitNanos;
+
+    /**
+     * @param capacity the maximum number of distinct aliases held before producers are blocked
+     * @param batchSize the number of distinct aliases that triggers a commit immediately
+     * @param commitIntervalMillis the maximum time a write stays uncommitted
+     * @param maxBlockMillis the maximum time a producer is blocked when the buffer is full
+     */
+    public MapDbWriteBuffer(int capacity, int batchSize, long commitIntervalMillis, long maxBlockMillis) {
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, Math.min(batchSize, this.capacity));
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, commitIntervalMillis));
+        this.maxBlockNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxBlockMillis));
+    }
+
+    /**
+     * Adds a value to the buffer, replacing any pending value of the same alias.
+     *
+     * @return false if the buffer has already been closed and the value has been discarded
+     */
+    public boolean put(String alias, byte[] value) throws InterruptedException {
+        lock.lock();
+        try {
+            if (pending.size() >= capacity && !pending.containsKey(alias)) {
+                blockedWrites.incrementAndGet();
+                long remaining = maxBlockNanos;
+                while (pending.size() >= capacity && !closed && remaining > 0) {
+                    remaining = notFull.awaitNanos(remaining);
+                }
+                // if the writer is too slow we accept to exceed the capacity rather than losing the value
+            }
+            if (closed) {
+                return false;
+            }
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            if (pending.put(alias, value) != null) {
+                coalescedWrites.incrementAndGet();
+            }
+            writes.incrementAndGet();
+            if (pending.size() == 1 || pending.size() >= batchSize) {
+                ready.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the pending value of the given alias, if any.
+     */
+    public byte @Nullable [] get(String alias) {
+        lock.lock();
+        try {
+            byte[] value = pending.get(alias);
+            return value != null ? value : inFlight.get(alias);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of all pending values.
+     */
+    public Map<String, byte[]> snapshot() {
+        lock.lock();
+        try {
+            Map<String, byte[]> snapshot = new LinkedHashMap<>(inFlight);
+            snapshot.putAll(pending);
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a batch is due and removes it from the buffer. Once the buffer is closed, the remaining values
+     * are returned immediately.
+     *
+     * @return the values to commit, empty if the buffer has been closed and fully drained
+     */
+    public Map<String, byte[]> drain() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed) {
+                if (pending.isEmpty()) {
+                    ready.await();
+                    continue;
+                }
+                long due = commitIntervalNanos - (System.nanoTime() - oldestPendingNanos);
+                if (pending.size() >= batchSize || due <= 0) {
+                    break;
+                }
+                ready.awaitNanos(due);
+            }
+            if (pending.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, byte[]> batch = pending;
+            inFlight = batch;
+            pending = new LinkedHashMap<>();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the buffer. Further writes are rejected and the writer drains the remaining values.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            ready.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the batch returned by the last {@link #drain()} and records the duration of its commit.
+     */
+    public void commitCompleted(long durationNanos) {
+        lock.lock();
+        try {
+            inFlight = Collections.emptyMap();
+        } finally {
+            lock.unlock();
+        }
+        commits.incrementAndGet();
+        totalCommitNanos.addAndGet(durationNanos);
+        maxCommitNanos.accumulateAndGet(durationNanos, Math::max);
+        lastCommitNanos = durationNanos;
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getCoalescedWrites() {
+        return coalescedWrites.get();
+    }
+
+    public long getBlockedWrites() {
+        return blockedWrites.get();
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public double getAverageCommitMillis() {
+        long count = commits.get();
+        return count == 0 ? 0 : totalCommitNanos.get() / (count * 1_000_000.0);
+    }
+
+    public double getMaxCommitMillis() {
+        return maxCommitNanos.get() / 1_000_000.0;
+    }
+
+    public double getLastCommitMillis() {
+        return lastCommitNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "queueDepth=%d, writes=%d, coalesced=%d, blocked=%d, commits=%d, commitMillis(last/avg/max)=%.1f/%.1f/%.1f",
+                getQueueDepth(), getWrites(), getCoalescedWrites(), getBlockedWrites(), getCommits(),
+                getLastCommitMillis(), getAverageCommitMillis(), getMaxCommitMillis());
+    }
+}
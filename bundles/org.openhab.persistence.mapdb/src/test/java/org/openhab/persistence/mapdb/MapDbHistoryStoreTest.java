@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Operator;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapdb.DBMaker;
+import org.openhab.persistence.mapdb.internal.MapDbHistoryStore;
+import org.openhab.persistence.mapdb.internal.MapDbStateCodec;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbHistoryStoreTest {
+    private MapDbHistoryStore history;
+
+    @Before
+    public void setUp() {
+        history = new MapDbHistoryStore(DBMaker.newMemoryDB().make());
+    }
+
+    @Test
+    public void rangeShouldOnlyContainEntriesOfTheGivenAliasWithinBounds() {
+        history.append("a", 10, bytes("a10"));
+        history.append("a", 20, bytes("a20"));
+        history.append("a", 30, bytes("a30"));
+        history.append("b", 20, bytes("b20"));
+
+        assertThat(values(history.range("a", 15, 30, false).values()), is(equalTo(asList("a20", "a30"))));
+        assertThat(values(history.range("a", Long.MIN_VALUE, Long.MAX_VALUE, true).values()),
+                is(equalTo(asList("a30", "a20", "a10"))));
+        assertThat(history.contains("b"), is(true));
+        assertThat(history.contains("c"), is(false));
+    }
+
+    @Test
+    public void purgeBeforeShouldRemoveOlderEntriesOnly() {
+        history.append("a", 10, bytes("a10"));
+        history.append("a", 20, bytes("a20"));
+        history.append("b", 10, bytes("b10"));
+
+        assertThat(history.purgeBefore("a", 20), is(1));
+        assertThat(values(history.range("a", Long.MIN_VALUE, Long.MAX_VALUE, false).values()),
+                is(equalTo(asList("a20"))));
+        assertThat(history.contains("b"), is(true));
+    }
+
+    @Test
+    public void downsampleShouldKeepTheFirstEntryPerInterval() {
+        history.append("a", 0, bytes("a0"));
+        history.append("a", 5, bytes("a5"));
+        history.append("a", 10, bytes("a10"));
+        history.append("a", 19, bytes("a19"));
+        history.append("a", 25, bytes("a25"));
+
+        assertThat(history.downsample("a", 0, 19, 10), is(2));
+        assertThat(values(history.range("a", Long.MIN_VALUE, Long.MAX_VALUE, false).values()),
+                is(equalTo(asList("a0", "a10", "a25"))));
+    }
+
+    @Test
+    public void queryShouldReturnTheRequestedPageInOrder() {
+        appendNumbers("a", 10);
+        appendNumbers("b", 3);
+
+        FilterCriteria filter = new FilterCriteria().setOrdering(Ordering.ASCENDING).setPageSize(3).setPageNumber(1);
+        assertThat(timestamps(history.query("a", filter)), is(equalTo(asList(3L, 4L, 5L))));
+
+        filter = new FilterCriteria().setOrdering(Ordering.DESCENDING).setPageSize(4).setPageNumber(2);
+        assertThat(timestamps(history.query("a", filter)), is(equalTo(asList(1L, 0L))));
+
+        filter = new FilterCriteria().setPageSize(4).setPageNumber(3);
+        assertThat(history.query("a", filter).isEmpty(), is(true));
+    }
+
+    @Test
+    public void queryShouldFilterByDateRangeAndState() {
+        appendNumbers("a", 10);
+
+        FilterCriteria filter = new FilterCriteria().setOrdering(Ordering.ASCENDING).setBeginDate(new Date(2))
+                .setEndDate(new Date(6));
+        assertThat(timestamps(history.query("a", filter)), is(equalTo(asList(2L, 3L, 4L, 5L, 6L))));
+
+        filter.setOperator(Operator.GTE).setState(new DecimalType(4));
+        assertThat(timestamps(history.query("a", filter)), is(equalTo(asList(4L, 5L, 6L))));
+
+        // the page is filled with matching states only
+        filter = new FilterCriteria().setOrdering(Ordering.ASCENDING).setOperator(Operator.NEQ)
+                .setState(new DecimalType(1)).setPageSize(2).setPageNumber(0);
+        assertThat(timestamps(history.query("a", filter)), is(equalTo(asList(0L, 2L))));
+
+        filter = new FilterCriteria().setBeginDate(new Date(6)).setEndDate(new Date(2));
+        assertThat(history.query("a", filter).isEmpty(), is(true));
+    }
+
+    private void appendNumbers(String alias, int count) {
+        for (int i = 0; i < count; i++) {
+            history.append(alias, i, MapDbStateCodec.encode(new DecimalType(i), i));
+        }
+    }
+
+    private static List<Long> timestamps(List<HistoricItem> items) {
+        List<Long> result = new ArrayList<>();
+        items.forEach(item -> result.add(item.getTimestamp().getTime()));
+        return result;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> values(Iterable<byte[]> values) {
+        List<String> result = new ArrayList<>();
+        values.forEach(value -> result.add(new String(value, StandardCharsets.UTF_8)));
+        return result;
+    }
+}
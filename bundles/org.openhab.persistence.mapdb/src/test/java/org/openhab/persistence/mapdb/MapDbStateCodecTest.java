@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.eclipse.smarthome.core.library.types.UpDownType;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Test;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbStateCodec;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbStateCodecTest {
+
+    @Test
+    public void encodeDecodeRoundtripShouldRecreateTheEncodedState() {
+        assertThat(roundtrip(OnOffType.ON), is(equalTo(OnOffType.ON)));
+        assertThat(roundtrip(OnOffType.OFF), is(equalTo(OnOffType.OFF)));
+        assertThat(roundtrip(OpenClosedType.CLOSED), is(equalTo(OpenClosedType.CLOSED)));
+        assertThat(roundtrip(PercentType.HUNDRED), is(equalTo(PercentType.HUNDRED)));
+        assertThat(roundtrip(HSBType.GREEN), is(equalTo(HSBType.GREEN)));
+        assertThat(roundtrip(new DecimalType(-12.345)), is(equalTo(new DecimalType(-12.345))));
+        assertThat(roundtrip(new DecimalType(new BigDecimal("123456789012345678901234567890.5"))),
+                is(equalTo(new DecimalType(new BigDecimal("123456789012345678901234567890.5")))));
+        assertThat(roundtrip(StringType.valueOf("test")), is(equalTo(StringType.valueOf("test"))));
+    }
+
+    @Test
+    public void encodeDecodeRoundtripShouldFallBackToTheStringRepresentation() {
+        assertThat(roundtrip(UpDownType.UP), is(equalTo(UpDownType.UP)));
+    }
+
+    @Test
+    public void decodeShouldRestoreNameAndTimestamp() {
+        MapDbItem item = MapDbStateCodec.decode("item", MapDbStateCodec.encode(OnOffType.ON, 1234L));
+
+        assertThat(item, is(notNullValue()));
+        assertThat(item.getName(), is(equalTo("item")));
+        assertThat(item.getTimestamp().getTime(), is(1234L));
+    }
+
+    @Test
+    public void decodeShouldRejectInvalidRecords() {
+        assertThat(MapDbStateCodec.decode("item", new byte[0]), is(nullValue()));
+        assertThat(MapDbStateCodec.decode("item", "{\"name\":\"item\"}".getBytes()), is(nullValue()));
+    }
+
+    private State roundtrip(State state) {
+        MapDbItem item = MapDbStateCodec.decode("item", MapDbStateCodec.encode(state, 0));
+        assertThat(item, is(notNullValue()));
+        return item.getState();
+    }
+}
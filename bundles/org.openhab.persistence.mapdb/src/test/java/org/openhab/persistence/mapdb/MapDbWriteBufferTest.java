@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.openhab.persistence.mapdb.internal.MapDbWriteBuffer;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+public class MapDbWriteBufferTest {
+
+    @Test(timeout = 5000)
+    public void repeatedWritesShouldBeCoalesced() throws InterruptedException {
+        MapDbWriteBuffer buffer = new MapDbWriteBuffer(10, 2, 60000, 0);
+        byte[] first = new byte[] { 1 };
+        byte[] second = new byte[] { 2 };
+
+        buffer.put("a", first);
+        buffer.put("a", second);
+        buffer.put("b", first);
+
+        assertThat(buffer.getCoalescedWrites(), is(1L));
+        assertThat(buffer.get("a"), is(second));
+
+        Map<String, byte[]> batch = buffer.drain();
+        assertThat(batch.size(), is(2));
+        assertThat(batch.get("a"), is(second));
+        assertThat(buffer.getQueueDepth(), is(0));
+        // the drained batch stays visible until its commit has completed
+        assertThat(buffer.get("a"), is(second));
+
+        buffer.commitCompleted(0);
+        assertThat(buffer.get("a"), is(nullValue()));
+        assertThat(buffer.getCommits(), is(1L));
+    }
+
+    @Test(timeout = 5000)
+    public void drainShouldReturnPendingWritesAfterTheCommitInterval() throws InterruptedException {
+        MapDbWriteBuffer buffer = new MapDbWriteBuffer(10, 10, 50, 0);
+
+        buffer.put("a", new byte[] { 1 });
+
+        assertThat(buffer.drain().keySet(), hasItem("a"));
+    }
+
+    @Test(timeout = 5000)
+    public void closeShouldFlushTheRemainingWritesAndRejectNewOnes() throws InterruptedException {
+        MapDbWriteBuffer buffer = new MapDbWriteBuffer(10, 10, 60000, 0);
+
+        buffer.put("a", new byte[] { 1 });
+        buffer.close();
+
+        assertThat(buffer.put("b", new byte[] { 1 }), is(false));
+        assertThat(buffer.drain().keySet(), hasItem("a"));
+        assertThat(buffer.drain().isEmpty(), is(true));
+    }
+}
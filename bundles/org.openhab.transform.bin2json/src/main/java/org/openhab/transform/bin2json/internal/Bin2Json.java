@@ -16,6 +16,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.smarthome.core.util.HexUtils;
 import org.slf4j.Logger;
@@ -40,12 +42,15 @@ import com.igormaznitsa.jbbp.model.JBBPFieldArrayUShort;
 import com.igormaznitsa.jbbp.model.JBBPFieldBit;
 import com.igormaznitsa.jbbp.model.JBBPFieldBoolean;
 import com.igormaznitsa.jbbp.model.JBBPFieldByte;
+import com.igormaznitsa.jbbp.model.JBBPFieldDouble;
+import com.igormaznitsa.jbbp.model.JBBPFieldFloat;
 import com.igormaznitsa.jbbp.model.JBBPFieldInt;
 import com.igormaznitsa.jbbp.model.JBBPFieldLong;
 import com.igormaznitsa.jbbp.model.JBBPFieldShort;
 import com.igormaznitsa.jbbp.model.JBBPFieldStruct;
 import com.igormaznitsa.jbbp.model.JBBPFieldUByte;
 import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
+import com.igormaznitsa.jbbp.model.JBBPNumericField;
 
 /**
  * This class converts binary data to JSON format.
@@ -64,6 +69,16 @@ import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
  * {@code
  * JsonObject json = new Bin2Json("byte a; byte b; ubyte c;").convert("03FAFF");
  * json.toString() = {"a":3,"b":-6,"c":255}
+ * }
+ * </pre>
+ *
+ * <p>
+ * Prepared parsers are cached by rule. Values can also be extracted directly, without building JSON:
+ *
+ * <pre>
+ * {@code
+ * new Bin2Json("byte a; ubyte c;").extractField("03FF", "c") = 255
+ * }
  * </pre>
  *
  * @author Pauli Anttila - Initial contribution
@@ -71,6 +86,17 @@ import com.igormaznitsa.jbbp.model.JBBPFieldUShort;
  */
 public class Bin2Json {
 
+    private static final int MAX_CACHED_PARSERS = 50;
+
+    private static final Map<String, JBBPParser> PARSERS = new LinkedHashMap<String, JBBPParser>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JBBPParser> eldest) {
+            return size() > MAX_CACHED_PARSERS;
+        }
+    };
+
     private final Logger logger = LoggerFactory.getLogger(Bin2Json.class);
 
     private JBBPParser parser;
@@ -81,13 +107,126 @@ public class Bin2Json {
      * @throws ConversionException
      */
     public Bin2Json(String parserRule) throws ConversionException {
+        parser = getParser(parserRule);
+    }
+
+    static JBBPParser getParser(String parserRule) throws ConversionException {
+        synchronized (PARSERS) {
+            JBBPParser parser = PARSERS.get(parserRule);
+            if (parser != null) {
+                return parser;
+            }
+        }
         try {
-            parser = JBBPParser.prepare(parserRule);
+            JBBPParser parser = JBBPParser.prepare(parserRule);
+            synchronized (PARSERS) {
+                PARSERS.put(parserRule, parser);
+            }
+            return parser;
         } catch (JBBPException e) {
             throw new ConversionException(String.format("Illegal parser rule, reason: %s", e.getMessage(), e));
         }
     }
 
+    /**
+     * Extract a single value from data in hexadecimal string format, without converting it to JSON.
+     *
+     * @param hexString Data in hexadecimal string format. Example data: 03FAFF
+     * @param path Path of the field, nested fields separated by dots. Example: header.length
+     * @return {@link Long} for integer fields (unsigned types as unsigned values), {@link Double} for floating point
+     *         fields, {@link Boolean} for boolean fields
+     * @throws ConversionException if the data could not be parsed, or the field is missing or not a primitive field
+     */
+    public Object extractField(String hexString, String path) throws ConversionException {
+        return extractField(parse(hexString), path);
+    }
+
+    /**
+     * Extract a single value from byte array data, without converting it to JSON.
+     *
+     * @param data Data in byte array format.
+     * @param path Path of the field, nested fields separated by dots. Example: header.length
+     * @return {@link Long} for integer fields (unsigned types as unsigned values), {@link Double} for floating point
+     *         fields, {@link Boolean} for boolean fields
+     * @throws ConversionException if the data could not be parsed, or the field is missing or not a primitive field
+     */
+    public Object extractField(byte[] data, String path) throws ConversionException {
+        return extractField(parse(data), path);
+    }
+
+    private Object extractField(JBBPFieldStruct struct, String path) throws ConversionException {
+        try {
+            JBBPAbstractField field = struct.findFieldForPath(path);
+            if (field == null) {
+                throw new ConversionException(String.format("Field '%s' not found", path));
+            }
+            Object value = toPrimitive(field);
+            if (value == null) {
+                throw new ConversionException(String.format("Field '%s' is not a primitive field", path));
+            }
+            return value;
+        } catch (JBBPException e) {
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Extract all primitive values from data in hexadecimal string format, without converting it to JSON. Arrays are
+     * skipped.
+     *
+     * @param hexString Data in hexadecimal string format. Example data: 03FAFF
+     * @return values by field path, in the order of the parser rule. See {@link #extractField(String, String)}.
+     * @throws ConversionException if the data could not be parsed
+     */
+    public Map<String, Object> extractFields(String hexString) throws ConversionException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        collectFields(values, "", parse(hexString));
+        return values;
+    }
+
+    private void collectFields(Map<String, Object> values, String prefix, JBBPFieldStruct struct) {
+        for (final JBBPAbstractField field : struct.getArray()) {
+            final String fieldName = field.getFieldName() == null ? "nonamed" : field.getFieldName();
+            if (field instanceof JBBPFieldStruct) {
+                collectFields(values, prefix + fieldName + ".", (JBBPFieldStruct) field);
+            } else {
+                Object value = toPrimitive(field);
+                if (value != null) {
+                    values.put(prefix + fieldName, value);
+                }
+            }
+        }
+    }
+
+    private static Object toPrimitive(JBBPAbstractField field) {
+        if (field instanceof JBBPFieldBoolean) {
+            return ((JBBPFieldBoolean) field).getAsBool();
+        } else if (field instanceof JBBPFieldFloat || field instanceof JBBPFieldDouble) {
+            return ((JBBPNumericField) field).getAsDouble();
+        } else if (field instanceof JBBPNumericField) {
+            return ((JBBPNumericField) field).getAsLong();
+        }
+        return null;
+    }
+
+    private JBBPFieldStruct parse(String hexString) throws ConversionException {
+        try {
+            return parse(HexUtils.hexToBytes(hexString));
+        } catch (IllegalArgumentException e) {
+            throw new ConversionException(String.format("Illegal hexstring , reason: %s", e.getMessage(), e));
+        }
+    }
+
+    private JBBPFieldStruct parse(byte[] data) throws ConversionException {
+        try {
+            return parser.parse(data);
+        } catch (IOException e) {
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+        } catch (JBBPException e) {
+            throw new ConversionException(String.format("Unexpected error, reason: %s", e.getMessage(), e));
+        }
+    }
+
     /**
      * Convert {@link String} in hexadecimal string format to JSON object.
      *
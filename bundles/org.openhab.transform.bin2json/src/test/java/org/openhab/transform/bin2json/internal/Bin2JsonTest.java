@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.bin2json.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for the field extraction and the parser cache of {@link Bin2Json}.
+ *
+ * @author agent - Initial contribution
+ */
+public class Bin2JsonTest {
+
+    private static final String RULE = "ubyte a; ushort b; header { byte len; bool flag; } floatj f; doublej d;"
+            + " byte[2] arr;";
+
+    // a=255, b=65534, header.len=-2, header.flag=true, f=1.5, d=2.5, arr=[1, 2]
+    private static final String DATA = "FF" + "FFFE" + "FE" + "01" + "3FC00000" + "4004000000000000" + "0102";
+
+    @Test
+    public void testExtractUnsignedFields() throws ConversionException {
+        Bin2Json bin2json = new Bin2Json(RULE);
+        assertEquals(255L, bin2json.extractField(DATA, "a"));
+        assertEquals(65534L, bin2json.extractField(DATA, "b"));
+    }
+
+    @Test
+    public void testExtractNestedFields() throws ConversionException {
+        Bin2Json bin2json = new Bin2Json(RULE);
+        assertEquals(-2L, bin2json.extractField(DATA, "header.len"));
+        assertEquals(Boolean.TRUE, bin2json.extractField(DATA, "header.flag"));
+    }
+
+    @Test
+    public void testExtractFloatingPointFields() throws ConversionException {
+        Bin2Json bin2json = new Bin2Json(RULE);
+        assertEquals(1.5, bin2json.extractField(DATA, "f"));
+        assertEquals(2.5, bin2json.extractField(DATA, "d"));
+    }
+
+    @Test
+    public void testExtractFieldFromBytes() throws ConversionException {
+        Bin2Json bin2json = new Bin2Json("byte a; ubyte c;");
+        assertEquals(255L, bin2json.extractField(new byte[] { 3, (byte) 0xFF }, "c"));
+    }
+
+    @Test(expected = ConversionException.class)
+    public void testExtractMissingField() throws ConversionException {
+        new Bin2Json(RULE).extractField(DATA, "missing");
+    }
+
+    @Test(expected = ConversionException.class)
+    public void testExtractMissingNestedField() throws ConversionException {
+        new Bin2Json(RULE).extractField(DATA, "header.missing");
+    }
+
+    @Test(expected = ConversionException.class)
+    public void testExtractStructField() throws ConversionException {
+        new Bin2Json(RULE).extractField(DATA, "header");
+    }
+
+    @Test(expected = ConversionException.class)
+    public void testExtractFieldFromTooShortData() throws ConversionException {
+        new Bin2Json(RULE).extractField("FF", "d");
+    }
+
+    @Test
+    public void testExtractFields() throws ConversionException {
+        Map<String, Object> values = new Bin2Json(RULE).extractFields(DATA);
+
+        // arrays are skipped
+        assertEquals(Arrays.asList("a", "b", "header.len", "header.flag", "f", "d"),
+                Arrays.asList(values.keySet().toArray()));
+        assertEquals(255L, values.get("a"));
+        assertEquals(65534L, values.get("b"));
+        assertEquals(-2L, values.get("header.len"));
+        assertEquals(Boolean.TRUE, values.get("header.flag"));
+        assertEquals(1.5, values.get("f"));
+        assertEquals(2.5, values.get("d"));
+    }
+
+    @Test
+    public void testParserCacheReuse() throws ConversionException {
+        String rule = "byte cached;";
+        Object parser = Bin2Json.getParser(rule);
+        assertSame(parser, Bin2Json.getParser(rule));
+
+        // the least recently used parser is evicted once the cache is full
+        for (int i = 0; i < 50; i++) {
+            Bin2Json.getParser("byte other" + i + ";");
+        }
+        assertNotSame(parser, Bin2Json.getParser(rule));
+    }
+
+    @Test(expected = ConversionException.class)
+    public void testIllegalRule() throws ConversionException {
+        new Bin2Json("byte;;; illegal {");
+    }
+}
@@ -0,0 +1,2 @@
+var count = (typeof count === 'undefined') ? 1 : count + 1;
+count + ':' + input
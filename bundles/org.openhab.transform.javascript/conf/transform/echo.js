@@ -0,0 +1,5 @@
+var result = input;
+for (var i = 0; i < 1000; i++) {
+    result = input;
+}
+result
@@ -0,0 +1,4 @@
+var end = Date.now() + 1000;
+while (Date.now() < end) {
+}
+input
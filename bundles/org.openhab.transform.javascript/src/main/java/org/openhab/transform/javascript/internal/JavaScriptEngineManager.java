@@ -17,9 +17,21 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
@@ -27,25 +39,124 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.common.NamedThreadFactory;
 import org.eclipse.smarthome.core.transform.TransformationException;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple cache for compiled JavaScript files.
+ * Cache for compiled JavaScript files, executing them concurrently.
+ *
+ * Each evaluation of a compiled script gets fresh bindings. Scripts can thus be evaluated in parallel, and global
+ * variables of one evaluation are never seen by another one.
+ *
+ * Evaluations can be limited with the optional <code>timeout</code> configuration parameter, in milliseconds. Limited
+ * evaluations are executed by a bounded thread pool. Nashorn does not react to interrupts, so a script exceeding the
+ * timeout keeps its thread until it completes.
  *
  * @author Thomas Kordelle - pre compiled scripts
  *
  */
 @NonNullByDefault
-@Component(service = JavaScriptEngineManager.class)
+@Component(service = JavaScriptEngineManager.class, configurationPid = "transform.javascript", //
+        configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class JavaScriptEngineManager {
 
+    private static final String CONFIG_TIMEOUT = "timeout";
+    private static final int MAX_TIMEOUT_THREADS = 4;
+    private static final int MAX_QUEUED_EVALUATIONS = 100;
+
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
+    private final Map<String, CachedScript> compiledScriptMap = new ConcurrentHashMap<>();
+
+    private volatile long timeoutMillis;
+    private @Nullable ExecutorService timeoutExecutor;
+
+    /**
+     * Compiled script with the statistics of its evaluations
+     */
+    private static class CachedScript {
+        final CompiledScript compiledScript;
+        final ScriptStatistics statistics = new ScriptStatistics();
+
+        CachedScript(CompiledScript compiledScript) {
+            this.compiledScript = compiledScript;
+        }
+    }
+
+    /**
+     * Execution time statistics of a script
+     */
+    public static class ScriptStatistics {
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean failed) {
+            evaluations.increment();
+            if (failed) {
+                failures.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getEvaluations() {
+            return evaluations.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public double getAverageMillis() {
+            long evaluations = getEvaluations();
+            return evaluations == 0 ? 0 : totalNanos.sum() / (evaluations * 1_000_000.0);
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("evaluations=%d, failures=%d, avg=%.2f ms, max=%.2f ms", getEvaluations(),
+                    getFailures(), getAverageMillis(), getMaxMillis());
+        }
+    }
+
+    @Activate
+    protected void activate(@Nullable Map<String, Object> config) {
+        modified(config);
+    }
+
+    @Modified
+    protected void modified(@Nullable Map<String, Object> config) {
+        Object timeout = config == null ? null : config.get(CONFIG_TIMEOUT);
+        try {
+            timeoutMillis = timeout == null ? 0 : Long.parseLong(timeout.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid JavaScript transformation timeout '{}', not limiting execution time.", timeout);
+            timeoutMillis = 0;
+        }
+    }
+
+    @Deactivate
+    protected synchronized void deactivate() {
+        ExecutorService timeoutExecutor = this.timeoutExecutor;
+        if (timeoutExecutor != null) {
+            timeoutExecutor.shutdownNow();
+            this.timeoutExecutor = null;
+        }
+    }
 
     /**
      * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
@@ -56,25 +167,110 @@ public class JavaScriptEngineManager {
      * @throws TransformationException if compile of JavaScript failed
      */
     protected CompiledScript getScript(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            if (compiledScriptMap.containsKey(filename)) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScriptMap.get(filename);
+        return getCachedScript(filename).compiledScript;
+    }
+
+    private CachedScript getCachedScript(final String filename) throws TransformationException {
+        CachedScript cachedScript = compiledScriptMap.get(filename);
+        if (cachedScript != null) {
+            logger.debug("Loading JavaScript {} from cache.", filename);
+            return cachedScript;
+        }
+        final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+        logger.debug("Loading script {} from storage ", path);
+        try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
+            final ScriptEngine engine = manager.getEngineByName("javascript");
+            final CompiledScript cScript = ((Compilable) engine).compile(reader);
+            logger.debug("Putting compiled JavaScript {} to cache.", cScript);
+            // another thread may have compiled the script concurrently, keep the first one
+            cachedScript = new CachedScript(cScript);
+            CachedScript previous = compiledScriptMap.putIfAbsent(filename, cachedScript);
+            return previous != null ? previous : cachedScript;
+        } catch (IOException | ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Evaluate a script with the given input, using fresh bindings.
+     *
+     * @param filename name of the JavaScript file to evaluate
+     * @param input value of the <code>input</code> variable of the script
+     * @return the result of the script
+     * @throws TransformationException if the script could not be compiled, failed or timed out
+     */
+    protected @Nullable Object eval(final String filename, final String input) throws TransformationException {
+        final CachedScript cachedScript = getCachedScript(filename);
+        final long timeoutMillis = this.timeoutMillis;
+        final long startTime = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result;
+            if (timeoutMillis > 0) {
+                Future<@Nullable Object> future;
+                try {
+                    future = getTimeoutExecutor().submit(() -> eval(cachedScript, input));
+                } catch (RejectedExecutionException e) {
+                    throw new TransformationException(
+                            "Too many pending JavaScript transformations, rejecting " + filename, e);
+                }
+                try {
+                    result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    throw new TransformationException(
+                            "JavaScript " + filename + " did not complete within " + timeoutMillis + " ms");
+                } catch (InterruptedException e) {
+                    future.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw new TransformationException("Interrupted while executing JavaScript " + filename, e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw new TransformationException("An error occurred while executing script. "
+                            + (cause == null ? e.getMessage() : cause.getMessage()), cause == null ? e : cause);
+                }
             } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
+                try {
+                    result = eval(cachedScript, input);
+                } catch (ScriptException e) {
+                    throw new TransformationException("An error occurred while executing script. " + e.getMessage(),
                             e);
                 }
             }
+            failed = false;
+            return result;
+        } finally {
+            cachedScript.statistics.record(System.nanoTime() - startTime, failed);
+        }
+    }
+
+    private static @Nullable Object eval(CachedScript cachedScript, String input) throws ScriptException {
+        Bindings bindings = cachedScript.compiledScript.getEngine().createBindings();
+        bindings.put("input", input);
+        return cachedScript.compiledScript.eval(bindings);
+    }
+
+    private synchronized ExecutorService getTimeoutExecutor() {
+        ExecutorService timeoutExecutor = this.timeoutExecutor;
+        if (timeoutExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_TIMEOUT_THREADS, MAX_TIMEOUT_THREADS, 60L,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_QUEUED_EVALUATIONS),
+                    new NamedThreadFactory("transformJavaScript"));
+            executor.allowCoreThreadTimeOut(true);
+            this.timeoutExecutor = timeoutExecutor = executor;
         }
+        return timeoutExecutor;
+    }
+
+    /**
+     * Get the execution time statistics of the cached scripts.
+     *
+     * @return statistics by script file name
+     */
+    public Map<String, ScriptStatistics> getStatistics() {
+        Map<String, ScriptStatistics> statistics = new ConcurrentHashMap<>();
+        compiledScriptMap.forEach((filename, cachedScript) -> statistics.put(filename, cachedScript.statistics));
+        return Collections.unmodifiableMap(statistics);
     }
 
     /**
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.javascript.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.smarthome.core.transform.TransformationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.transform.javascript.internal.JavaScriptEngineManager.ScriptStatistics;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class JavaScriptEngineManagerTest {
+
+    private JavaScriptEngineManager manager;
+
+    @Before
+    public void init() {
+        manager = new JavaScriptEngineManager();
+        manager.activate(null);
+    }
+
+    @After
+    public void tearDown() {
+        manager.deactivate();
+    }
+
+    @Test
+    public void testGlobalVariablesAreNotShared() throws TransformationException {
+        assertEquals("1:a", manager.eval("counter.js", "a"));
+        assertEquals("1:b", manager.eval("counter.js", "b"));
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> evaluations = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String input = "input" + i;
+                evaluations.add(() -> input.equals(manager.eval("echo.js", input)));
+            }
+            for (Future<Boolean> result : executor.invokeAll(evaluations)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(200, manager.getStatistics().get("echo.js").getEvaluations());
+    }
+
+    @Test
+    public void testStatistics() throws TransformationException {
+        assertTrue(manager.getStatistics().isEmpty());
+
+        manager.eval("echo.js", "a");
+        manager.eval("echo.js", "b");
+        try {
+            manager.eval("missing.js", "c");
+            fail();
+        } catch (TransformationException e) {
+            // expected, a script that cannot be loaded is not cached
+        }
+
+        ScriptStatistics statistics = manager.getStatistics().get("echo.js");
+        assertEquals(Collections.singleton("echo.js"), manager.getStatistics().keySet());
+        assertEquals(2, statistics.getEvaluations());
+        assertEquals(0, statistics.getFailures());
+        assertTrue(statistics.getMaxMillis() >= statistics.getAverageMillis());
+    }
+
+    @Test
+    public void testTimeout() throws TransformationException {
+        manager.modified(Collections.<String, Object> singletonMap("timeout", "100"));
+
+        long start = System.currentTimeMillis();
+        try {
+            manager.eval("slow.js", "a");
+            fail();
+        } catch (TransformationException e) {
+            assertTrue(e.getMessage().contains("did not complete within 100 ms"));
+        }
+        assertTrue(System.currentTimeMillis() - start < 900);
+
+        // scripts completing within the timeout are not affected
+        assertEquals("b", manager.eval("echo.js", "b"));
+
+        ScriptStatistics statistics = manager.getStatistics().get("slow.js");
+        assertEquals(1, statistics.getEvaluations());
+        assertEquals(1, statistics.getFailures());
+    }
+}
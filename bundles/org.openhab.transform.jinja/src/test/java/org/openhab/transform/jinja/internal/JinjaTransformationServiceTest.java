@@ -62,4 +62,18 @@ public class JinjaTransformationServiceTest {
         Assert.assertEquals("Hello world!", transformedResponse);
     }
 
+    @Test
+    public void testRepeatedTransformations() throws TransformationException {
+        String template = "{{value_json.sensor.values[1]}} {{value_json.unit}}";
+        Assert.assertEquals("2 C", processor.transform(template, "{\"sensor\":{\"values\":[1,2]},\"unit\":\"C\"}"));
+        Assert.assertEquals("5 F", processor.transform(template, "{\"sensor\":{\"values\":[4,5]},\"unit\":\"F\"}"));
+    }
+
+    @Test
+    public void testIterateJson() throws TransformationException {
+        String json = "{\"values\":[1,2,3],\"ignored\":{\"a\":true}}";
+        Assert.assertEquals("123", processor.transform("{% for v in value_json['values'] %}{{v}}{% endfor %}", json));
+        Assert.assertEquals("3", processor.transform("{{value_json['values']|length}}", json));
+    }
+
 }
@@ -12,7 +12,9 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +26,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -33,6 +36,10 @@ import com.jayway.jsonpath.PathNotFoundException;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by JSonPath Expressions.
  *
+ * <p>
+ * Compiled expressions are kept in a bounded LRU cache. The most recently parsed source document is kept as well, so
+ * that several expressions evaluated against the same payload (e.g. one per channel) parse it only once.
+ *
  * @author Gaël L'hopital
  * @author Sebastian Janzen
  *
@@ -41,8 +48,34 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(immediate = true, property = { "smarthome.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    private static final int MAX_CACHED_PATHS = 100;
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final Map<String, JsonPath> compiledPaths = new LinkedHashMap<String, JsonPath>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, JsonPath> eldest) {
+            return size() > MAX_CACHED_PATHS;
+        }
+    };
+
+    private volatile @Nullable ParsedSource lastParsedSource;
+
+    /**
+     * Source document together with its parsed tree
+     */
+    private static class ParsedSource {
+        final String source;
+        final Object document;
+
+        ParsedSource(String source, Object document) {
+            this.source = source;
+            this.document = document;
+        }
+    }
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -59,8 +92,45 @@ public class JSonPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
+        JsonPath jsonPath = compile(jsonPathExpression);
+        return read(jsonPath, parse(source), source);
+    }
+
+    private JsonPath compile(String jsonPathExpression) throws TransformationException {
+        synchronized (compiledPaths) {
+            JsonPath jsonPath = compiledPaths.get(jsonPathExpression);
+            if (jsonPath != null) {
+                return jsonPath;
+            }
+        }
+        try {
+            JsonPath jsonPath = JsonPath.compile(jsonPathExpression);
+            synchronized (compiledPaths) {
+                compiledPaths.put(jsonPathExpression, jsonPath);
+            }
+            return jsonPath;
+        } catch (InvalidPathException e) {
+            throw new TransformationException("An error occurred while transforming JSON expression.", e);
+        }
+    }
+
+    private Object parse(String source) throws TransformationException {
+        ParsedSource lastParsedSource = this.lastParsedSource;
+        if (lastParsedSource != null && lastParsedSource.source.equals(source)) {
+            return lastParsedSource.document;
+        }
+        try {
+            Object document = Configuration.defaultConfiguration().jsonProvider().parse(source);
+            this.lastParsedSource = new ParsedSource(source, document);
+            return document;
+        } catch (InvalidJsonException e) {
+            throw new TransformationException("An error occurred while transforming JSON expression.", e);
+        }
+    }
+
+    private @Nullable String read(JsonPath jsonPath, Object document, String source) throws TransformationException {
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = jsonPath.read(document);
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -70,7 +140,7 @@ public class JSonPathTransformationService implements TransformationService {
                 return transformationResult.toString();
             }
         } catch (PathNotFoundException e) {
-            throw new TransformationException("Invalid path '" + jsonPathExpression + "' in '" + source + "'");
+            throw new TransformationException("Invalid path '" + jsonPath.getPath() + "' in '" + source + "'");
         } catch (InvalidPathException | InvalidJsonException e) {
             throw new TransformationException("An error occurred while transforming JSON expression.", e);
         }
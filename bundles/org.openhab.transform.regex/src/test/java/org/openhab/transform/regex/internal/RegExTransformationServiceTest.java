@@ -79,4 +79,25 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testCacheStatistics() throws TransformationException {
+        assertEquals("SetMode(42)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:SetMode,ARG:42"));
+        assertEquals("Reset(1)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:Reset,ARG:1"));
+        assertEquals("42", processor.transform("ARG:(.*)", "ARG:42"));
+
+        assertEquals(1, processor.getCacheHits());
+        assertEquals(2, processor.getCacheMisses());
+        assertEquals(2, processor.getCacheSize());
+        assertEquals(0, processor.getCacheEvictions());
+    }
+
+    @Test
+    public void testCacheEviction() throws TransformationException {
+        for (int i = 0; i < 150; i++) {
+            assertEquals(String.valueOf(i), processor.transform("X" + i + ":(.*)", "X" + i + ":" + i));
+        }
+        assertEquals(100, processor.getCacheSize());
+        assertEquals(50, processor.getCacheEvictions());
+    }
 }
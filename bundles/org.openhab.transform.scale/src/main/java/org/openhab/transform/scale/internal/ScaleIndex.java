@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Lookup structure for the ranges of a scale file.
+ *
+ * The distinct range limits split the number line into points and open intervals between them. Within each of these
+ * segments every range either contains all values or none, so the label of the first matching range (in file order)
+ * is resolved once per segment when loading. Looking up a value is then a binary search over the limits.
+ *
+ * @author agent - Initial contribution
+ */
+class ScaleIndex {
+
+    private static final String FORMAT_VALUE = "%value%";
+    private static final String FORMAT_LABEL = "%label%";
+
+    private enum Placeholder {
+        VALUE,
+        LABEL
+    }
+
+    /** Sorted distinct finite range limits */
+    private final BigDecimal[] limits;
+    /**
+     * Label of each segment, or null if no range matches: index 2i is the interval below limits[i] (above
+     * limits[i - 1]), index 2i + 1 is the point limits[i] and the last index is the interval above all limits
+     */
+    private final String[] labels;
+    private final String nonNumeric;
+    /** Format split at the placeholders: literal strings and {@link Placeholder}s */
+    private final Object[] formatParts;
+
+    /**
+     * @param ranges ranges with their labels, in evaluation order
+     * @param nonNumeric label for non numeric values, or null
+     * @param format presentation format with the <code>%value%</code> and <code>%label%</code> placeholders
+     */
+    ScaleIndex(Map<Range, String> ranges, String nonNumeric, String format) {
+        TreeSet<BigDecimal> sortedLimits = new TreeSet<>();
+        for (Range range : ranges.keySet()) {
+            if (range.min != null) {
+                sortedLimits.add(range.min);
+            }
+            if (range.max != null) {
+                sortedLimits.add(range.max);
+            }
+        }
+        limits = sortedLimits.toArray(new BigDecimal[sortedLimits.size()]);
+        labels = new String[2 * limits.length + 1];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = firstMatch(ranges, representative(i));
+        }
+        this.nonNumeric = nonNumeric;
+        this.formatParts = parseFormat(format);
+    }
+
+    /**
+     * Get a value lying in the given segment
+     */
+    private BigDecimal representative(int segment) {
+        if (limits.length == 0) {
+            return BigDecimal.ZERO;
+        }
+        int limitIndex = segment / 2;
+        if (segment % 2 == 1) {
+            return limits[limitIndex];
+        } else if (limitIndex == 0) {
+            return limits[0].subtract(BigDecimal.ONE);
+        } else if (limitIndex == limits.length) {
+            return limits[limits.length - 1].add(BigDecimal.ONE);
+        } else {
+            return limits[limitIndex - 1].add(limits[limitIndex]).divide(BigDecimal.valueOf(2));
+        }
+    }
+
+    private static String firstMatch(Map<Range, String> ranges, BigDecimal value) {
+        for (Map.Entry<Range, String> entry : ranges.entrySet()) {
+            if (entry.getKey().contains(value)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Object[] parseFormat(String format) {
+        List<Object> parts = new ArrayList<>();
+        int start = 0;
+        while (start < format.length()) {
+            int value = format.indexOf(FORMAT_VALUE, start);
+            int label = format.indexOf(FORMAT_LABEL, start);
+            int next = value == -1 ? label : label == -1 ? value : Math.min(value, label);
+            if (next == -1) {
+                break;
+            }
+            if (next > start) {
+                parts.add(format.substring(start, next));
+            }
+            if (next == value) {
+                parts.add(Placeholder.VALUE);
+                start = next + FORMAT_VALUE.length();
+            } else {
+                parts.add(Placeholder.LABEL);
+                start = next + FORMAT_LABEL.length();
+            }
+        }
+        if (start < format.length()) {
+            parts.add(format.substring(start));
+        }
+        return parts.toArray();
+    }
+
+    /**
+     * Get the label of the first range containing the value
+     *
+     * @return the label, or null if no range contains the value
+     */
+    String getLabel(BigDecimal value) {
+        int index = Arrays.binarySearch(limits, value);
+        return labels[index >= 0 ? 2 * index + 1 : 2 * (-index - 1)];
+    }
+
+    /**
+     * @return label for non numeric values, or null if the scale does not define one
+     */
+    String getNonNumeric() {
+        return nonNumeric;
+    }
+
+    /**
+     * Apply the presentation format
+     *
+     * @param value the transformed input
+     * @param label the label of the range
+     */
+    String format(String value, String label) {
+        if (formatParts.length == 1 && formatParts[0] == Placeholder.LABEL) {
+            return label;
+        }
+        StringBuilder result = new StringBuilder();
+        for (Object part : formatParts) {
+            if (part == Placeholder.VALUE) {
+                result.append(value);
+            } else if (part == Placeholder.LABEL) {
+                result.append(label);
+            } else {
+                result.append(part);
+            }
+        }
+        return result.toString();
+    }
+}
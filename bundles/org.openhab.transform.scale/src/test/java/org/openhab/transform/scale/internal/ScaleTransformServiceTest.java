@@ -150,4 +150,19 @@ public class ScaleTransformServiceTest {
         Assert.assertEquals("Correcte (992) !", transformedResponse);
     }
 
+    @Test
+    public void testTransformByScaleBounds() throws TransformationException {
+        String existingscale = "scale/limits.scale";
+        Assert.assertEquals("low", processor.transform(existingscale, "9.999"));
+        Assert.assertEquals("middle", processor.transform(existingscale, "10.0"));
+        Assert.assertEquals("middle", processor.transform(existingscale, "19.999"));
+        Assert.assertEquals("high", processor.transform(existingscale, "20"));
+        Assert.assertEquals("extreme", processor.transform(existingscale, "300"));
+
+        existingscale = "scale/evaluationorder.scale";
+        Assert.assertEquals("first", processor.transform(existingscale, "14.99"));
+        Assert.assertEquals("second", processor.transform(existingscale, "15"));
+        Assert.assertEquals("last", processor.transform(existingscale, "17"));
+    }
+
 }
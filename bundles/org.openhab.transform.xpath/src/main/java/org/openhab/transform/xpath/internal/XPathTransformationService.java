@@ -13,12 +13,21 @@
 package org.openhab.transform.xpath.internal;
 
 import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -35,14 +44,45 @@ import org.xml.sax.InputSource;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by XPath Expressions.
  *
+ * <p>
+ * Simple absolute child paths without namespaces, like <code>/a/b/c</code> or <code>/a/b/@c</code>, are evaluated
+ * while streaming the source, stopping at the first match. Other expressions are evaluated against a DOM, using
+ * document builders and compiled expressions reused by each thread.
+ *
  * @author Thomas.Eichstaedt-Engelen
  */
 @NonNullByDefault
 @Component(immediate = true, property = { "smarthome.transform=XPATH" })
 public class XPathTransformationService implements TransformationService {
 
+    private static final Pattern SIMPLE_CHILD_PATH = Pattern.compile("(/[A-Za-z_][\\w.-]*)+(/@[A-Za-z_][\\w.-]*)?");
+    private static final int MAX_CACHED_EXPRESSIONS = 50;
+
     private final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+    private final DocumentBuilderFactory domFactory = createDocumentBuilderFactory();
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final XPathFactory xpathFactory = XPathFactory.newInstance();
+
+    private final ThreadLocal<@Nullable DocumentBuilder> documentBuilders = new ThreadLocal<>();
+    private final ThreadLocal<Map<String, XPathExpression>> compiledExpressions = ThreadLocal
+            .withInitial(() -> new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.@Nullable Entry<String, XPathExpression> eldest) {
+                    return size() > MAX_CACHED_EXPRESSIONS;
+                }
+            });
+    private final ThreadLocal<@Nullable XPath> xpaths = new ThreadLocal<>();
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setNamespaceAware(true);
+        domFactory.setValidating(false);
+        return domFactory;
+    }
+
     @Override
     public @Nullable String transform(String xpathExpression, String source) throws TransformationException {
         if (xpathExpression == null || source == null) {
@@ -51,35 +91,145 @@ public class XPathTransformationService implements TransformationService {
 
         logger.debug("about to transform '{}' by the function '{}'", source, xpathExpression);
 
-        StringReader stringReader = null;
-
         try {
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            domFactory.setNamespaceAware(true);
-            domFactory.setValidating(false);
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
+            String transformationResult;
+            if (SIMPLE_CHILD_PATH.matcher(xpathExpression).matches()) {
+                transformationResult = evaluateStreaming(xpathExpression, source);
+            } else {
+                transformationResult = evaluateDom(xpathExpression, source);
+            }
 
-            stringReader = new StringReader(source);
+            logger.debug("transformation resulted in '{}'", transformationResult);
+
+            return transformationResult;
+        } catch (Exception e) {
+            throw new TransformationException("transformation throws exceptions", e);
+        }
+    }
+
+    private String evaluateDom(String xpathExpression, String source) throws Exception {
+        XPathExpression expr = getExpression(xpathExpression);
+
+        try (StringReader stringReader = new StringReader(source)) {
             InputSource inputSource = new InputSource(stringReader);
             inputSource.setEncoding("UTF-8");
 
-            Document doc = builder.parse(inputSource);
+            Document doc = getDocumentBuilder().parse(inputSource);
 
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            XPathExpression expr = xpath.compile(xpathExpression);
+            return (String) expr.evaluate(doc, XPathConstants.STRING);
+        }
+    }
 
-            String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+    private DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilders.get();
+        if (builder == null) {
+            synchronized (domFactory) {
+                builder = domFactory.newDocumentBuilder();
+            }
+            documentBuilders.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
 
-            logger.debug("transformation resulted in '{}'", transformationResult);
+    private XPathExpression getExpression(String xpathExpression) throws XPathExpressionException {
+        Map<String, XPathExpression> expressions = compiledExpressions.get();
+        XPathExpression expr = expressions.get(xpathExpression);
+        if (expr == null) {
+            XPath xpath = xpaths.get();
+            if (xpath == null) {
+                synchronized (xpathFactory) {
+                    xpath = xpathFactory.newXPath();
+                }
+                xpaths.set(xpath);
+            }
+            expr = xpath.compile(xpathExpression);
+            expressions.put(xpathExpression, expr);
+        }
+        return expr;
+    }
 
-            return transformationResult;
-        } catch (Exception e) {
-            throw new TransformationException("transformation throws exceptions", e);
+    /**
+     * Evaluate a simple child path, e.g. <code>/a/b/c</code> or <code>/a/b/@c</code>, without building a DOM.
+     *
+     * As with XPath, the string value of the first matching node in document order is returned, or an empty string
+     * if nothing matches. Names without prefix only match elements and attributes without namespace.
+     */
+    private String evaluateStreaming(String xpathExpression, String source) throws XMLStreamException {
+        String[] steps = xpathExpression.substring(1).split("/");
+        @Nullable
+        String attribute = null;
+        int elementSteps = steps.length;
+        if (steps[steps.length - 1].startsWith("@")) {
+            attribute = steps[steps.length - 1].substring(1);
+            elementSteps--;
+        }
+
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(source));
+        try {
+            int depth = 0;
+            // number of leading steps matched by the current element and its ancestors
+            int matchedDepth = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (matchedDepth == depth - 1 && depth <= elementSteps
+                                && steps[depth - 1].equals(reader.getLocalName())
+                                && isEmpty(reader.getNamespaceURI())) {
+                            matchedDepth = depth;
+                            if (matchedDepth == elementSteps) {
+                                if (attribute == null) {
+                                    return readText(reader);
+                                }
+                                String value = reader.getAttributeValue("", attribute);
+                                if (value != null) {
+                                    return value;
+                                }
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (matchedDepth >= depth) {
+                            matchedDepth = depth - 1;
+                        }
+                        depth--;
+                        break;
+                }
+            }
+            return "";
         } finally {
-            if (stringReader != null) {
-                stringReader.close();
+            reader.close();
+        }
+    }
+
+    private static boolean isEmpty(@Nullable String namespaceURI) {
+        return namespaceURI == null || namespaceURI.isEmpty();
+    }
+
+    /**
+     * Read the text of all descendants of the current element, leaving the reader at its end
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
             }
         }
+        return text.toString();
     }
 
 }
@@ -41,4 +41,28 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
         assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testTransformBySimpleChildPath() throws TransformationException {
+        assertEquals("8", processor.transform("/xml_api_reply/weather/current_conditions/temp_c/@data", source));
+        assertEquals("-1", processor.transform("/xml_api_reply/weather/forecast_conditions/low/@data", source));
+        assertEquals("", processor.transform("/xml_api_reply/weather/unknown/@data", source));
+    }
+
+    @Test
+    public void testSimpleChildPathMatchesDomEvaluation() throws TransformationException {
+        String xml = "<r><a x=\"1\"><b>first</b></a><a><b y=\"2\">he<![CDATA[llo]]><i> world</i></b></a>"
+                + "<n xmlns=\"urn:test\"><b>namespaced</b></n></r>";
+
+        assertEquals(processor.transform("/r/a[1]/b", xml), processor.transform("/r/a/b", xml));
+        assertEquals(processor.transform("/r/a[2]/b/@y", xml), processor.transform("/r/a/b/@y", xml));
+        assertEquals(processor.transform("(/r/n/b)[1]", xml), processor.transform("/r/n/b", xml));
+        assertEquals("hello world", processor.transform("/r/a/b/i/..", xml));
+        assertEquals("", processor.transform("/r/n/b", xml));
+    }
+
+    @Test(expected = TransformationException.class)
+    public void testSimpleChildPathOnInvalidXml() throws TransformationException {
+        processor.transform("/r/a", "<r><b></r>");
+    }
+
 }
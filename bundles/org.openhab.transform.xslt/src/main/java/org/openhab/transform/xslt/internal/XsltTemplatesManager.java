@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2019 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.xslt.internal;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.smarthome.core.transform.TransformationException;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for compiled XSLT stylesheets.
+ *
+ * The compiled {@link Templates} are shared, while each thread gets its own {@link Transformer} per stylesheet since
+ * transformers are not thread safe.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = XsltTemplatesManager.class)
+public class XsltTemplatesManager {
+
+    private final Logger logger = LoggerFactory.getLogger(XsltTemplatesManager.class);
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    private final Map<Path, CompiledStylesheet> compiledStylesheets = new ConcurrentHashMap<>();
+
+    private static class CompiledStylesheet {
+        final Templates templates;
+        final ThreadLocal<@Nullable Transformer> transformers = new ThreadLocal<>();
+
+        CompiledStylesheet(Templates templates) {
+            this.templates = templates;
+        }
+    }
+
+    /**
+     * Get a transformer for the stylesheet. If the stylesheet is not in the cache, then load it from storage and put
+     * a compiled version into the cache.
+     *
+     * The transformer must only be used by the calling thread.
+     *
+     * @param filename name of the stylesheet in the transformation folder
+     * @return transformer for the stylesheet, reset to its initial state
+     * @throws TransformationException if the stylesheet could not be loaded or compiled
+     */
+    protected Transformer getTransformer(String filename) throws TransformationException {
+        Path path = toKey(new File(XsltStylesheetWatcher.TRANSFORM_FOLDER + File.separator + filename).toPath());
+        CompiledStylesheet stylesheet = compiledStylesheets.get(path);
+        if (stylesheet == null) {
+            stylesheet = compile(path);
+        }
+        Transformer transformer = stylesheet.transformers.get();
+        try {
+            if (transformer == null) {
+                transformer = stylesheet.templates.newTransformer();
+                stylesheet.transformers.set(transformer);
+            } else {
+                transformer.reset();
+            }
+        } catch (TransformerConfigurationException e) {
+            throw new TransformationException("An error occurred while creating XSLT transformer. " + e.getMessage(),
+                    e);
+        }
+        return transformer;
+    }
+
+    private CompiledStylesheet compile(Path path) throws TransformationException {
+        synchronized (transformerFactory) {
+            CompiledStylesheet stylesheet = compiledStylesheets.get(path);
+            if (stylesheet != null) {
+                return stylesheet;
+            }
+            logger.debug("Loading stylesheet {} from storage", path);
+            try {
+                stylesheet = new CompiledStylesheet(transformerFactory.newTemplates(new StreamSource(path.toFile())));
+            } catch (TransformerConfigurationException e) {
+                throw new TransformationException("An error occurred while loading stylesheet. " + e.getMessage(), e);
+            }
+            compiledStylesheets.put(path, stylesheet);
+            return stylesheet;
+        }
+    }
+
+    /**
+     * Remove a compiled stylesheet from cache.
+     *
+     * @param path path of the stylesheet file to remove
+     */
+    protected void removeFromCache(Path path) {
+        if (compiledStylesheets.remove(toKey(path)) != null) {
+            logger.debug("Removed stylesheet {} from cache.", path);
+        }
+    }
+
+    private static Path toKey(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -12,7 +12,11 @@
  */
 package org.openhab.transform.xslt.internal;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import javax.xml.transform.Transformer;
 
 import org.eclipse.smarthome.core.transform.TransformationException;
 import org.junit.Before;
@@ -24,11 +28,14 @@ import org.openhab.transform.xslt.internal.XsltTransformationService;
  */
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
+    private XsltTemplatesManager manager;
     private XsltTransformationService processor;
 
     @Before
     public void init() {
+        manager = new XsltTemplatesManager();
         processor = new XsltTransformationService();
+        processor.setXsltTemplatesManager(manager);
     }
 
     @Test
@@ -41,4 +48,20 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         assertEquals("8", transformedResponse);
     }
 
+    @Test
+    public void testTransformByXSLTRepeatedly() throws TransformationException {
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+    }
+
+    @Test
+    public void testCompiledStylesheetIsCachedUntilRemoved() throws TransformationException {
+        File stylesheet = new File(XsltStylesheetWatcher.TRANSFORM_FOLDER + File.separator + "http/google_weather.xsl");
+
+        Transformer transformer = manager.getTransformer("http/google_weather.xsl");
+        assertSame(transformer, manager.getTransformer("http/google_weather.xsl"));
+        manager.removeFromCache(stylesheet.toPath());
+        assertNotSame(transformer, manager.getTransformer("http/google_weather.xsl"));
+    }
+
 }